@@ -1,5 +1,7 @@
 package br.com.datastreambrasil.kafka.connector.ftp;
 
+import br.com.datastreambrasil.kafka.connector.ftp.model.RemoteFileInfo;
+import org.apache.commons.net.ftp.FTP;
 import org.apache.commons.net.ftp.FTPClient;
 import org.apache.commons.net.ftp.FTPFile;
 import org.slf4j.Logger;
@@ -40,6 +42,10 @@ public class FtpRemoteClient implements RemoteClient {
             throw new Exception("FTP login failed for user: " + username);
         }
         ftpClient.enterLocalPassiveMode();
+        // Binary transfers keep byte offsets identical to the remote file, which REST resumes rely on
+        if (!ftpClient.setFileType(FTP.BINARY_FILE_TYPE)) {
+            log.warn("Could not switch to binary transfer mode. FTP reply: {}", ftpClient.getReplyString());
+        }
         log.info("Connected and logged in to FTP server");
     }
 
@@ -58,6 +64,37 @@ public class FtpRemoteClient implements RemoteClient {
         return result;
     }
 
+    @Override
+    public List<RemoteFileInfo> listFileInfos(String directory, String pattern) throws Exception {
+        Pattern regex = Pattern.compile(pattern);
+        FTPFile[] files = ftpClient.listFiles(directory);
+        List<RemoteFileInfo> result = new ArrayList<>();
+
+        for (FTPFile file : files) {
+            if (file.isFile() && regex.matcher(file.getName()).matches()) {
+                long lastModified = file.getTimestamp() != null ? file.getTimestamp().getTimeInMillis() : 0;
+                result.add(new RemoteFileInfo(directory + "/" + file.getName(), file.getSize(), lastModified));
+            }
+        }
+
+        return result;
+    }
+
+    @Override
+    public RemoteFileInfo getFileInfo(String filePath) throws Exception {
+        // MLST gives second precision; fall back to LIST on servers that do not support it
+        FTPFile file = ftpClient.mlistFile(filePath);
+        if (file == null) {
+            FTPFile[] files = ftpClient.listFiles(filePath);
+            if (files == null || files.length != 1 || !files[0].isFile()) {
+                throw new Exception("Could not read metadata of file: " + filePath);
+            }
+            file = files[0];
+        }
+        long lastModified = file.getTimestamp() != null ? file.getTimestamp().getTimeInMillis() : 0;
+        return new RemoteFileInfo(filePath, file.getSize(), lastModified);
+    }
+
     @Override
     public InputStream retrieveFileStream(String filePath) throws Exception {
         InputStream stream = ftpClient.retrieveFileStream(filePath);
@@ -67,6 +104,16 @@ public class FtpRemoteClient implements RemoteClient {
         return stream;
     }
 
+    @Override
+    public InputStream retrieveFileStream(String filePath, long offset) throws Exception {
+        if (offset > 0) {
+            // Sent as REST before RETR; commons-net resets it after the transfer is opened
+            ftpClient.setRestartOffset(offset);
+        }
+        return retrieveFileStream(filePath);
+    }
+
+    @Override
     public void completePending() throws IOException {
         if (!ftpClient.completePendingCommand()) {
             throw new IOException("Failed to complete pending FTP command.");
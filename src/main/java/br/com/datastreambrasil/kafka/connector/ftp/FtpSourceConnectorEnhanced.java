@@ -1,10 +1,22 @@
 package br.com.datastreambrasil.kafka.connector.ftp;
 
+import br.com.datastreambrasil.kafka.connector.ftp.hash.FileFingerprints;
+import br.com.datastreambrasil.kafka.connector.ftp.hash.FileIdentityResolver;
+import br.com.datastreambrasil.kafka.connector.ftp.monitor.DirectoryMonitor;
+import br.com.datastreambrasil.kafka.connector.ftp.monitor.FileAssignment;
+import br.com.datastreambrasil.kafka.connector.ftp.reader.LineReader;
+import br.com.datastreambrasil.kafka.connector.ftp.retry.RetryConfig;
+import br.com.datastreambrasil.kafka.connector.ftp.retry.RetryableRemoteClient;
 import org.apache.kafka.connect.connector.Task;
+import org.apache.kafka.connect.errors.ConnectException;
 import org.apache.kafka.connect.source.SourceConnector;
 import org.apache.kafka.common.config.ConfigDef;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -25,21 +37,66 @@ public class FtpSourceConnectorEnhanced extends SourceConnector {
     public static final String FTP_FILE_ENCODING = "ftp.file.encoding";
     public static final String FTP_FILE_OUTPUT_FORMAT = "ftp.file.output.format";
     public static final String FTP_FILE_TOKENIZER = "ftp.file.tokenizer";
+    public static final String FTP_FILE_QUOTE_CHAR = "ftp.file.quote.char";
+    public static final String FTP_FILE_ESCAPE_CHAR = "ftp.file.escape.char";
+    public static final String FTP_FILE_TRIM_FIELDS = "ftp.file.trim.fields";
+    public static final String FTP_FILE_MULTILINE_RECORDS_ENABLED = "ftp.file.multiline.records.enabled";
+    public static final String FTP_FILE_MAX_RECORD_BYTES = "ftp.file.max.record.bytes";
     public static final String FTP_FILE_HEADERS = "ftp.file.headers";
+    public static final String FTP_FILE_HEADER_ROW_ENABLED = "ftp.file.header.row.enabled";
+    public static final String FTP_FILE_COLUMNS_INCLUDE = "ftp.file.columns.include";
+    public static final String FTP_FILE_FIXED_WIDTH_COLUMNS = "ftp.file.fixed.width.columns";
     public static final String FTP_KAFKA_KEY_FIELD = "ftp.kafka.key.field";
+    public static final String FTP_KAFKA_KEY_HASH = "ftp.kafka.key.hash";
     public static final String FTP_MAX_RECORDS_PER_POLL = "ftp.max.records.per.poll";
+    public static final String FTP_MAX_POLL_BYTES = "ftp.max.poll.bytes";
+    public static final String FTP_MAX_POLL_DURATION_MS = "ftp.max.poll.duration.ms";
+    public static final String FTP_POLL_AUTOTUNE_ENABLED = "ftp.poll.autotune.enabled";
     public static final String FTP_POLL_INTERVAL = "ftp.poll.interval.ms";
+    public static final String FTP_POLL_BACKOFF_MAX_MS = "ftp.poll.backoff.max.ms";
     public static final String TOPIC = "topic";
 
     // NEW: Performance configs
     public static final String FTP_BUFFER_SIZE = "ftp.buffer.size.bytes";
     public static final String FTP_AUTO_DETECT_COMPRESSION = "ftp.file.compression.auto.detect";
+    public static final String FTP_FILE_STREAMING_ENABLED = "ftp.file.streaming.enabled";
+    public static final String FTP_FILE_HASH_ALGORITHM = "ftp.file.hash.algorithm";
+    public static final String FTP_FILE_HASH_CHECKPOINT_LINES = "ftp.file.hash.checkpoint.lines";
+    public static final String FTP_FILE_IDENTITY_STRATEGY = "ftp.file.identity.strategy";
+    public static final String FTP_FILE_IDENTITY_SAMPLE_BYTES = "ftp.file.identity.sample.bytes";
+    public static final String FTP_FILE_SPOOL_ENABLED = "ftp.file.spool.enabled";
+    public static final String FTP_FILE_SPOOL_DIR = "ftp.file.spool.dir";
+    public static final String FTP_FILE_SPOOL_MAX_BYTES = "ftp.file.spool.max.bytes";
+    public static final String FTP_FILE_PREFETCH_DEPTH = "ftp.file.prefetch.depth";
+    public static final String FTP_FILE_PREFETCH_BYTES = "ftp.file.prefetch.bytes";
+    public static final String FTP_WORKERS = "ftp.workers";
+    public static final String FTP_WORKER_QUEUE_CAPACITY = "ftp.worker.queue.capacity";
+    public static final String FTP_TASK_STEAL_IDLE_MS = "ftp.task.steal.idle.ms";
+    public static final String FTP_MONITOR_ENABLED = "ftp.monitor.enabled";
+    public static final String FTP_MONITOR_INTERVAL_MS = "ftp.monitor.interval.ms";
+    public static final String FTP_FILE_SPLIT_BYTES = "ftp.file.split.bytes";
+    // Assigned per task by taskConfigs
+    public static final String FTP_TASK_ID = "ftp.task.id";
+    public static final String FTP_TASK_SHARD_ID = "ftp.task.shard.id";
+    public static final String FTP_TASK_SHARD_COUNT = "ftp.task.shard.count";
+    public static final String FTP_TASK_ASSIGNED_FILES = "ftp.task.assigned.files";
+    public static final String DEFAULT_SPOOL_DIR = System.getProperty("java.io.tmpdir") + "/ftp-connector-spool";
 
     // NEW: File processing configs
     public static final String FTP_SKIP_HEADER_LINES = "ftp.file.skip.header.lines";
     public static final String FTP_SKIP_FOOTER_LINES = "ftp.file.skip.footer.lines";
     public static final String FTP_SKIP_EMPTY_LINES = "ftp.file.empty.lines.skip";
     public static final String FTP_COMMENT_PREFIX = "ftp.file.comment.prefix";
+    public static final String FTP_SCHEMA_INFERENCE_ENABLED = "ftp.schema.inference.enabled";
+    public static final String FTP_SCHEMA_INFERENCE_SAMPLE_ROWS = "ftp.schema.inference.sample.rows";
+    public static final String FTP_DEDUP_ENABLED = "ftp.dedup.enabled";
+    public static final String FTP_DEDUP_KEY = "ftp.dedup.key";
+    public static final String FTP_DEDUP_FALSE_POSITIVE_RATE = "ftp.dedup.false.positive.rate";
+    public static final String FTP_DEDUP_MEMORY_BYTES = "ftp.dedup.memory.bytes";
+    public static final String FTP_DEDUP_OFFHEAP = "ftp.dedup.offheap";
+    public static final String FTP_DEDUP_PATH = "ftp.dedup.path";
+    public static final String DEDUP_KEY_ROW = "row";
+    public static final String DEDUP_KEY_KEY = "key";
 
     // NEW: Validation configs
     public static final String FTP_VALIDATION_ENABLED = "ftp.validation.enabled";
@@ -58,11 +115,40 @@ public class FtpSourceConnectorEnhanced extends SourceConnector {
     // NEW: Metrics configs
     public static final String FTP_METRICS_INTERVAL_LINES = "ftp.metrics.interval.lines";
 
+    private static final Logger log = LoggerFactory.getLogger(FtpSourceConnectorEnhanced.class);
+
     private Map<String, String> config;
+    private DirectoryMonitor monitor;
 
     @Override
     public void start(Map<String, String> props) {
         this.config = props;
+
+        if (Boolean.parseBoolean(props.getOrDefault(FTP_MONITOR_ENABLED, "false"))) {
+            RemoteClient client = createClient(props);
+            try {
+                client.connect();
+            } catch (Exception e) {
+                throw new ConnectException("Failed to connect to remote server", e);
+            }
+            long intervalMs = Long.parseLong(props.getOrDefault(FTP_MONITOR_INTERVAL_MS,
+                    props.getOrDefault(FTP_POLL_INTERVAL, "10000")));
+            long splitBytes = Long.parseLong(props.getOrDefault(FTP_FILE_SPLIT_BYTES, "0"));
+            if (splitBytes > 0 && !LineReader.isAsciiCompatible(Charset.forName(props.getOrDefault(FTP_FILE_ENCODING, "UTF-8")))) {
+                log.warn("Files in {} cannot be split into byte ranges, processing them whole",
+                        props.getOrDefault(FTP_FILE_ENCODING, "UTF-8"));
+                splitBytes = 0;
+            }
+            if (splitBytes > 0 && Boolean.parseBoolean(props.getOrDefault(FTP_FILE_MULTILINE_RECORDS_ENABLED, "false"))) {
+                log.warn("Multi-line records cannot be split into byte ranges, processing files whole");
+                splitBytes = 0;
+            }
+            this.monitor = new DirectoryMonitor(client, props.get(FTP_DIRECTORY), props.get(FTP_DIRECTORY_STAGE),
+                    props.getOrDefault(FTP_FILE_PATTERN, ".*\\.txt"), intervalMs, splitBytes,
+                    () -> context.requestTaskReconfiguration());
+            this.monitor.start();
+            log.info("Monitoring {} every {} ms and assigning files to tasks", props.get(FTP_DIRECTORY), intervalMs);
+        }
     }
 
     @Override
@@ -73,15 +159,48 @@ public class FtpSourceConnectorEnhanced extends SourceConnector {
     @Override
     public List<Map<String, String>> taskConfigs(int maxTasks) {
         List<Map<String, String>> configs = new ArrayList<>();
+        if (monitor != null) {
+            // no task runs while the backlog is empty; the monitor asks for tasks again when files arrive
+            for (List<String> files : monitor.assign(maxTasks)) {
+                Map<String, String> taskConfig = new HashMap<>(config);
+                taskConfig.put(FTP_TASK_ID, String.valueOf(configs.size()));
+                taskConfig.put(FTP_TASK_ASSIGNED_FILES, FileAssignment.format(files));
+                configs.add(taskConfig);
+            }
+            return configs;
+        }
         for (int i = 0; i < maxTasks; i++) {
-            configs.add(config);
+            Map<String, String> taskConfig = new HashMap<>(config);
+            taskConfig.put(FTP_TASK_ID, String.valueOf(i));
+            taskConfig.put(FTP_TASK_SHARD_ID, String.valueOf(i));
+            taskConfig.put(FTP_TASK_SHARD_COUNT, String.valueOf(maxTasks));
+            configs.add(taskConfig);
         }
         return configs;
     }
 
     @Override
     public void stop() {
-        // Do Nothing
+        if (monitor != null) {
+            monitor.close();
+            monitor = null;
+        }
+    }
+
+    /**
+     * Creates the monitor connection to the configured server, wrapped with retry logic
+     */
+    protected RemoteClient createClient(Map<String, String> props) {
+        RemoteClient baseClient = "sftp".equalsIgnoreCase(props.get(FTP_PROTOCOL))
+                ? new SftpRemoteClient(props)
+                : new FtpRemoteClient(props);
+
+        RetryConfig retryConfig = new RetryConfig(
+                Integer.parseInt(props.getOrDefault(FTP_RETRY_MAX_ATTEMPTS, "3")),
+                Long.parseLong(props.getOrDefault(FTP_RETRY_BACKOFF_MS, "1000")),
+                Long.parseLong(props.getOrDefault(FTP_RETRY_MAX_BACKOFF_MS, "30000")),
+                2.0);
+        return new RetryableRemoteClient(baseClient, retryConfig);
     }
 
     @Override
@@ -113,11 +232,30 @@ public class FtpSourceConnectorEnhanced extends SourceConnector {
                 .define(FTP_FILE_ENCODING, ConfigDef.Type.STRING, "UTF-8", ConfigDef.Importance.LOW,
                         "Character encoding used to read the files")
                 .define(FTP_FILE_OUTPUT_FORMAT, ConfigDef.Type.STRING, "string", ConfigDef.Importance.LOW,
-                        "Format for output records: 'string' or 'json'")
+                        "Format for output records: 'string', 'json' or 'bytes' (the undecoded line, for ByteArrayConverter)")
                 .define(FTP_FILE_TOKENIZER, ConfigDef.Type.STRING, ";", ConfigDef.Importance.LOW,
                         "Delimiter used to split each line when format is 'json'")
+                .define(FTP_FILE_QUOTE_CHAR, ConfigDef.Type.STRING, "\"", ConfigDef.Importance.LOW,
+                        "Quote character of fields that contain the delimiter (RFC 4180); empty disables quoting")
+                .define(FTP_FILE_ESCAPE_CHAR, ConfigDef.Type.STRING, "", ConfigDef.Importance.LOW,
+                        "Escape character inside quoted fields; empty means only doubled quotes are escapes")
+                .define(FTP_FILE_TRIM_FIELDS, ConfigDef.Type.BOOLEAN, true, ConfigDef.Importance.LOW,
+                        "Trim blanks around each field when format is 'json'")
+                .define(FTP_FILE_MULTILINE_RECORDS_ENABLED, ConfigDef.Type.BOOLEAN, false, ConfigDef.Importance.LOW,
+                        "Join lines that end inside a quoted field with the following lines into one record")
+                .define(FTP_FILE_MAX_RECORD_BYTES, ConfigDef.Type.LONG, 1048576L, ConfigDef.Range.atLeast(1), ConfigDef.Importance.LOW,
+                        "Maximum size of a multi-line record; a record still inside quotes at this size is cut and sent to the DLQ")
                 .define(FTP_FILE_HEADERS, ConfigDef.Type.STRING, "", ConfigDef.Importance.LOW,
                         "Optional comma-separated list of field names to be used as JSON keys")
+                .define(FTP_FILE_HEADER_ROW_ENABLED, ConfigDef.Type.BOOLEAN, false, ConfigDef.Importance.LOW,
+                        "Take the field names of each file from its first line when format is 'json', instead of ftp.file.headers")
+                .define(FTP_FILE_FIXED_WIDTH_COLUMNS, ConfigDef.Type.STRING, "", ConfigDef.Importance.LOW,
+                        "Layout of fixed-width files when format is 'json', as comma-separated name:start:length[:type][:trim] "
+                                + "with a one-based start; types string, int64, float64, decimal(scale), date(pattern), "
+                                + "timestamp(pattern). Empty splits lines on ftp.file.tokenizer")
+                .define(FTP_FILE_COLUMNS_INCLUDE, ConfigDef.Type.STRING, "", ConfigDef.Importance.LOW,
+                        "Comma-separated columns to keep when format is 'json', by field name or one-based position; "
+                                + "other columns are skipped while splitting. Empty keeps all columns")
                 .define(FTP_SKIP_HEADER_LINES, ConfigDef.Type.INT, 0, ConfigDef.Importance.LOW,
                         "Number of header lines to skip at start of file")
                 .define(FTP_SKIP_FOOTER_LINES, ConfigDef.Type.INT, 0, ConfigDef.Importance.LOW,
@@ -126,22 +264,88 @@ public class FtpSourceConnectorEnhanced extends SourceConnector {
                         "Skip empty lines during processing")
                 .define(FTP_COMMENT_PREFIX, ConfigDef.Type.STRING, "", ConfigDef.Importance.LOW,
                         "Skip lines starting with this prefix (e.g., '#')")
+                .define(FTP_SCHEMA_INFERENCE_ENABLED, ConfigDef.Type.BOOLEAN, false, ConfigDef.Importance.LOW,
+                        "Infer INT64, FLOAT64, DECIMAL, DATE and TIMESTAMP columns from the first rows of each file "
+                                + "when format is 'json'; rows that do not fit go to the DLQ")
+                .define(FTP_SCHEMA_INFERENCE_SAMPLE_ROWS, ConfigDef.Type.INT, 100, ConfigDef.Importance.LOW,
+                        "Number of rows sampled per file for schema inference")
+                .define(FTP_DEDUP_ENABLED, ConfigDef.Type.BOOLEAN, false, ConfigDef.Importance.MEDIUM,
+                        "Drop rows already seen in this or an earlier file, using a rotating Bloom filter")
+                .define(FTP_DEDUP_KEY, ConfigDef.Type.STRING, DEDUP_KEY_ROW, ConfigDef.ValidString.in(DEDUP_KEY_ROW, DEDUP_KEY_KEY),
+                        ConfigDef.Importance.LOW,
+                        "What identifies a row for deduplication: 'row' (hash of the whole line) or 'key' (the record key from ftp.kafka.key.field)")
+                .define(FTP_DEDUP_FALSE_POSITIVE_RATE, ConfigDef.Type.DOUBLE, 0.001, ConfigDef.Range.between(1e-9, 0.5),
+                        ConfigDef.Importance.LOW,
+                        "Share of new rows wrongly dropped as duplicates once the filter is full; lower rates remember fewer rows")
+                .define(FTP_DEDUP_MEMORY_BYTES, ConfigDef.Type.LONG, 16L * 1024 * 1024, ConfigDef.Range.between(1024L, 3L * 1024 * 1024 * 1024),
+                        ConfigDef.Importance.LOW,
+                        "Memory of the deduplication filter per task, split between two rotating generations and the current file of the task or of each of its workers")
+                .define(FTP_DEDUP_OFFHEAP, ConfigDef.Type.BOOLEAN, false, ConfigDef.Importance.LOW,
+                        "Keep the deduplication filter outside the Java heap")
+                .define(FTP_DEDUP_PATH, ConfigDef.Type.STRING, "", ConfigDef.Importance.LOW,
+                        "Local directory the deduplication filter is saved to after each file and loaded from on start, empty to keep it in memory only")
 
                 // Kafka configs
                 .define(FTP_KAFKA_KEY_FIELD, ConfigDef.Type.STRING, "", ConfigDef.Importance.LOW,
-                        "Field name from headers to be used as Kafka message key (use + for composite keys)")
+                        "Field name from headers, fieldN or one-based position to be used as Kafka message key (use + for composite keys)")
+                .define(FTP_KAFKA_KEY_HASH, ConfigDef.Type.STRING, "none", ConfigDef.Importance.LOW,
+                        "Hash applied to record keys: 'none' or 'murmur3' (32 hex characters, for long composite keys)")
                 .define(TOPIC, ConfigDef.Type.STRING, ConfigDef.Importance.HIGH,
                         "Kafka topic to publish the file data")
 
                 // Performance configs
                 .define(FTP_POLL_INTERVAL, ConfigDef.Type.INT, 10000, ConfigDef.Importance.LOW,
-                        "Polling interval in milliseconds")
+                        "Polling interval in milliseconds; polls only wait when no file is pending")
+                .define(FTP_POLL_BACKOFF_MAX_MS, ConfigDef.Type.LONG, 60000L, ConfigDef.Importance.LOW,
+                        "Longest wait between polls of an idle directory; the wait doubles from ftp.poll.interval.ms up to this")
                 .define(FTP_MAX_RECORDS_PER_POLL, ConfigDef.Type.INT, 1000, ConfigDef.Importance.LOW,
                         "Maximum number of records returned per poll")
+                .define(FTP_MAX_POLL_BYTES, ConfigDef.Type.LONG, 0L, ConfigDef.Range.atLeast(0), ConfigDef.Importance.LOW,
+                        "Stop filling a poll once this many bytes of the file have been read, 0 for no limit")
+                .define(FTP_MAX_POLL_DURATION_MS, ConfigDef.Type.LONG, 0L, ConfigDef.Range.atLeast(0), ConfigDef.Importance.LOW,
+                        "Return a poll early once it has run this long, 0 for no limit")
+                .define(FTP_POLL_AUTOTUNE_ENABLED, ConfigDef.Type.BOOLEAN, false, ConfigDef.Importance.LOW,
+                        "Adjust the records per poll from the measured parse rate and producer acknowledgement latency, up to ftp.max.records.per.poll")
                 .define(FTP_BUFFER_SIZE, ConfigDef.Type.INT, 32768, ConfigDef.Importance.LOW,
                         "Buffer size in bytes for reading files (default: 32KB)")
                 .define(FTP_AUTO_DETECT_COMPRESSION, ConfigDef.Type.BOOLEAN, true, ConfigDef.Importance.LOW,
                         "Auto-detect and handle compressed files (.gz)")
+                .define(FTP_FILE_STREAMING_ENABLED, ConfigDef.Type.BOOLEAN, true, ConfigDef.Importance.MEDIUM,
+                        "Stream files line by line across polls instead of loading them fully into memory")
+                .define(FTP_FILE_HASH_ALGORITHM, ConfigDef.Type.STRING, FileFingerprints.CRC32C,
+                        ConfigDef.ValidString.in(FileFingerprints.MD5, FileFingerprints.CRC32C, FileFingerprints.XXHASH64),
+                        ConfigDef.Importance.LOW,
+                        "Algorithm used to fingerprint file contents for offset management: md5, crc32c or xxhash64")
+                .define(FTP_FILE_HASH_CHECKPOINT_LINES, ConfigDef.Type.INT, 1000, ConfigDef.Importance.LOW,
+                        "Store a prefix fingerprint checkpoint in the offsets every N lines, used to verify resumes")
+                .define(FTP_FILE_IDENTITY_STRATEGY, ConfigDef.Type.STRING, FileIdentityResolver.STRATEGY_CONTENT,
+                        ConfigDef.ValidString.in(FileIdentityResolver.STRATEGY_CONTENT, FileIdentityResolver.STRATEGY_METADATA),
+                        ConfigDef.Importance.MEDIUM,
+                        "How a file is recognized on resume: content (hash of the lines) or metadata (size, mtime and sampled hashes)")
+                .define(FTP_FILE_IDENTITY_SAMPLE_BYTES, ConfigDef.Type.INT, 4096, ConfigDef.Importance.LOW,
+                        "Bytes hashed from the head and the tail of the file for the metadata identity, 0 to disable sampling")
+                .define(FTP_FILE_SPOOL_ENABLED, ConfigDef.Type.BOOLEAN, false, ConfigDef.Importance.MEDIUM,
+                        "Copy each staged file to a local spool directory and parse it memory-mapped instead of from the remote stream")
+                .define(FTP_FILE_SPOOL_DIR, ConfigDef.Type.STRING, DEFAULT_SPOOL_DIR, ConfigDef.Importance.LOW,
+                        "Local directory for spooled files, with a subdirectory per task (task-<id>); copies left by a stopped task are reused on restart")
+                .define(FTP_FILE_SPOOL_MAX_BYTES, ConfigDef.Type.LONG, 10L * 1024 * 1024 * 1024, ConfigDef.Importance.LOW,
+                        "Disk quota of the spool directory of each task; the oldest copies are evicted first and files that do not fit are streamed")
+                .define(FTP_FILE_PREFETCH_DEPTH, ConfigDef.Type.INT, 0, ConfigDef.Range.atLeast(0), ConfigDef.Importance.MEDIUM,
+                        "Number of files claimed and partially downloaded in the background while the current file is emitted, 0 to disable")
+                .define(FTP_FILE_PREFETCH_BYTES, ConfigDef.Type.INT, 8 * 1024 * 1024, ConfigDef.Range.atLeast(0), ConfigDef.Importance.LOW,
+                        "Bytes downloaded ahead for each prefetched file; smaller files are fetched entirely")
+                .define(FTP_WORKERS, ConfigDef.Type.INT, 1, ConfigDef.Range.atLeast(1), ConfigDef.Importance.MEDIUM,
+                        "Files processed in parallel by each task, each on its own connection")
+                .define(FTP_WORKER_QUEUE_CAPACITY, ConfigDef.Type.INT, 10000, ConfigDef.Range.atLeast(1), ConfigDef.Importance.LOW,
+                        "Records buffered between the workers and poll(); full queues pause the workers")
+                .define(FTP_TASK_STEAL_IDLE_MS, ConfigDef.Type.LONG, 0L, ConfigDef.Range.atLeast(0), ConfigDef.Importance.LOW,
+                        "Let a task claim files of other tasks once its own shard has had no files for this long, 0 to disable")
+                .define(FTP_MONITOR_ENABLED, ConfigDef.Type.BOOLEAN, false, ConfigDef.Importance.MEDIUM,
+                        "List the directory once in the connector and assign the files to tasks balanced by size, instead of every task listing it")
+                .define(FTP_MONITOR_INTERVAL_MS, ConfigDef.Type.LONG, null, ConfigDef.Importance.LOW,
+                        "Interval between directory listings of the monitor (default: ftp.poll.interval.ms)")
+                .define(FTP_FILE_SPLIT_BYTES, ConfigDef.Type.LONG, 0L, ConfigDef.Range.atLeast(0), ConfigDef.Importance.LOW,
+                        "With the monitor enabled, split uncompressed files larger than this into byte ranges processed by several tasks, 0 to disable")
 
                 // Validation configs
                 .define(FTP_VALIDATION_ENABLED, ConfigDef.Type.BOOLEAN, false, ConfigDef.Importance.MEDIUM,
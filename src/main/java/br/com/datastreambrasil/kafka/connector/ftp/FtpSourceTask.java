@@ -1,5 +1,7 @@
 package br.com.datastreambrasil.kafka.connector.ftp;
 
+import br.com.datastreambrasil.kafka.connector.ftp.poll.PollScheduler;
+import br.com.datastreambrasil.kafka.connector.ftp.reader.LineReader;
 import org.apache.kafka.connect.data.Schema;
 import org.apache.kafka.connect.data.SchemaBuilder;
 import org.apache.kafka.connect.data.Struct;
@@ -9,9 +11,7 @@ import org.apache.kafka.connect.source.SourceTask;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedReader;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.nio.charset.Charset;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
@@ -34,9 +34,10 @@ public class FtpSourceTask extends SourceTask {
     protected String tokenizer;
     private String keyFieldName;
     private long pollInterval;
+    private PollScheduler pollScheduler = new PollScheduler(0, 0);
     private int maxRecordsPerPoll;
 
-    private BufferedReader currentReader;
+    private LineReader currentReader;
     private InputStream currentStream;
     private String currentFilename;
     private String currentStagedPath;
@@ -58,6 +59,8 @@ public class FtpSourceTask extends SourceTask {
         this.tokenizer = props.getOrDefault(FtpSourceConnector.FTP_FILE_TOKENIZER, ";");
         this.keyFieldName = props.getOrDefault(FtpSourceConnector.FTP_KAFKA_KEY_FIELD, "").trim();
         this.pollInterval = Long.parseLong(props.getOrDefault(FtpSourceConnector.FTP_POLL_INTERVAL, "10000"));
+        this.pollScheduler = new PollScheduler(pollInterval,
+                Long.parseLong(props.getOrDefault(FtpSourceConnector.FTP_POLL_BACKOFF_MAX_MS, "60000")));
         this.maxRecordsPerPoll = Integer.parseInt(
                 props.getOrDefault(FtpSourceConnector.FTP_MAX_RECORDS_PER_POLL, "1000"));
 
@@ -100,7 +103,7 @@ public class FtpSourceTask extends SourceTask {
                 long estimatedTime = System.currentTimeMillis() - startTime;
                 log.info("Polled {} files from directory: {} in {} ms", files.size(), directory, estimatedTime);
                 if (files.isEmpty()) {
-                    Thread.sleep(pollInterval);
+                    pollScheduler.awaitIdle();
                     return records;
                 }
 
@@ -120,7 +123,7 @@ public class FtpSourceTask extends SourceTask {
                 estimatedTime = System.currentTimeMillis() - startTime;
                 log.info("Streamed file: {} in {} ms", currentStagedPath, estimatedTime);
 
-                currentReader = new BufferedReader(new InputStreamReader(currentStream, fileEncoding));
+                currentReader = LineReader.open(currentStream, Charset.forName(fileEncoding), 8192, 0);
                 linesProcessed = 0;
             }
 
@@ -229,13 +232,14 @@ public class FtpSourceTask extends SourceTask {
             throw new ConnectException("Error during polling from remote server", e);
         }
 
-        Thread.sleep(pollInterval);
+        pollScheduler.onWork();
         return records;
     }
 
     @Override
     public void stop() {
         log.info("Stopping FtpSourceTask");
+        pollScheduler.stop();
         if (client != null) {
             client.disconnect();
             log.info("Disconnected from server");
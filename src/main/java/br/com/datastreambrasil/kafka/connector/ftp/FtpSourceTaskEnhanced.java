@@ -1,16 +1,48 @@
 package br.com.datastreambrasil.kafka.connector.ftp;
 
+import br.com.datastreambrasil.kafka.connector.ftp.dedup.BloomFilter;
+import br.com.datastreambrasil.kafka.connector.ftp.dedup.RecordDeduplicator;
+import br.com.datastreambrasil.kafka.connector.ftp.hash.FileFingerprint;
+import br.com.datastreambrasil.kafka.connector.ftp.hash.FileFingerprints;
+import br.com.datastreambrasil.kafka.connector.ftp.hash.FileIdentityResolver;
+import br.com.datastreambrasil.kafka.connector.ftp.hash.Murmur3;
 import br.com.datastreambrasil.kafka.connector.ftp.metrics.ProcessingMetrics;
 import br.com.datastreambrasil.kafka.connector.ftp.model.FileOffset;
+import br.com.datastreambrasil.kafka.connector.ftp.model.FileRange;
+import br.com.datastreambrasil.kafka.connector.ftp.model.RecordOffset;
+import br.com.datastreambrasil.kafka.connector.ftp.model.RemoteFileInfo;
 import br.com.datastreambrasil.kafka.connector.ftp.model.ValidationResult;
+import br.com.datastreambrasil.kafka.connector.ftp.monitor.FileAssignment;
+import br.com.datastreambrasil.kafka.connector.ftp.parse.ColumnTypeInference;
+import br.com.datastreambrasil.kafka.connector.ftp.parse.DelimitedTokenizer;
+import br.com.datastreambrasil.kafka.connector.ftp.parse.FixedWidthColumn;
+import br.com.datastreambrasil.kafka.connector.ftp.parse.FixedWidthTokenizer;
+import br.com.datastreambrasil.kafka.connector.ftp.parse.KeyExtractor;
+import br.com.datastreambrasil.kafka.connector.ftp.parse.LineTokenizer;
+import br.com.datastreambrasil.kafka.connector.ftp.parse.RecordAssembler;
+import br.com.datastreambrasil.kafka.connector.ftp.parse.SchemaCache;
+import br.com.datastreambrasil.kafka.connector.ftp.poll.BatchTuner;
+import br.com.datastreambrasil.kafka.connector.ftp.poll.PollScheduler;
+import br.com.datastreambrasil.kafka.connector.ftp.prefetch.FilePrefetcher;
+import br.com.datastreambrasil.kafka.connector.ftp.prefetch.PrefetchedFile;
+import br.com.datastreambrasil.kafka.connector.ftp.reader.ByteLineReader;
+import br.com.datastreambrasil.kafka.connector.ftp.reader.FooterRingBuffer;
+import br.com.datastreambrasil.kafka.connector.ftp.reader.LineReader;
 import br.com.datastreambrasil.kafka.connector.ftp.retry.RetryConfig;
 import br.com.datastreambrasil.kafka.connector.ftp.retry.RetryableRemoteClient;
+import br.com.datastreambrasil.kafka.connector.ftp.shard.FileSharding;
+import br.com.datastreambrasil.kafka.connector.ftp.spool.FileSpool;
+import br.com.datastreambrasil.kafka.connector.ftp.spool.MappedFileInputStream;
 import br.com.datastreambrasil.kafka.connector.ftp.validation.ConfigurableValidator;
 import br.com.datastreambrasil.kafka.connector.ftp.validation.RecordValidator;
+import br.com.datastreambrasil.kafka.connector.ftp.worker.FileWorkerPool;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.connect.data.Field;
 import org.apache.kafka.connect.data.Schema;
 import org.apache.kafka.connect.data.SchemaBuilder;
 import org.apache.kafka.connect.data.Struct;
 import org.apache.kafka.connect.errors.ConnectException;
+import org.apache.kafka.connect.errors.DataException;
 import org.apache.kafka.connect.source.SourceRecord;
 import org.apache.kafka.connect.source.SourceTask;
 import org.slf4j.Logger;
@@ -18,18 +50,27 @@ import org.slf4j.LoggerFactory;
 
 import java.io.*;
 import java.nio.charset.Charset;
-import java.security.MessageDigest;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.regex.Pattern;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.zip.GZIPInputStream;
 
 public class FtpSourceTaskEnhanced extends SourceTask {
 
     public static final String VERSION = FtpSourceConnectorEnhanced.VERSION;
     private static final Logger log = LoggerFactory.getLogger(FtpSourceTaskEnhanced.class);
+    private static final byte[] LINE_SEPARATOR = {'\n'};
+    private static final int SCHEMA_CACHE_FIELD_COUNTS = 64;
+    private static final int CLOCK_SAMPLE_LINES = 64;
 
     protected RemoteClient client;
     private String topic;
@@ -38,17 +79,63 @@ public class FtpSourceTaskEnhanced extends SourceTask {
     private String archiveDir;
     private String filePattern;
     private String fileEncoding;
+    private Charset charset;
     protected String outputFormat;
+    private boolean rawOutput;
     protected String tokenizer;
-    private String keyFieldName;
+    private LineTokenizer fieldTokenizer;
+    // Column layout of fixed-width files, null for delimited files
+    private List<FixedWidthColumn> fixedWidthLayout;
+    private List<String> keyFields;
+    private boolean keyHashed;
+    // Key spec resolved to field indexes of the tokenizer output, null without a key
+    private KeyExtractor keyExtractor;
     private long pollInterval;
     private int maxRecordsPerPoll;
     private int bufferSize;
     private boolean autoDetectCompression;
+    private boolean streamingEnabled;
+    private String hashAlgorithm;
+    private int hashCheckpointLines;
+    private FileIdentityResolver identityResolver;
+    private FileSpool spool;
+    private FilePrefetcher prefetcher;
+    private RemoteClient prefetchClient;
+    private PrefetchedFile prefetchedFile;
+    private boolean sharedPrefetcher;
+    private FileWorkerPool workerPool;
+    private FileSharding sharding = FileSharding.NONE;
+    private FileAssignment assignment;
+    private PollScheduler pollScheduler = new PollScheduler(0, 0);
+    // idle wait of the pool thread running this task as a worker, woken as well when a file is released
+    private volatile PollScheduler idleScheduler;
+    private long maxPollBytes;
+    private long maxPollDurationMs;
+    private BatchTuner batchTuner;
+    // last record of each batch and when it left poll(), to measure acknowledgement latency
+    private final Map<SourceRecord, Long> batchesInFlight = Collections.synchronizedMap(new IdentityHashMap<>());
+    private List<FtpSourceTaskEnhanced> workers;
+    private FileRange currentRange;
+    // Partition and offset entries shared by the records of the current file
+    private Map<String, Object> partition;
+    private String partitionFilename;
+    private FileRange partitionRange;
+    private Map<String, Object> offsetFileFields;
+    private FileOffset offsetFileFieldsOf;
+    private FileProgress currentProgress;
+    // Files and ranges with uncommitted records, by the identity of the partition map built for each claim,
+    // so the records of a file staged again under the same name never count for the earlier one;
+    // written by commitRecord on the producer thread
+    private final Map<Map<String, Object>, FileProgress> openFiles = Collections.synchronizedMap(new IdentityHashMap<>());
+    // Staged paths claimed and not yet archived, shared with the workers and the prefetcher; a file of the
+    // same name is not claimed before, as it would be moved onto the staged file that is deleted on archival
+    private Set<String> stagedInFlight = ConcurrentHashMap.newKeySet();
+    private final Queue<FileProgress> completedFiles = new ConcurrentLinkedQueue<>();
     private int skipHeaderLines;
     private int skipFooterLines;
     private boolean skipEmptyLines;
     private String commentPrefix;
+    private byte[] commentPrefixBytes;
 
     // Validation
     private boolean validationEnabled;
@@ -68,17 +155,66 @@ public class FtpSourceTaskEnhanced extends SourceTask {
     private ProcessingMetrics metrics;
     private int metricsIntervalLines;
 
-    private BufferedReader currentReader;
+    private LineReader currentReader;
     private InputStream currentStream;
+    private boolean transferPending;
     private String currentFilename;
     private String currentStagedPath;
     private long linesProcessed;
     private long linesSkipped;
+    // Continuation lines of records emitted so far, and of the record being emitted
+    private long linesJoined;
+    private int recordLinesJoined;
+    private FooterRingBuffer<Object> footerBuffer;
+
+    // Incremental fingerprint of the lines read so far (streaming mode)
+    private FileFingerprint fingerprint;
+    private long fingerprintLines;
+    // Offset entries of the newest published checkpoint, empty without one
+    private Map<String, Object> checkpointFields = Collections.emptyMap();
+    private final Deque<HashCheckpoint> pendingCheckpoints = new ArrayDeque<>();
+    private int lastLineByteCount;
+    private long lastLineStart;
+    // Line read ahead by a position check: a String, or the raw bytes in the bytes output format
+    private Object pushedBackLine;
+    // Joins quoted fields that span lines, null when records are single lines
+    private RecordAssembler recordAssembler;
+    private int firstLineHash;
+    private boolean recordOverflowed;
+    private boolean positionTracking;
     protected List<String> fieldHeaders;
-    
-    // Schema caching
-    private Schema cachedSchema = null;
-    private String cachedSchemaSignature = null;
+    // Zero-based columns kept by ftp.file.columns.include in file order, null to keep all
+    private int[] projectedColumns;
+    private String columnsInclude;
+    private char quoteChar;
+    private char escapeChar;
+    private boolean trimFields;
+
+    // Field names taken from the first line of each file
+    private boolean headerRowEnabled;
+    private boolean headerRowRead;
+    private DelimitedTokenizer headerTokenizer;
+
+    // Filled by buildRecordModel for each line, read before the next one is built
+    private final RecordModel recordModel = new RecordModel(null, null);
+
+    // Schemas of the current field names and types, cleared when either changes
+    private final SchemaCache schemaCache = new SchemaCache(SCHEMA_CACHE_FIELD_COUNTS);
+
+    // Rows of completed files, shared with the workers; null when deduplication is off
+    private RecordDeduplicator deduplicator;
+    private boolean dedupByKey;
+    // Rows of the current file, merged into the deduplicator once the file is done
+    private BloomFilter fileFilter;
+    // Merges of the current file's rows into the deduplicator, acknowledged once its records are committed
+    private int fileMerges;
+    private final long[] rowHash = new long[2];
+    // Line last split by the deduplication key, so that building its record does not split it again
+    private String splitLine;
+
+    // Column types inferred from the head of the current file, null when inference is off
+    private int inferenceSampleRows;
+    private List<Schema> columnSchemas;
 
     // Offset management
     private FileOffset currentFileOffset;
@@ -95,19 +231,46 @@ public class FtpSourceTaskEnhanced extends SourceTask {
         this.archiveDir = props.get(FtpSourceConnectorEnhanced.FTP_DIRECTORY_ARCHIVE);
         this.filePattern = props.get(FtpSourceConnectorEnhanced.FTP_FILE_PATTERN);
         this.fileEncoding = props.getOrDefault(FtpSourceConnectorEnhanced.FTP_FILE_ENCODING, "UTF-8");
+        this.charset = Charset.forName(fileEncoding);
         this.outputFormat = props.getOrDefault(FtpSourceConnectorEnhanced.FTP_FILE_OUTPUT_FORMAT, "string").toLowerCase();
+        this.rawOutput = "bytes".equals(outputFormat);
         this.tokenizer = props.getOrDefault(FtpSourceConnectorEnhanced.FTP_FILE_TOKENIZER, ";");
-        this.keyFieldName = props.getOrDefault(FtpSourceConnectorEnhanced.FTP_KAFKA_KEY_FIELD, "").trim();
+        String keyFieldName = props.getOrDefault(FtpSourceConnectorEnhanced.FTP_KAFKA_KEY_FIELD, "").trim();
+        this.keyFields = keyFieldName.isEmpty() ? Collections.emptyList() : Arrays.asList(keyFieldName.split("\\s*\\+\\s*"));
+        String keyHash = props.getOrDefault(FtpSourceConnectorEnhanced.FTP_KAFKA_KEY_HASH, "none").trim().toLowerCase();
+        if (!"none".equals(keyHash) && !"murmur3".equals(keyHash)) {
+            throw new ConnectException("Unknown " + FtpSourceConnectorEnhanced.FTP_KAFKA_KEY_HASH + ": " + keyHash);
+        }
+        this.keyHashed = "murmur3".equals(keyHash);
         this.pollInterval = Long.parseLong(props.getOrDefault(FtpSourceConnectorEnhanced.FTP_POLL_INTERVAL, "10000"));
+        this.pollScheduler = new PollScheduler(pollInterval,
+                Long.parseLong(props.getOrDefault(FtpSourceConnectorEnhanced.FTP_POLL_BACKOFF_MAX_MS, "60000")));
         this.maxRecordsPerPoll = Integer.parseInt(props.getOrDefault(FtpSourceConnectorEnhanced.FTP_MAX_RECORDS_PER_POLL, "1000"));
+        this.maxPollBytes = Long.parseLong(props.getOrDefault(FtpSourceConnectorEnhanced.FTP_MAX_POLL_BYTES, "0"));
+        this.maxPollDurationMs = Long.parseLong(props.getOrDefault(FtpSourceConnectorEnhanced.FTP_MAX_POLL_DURATION_MS, "0"));
+        if (Boolean.parseBoolean(props.getOrDefault(FtpSourceConnectorEnhanced.FTP_POLL_AUTOTUNE_ENABLED, "false"))) {
+            // aim for polls of half the time budget, or one second without one
+            long targetPollMs = maxPollDurationMs > 0 ? Math.max(1, maxPollDurationMs / 2) : 1000;
+            this.batchTuner = new BatchTuner(maxRecordsPerPoll, targetPollMs, 2 * targetPollMs);
+            log.info("Auto-tuning records per poll, at most {}, for polls of about {} ms", maxRecordsPerPoll, targetPollMs);
+        }
 
         // Enhanced configurations
         this.bufferSize = Integer.parseInt(props.getOrDefault(FtpSourceConnectorEnhanced.FTP_BUFFER_SIZE, "32768"));
         this.autoDetectCompression = Boolean.parseBoolean(props.getOrDefault(FtpSourceConnectorEnhanced.FTP_AUTO_DETECT_COMPRESSION, "true"));
+        this.streamingEnabled = Boolean.parseBoolean(props.getOrDefault(FtpSourceConnectorEnhanced.FTP_FILE_STREAMING_ENABLED, "true"));
+        this.hashAlgorithm = props.getOrDefault(FtpSourceConnectorEnhanced.FTP_FILE_HASH_ALGORITHM, FileFingerprints.CRC32C);
+        this.hashCheckpointLines = Integer.parseInt(props.getOrDefault(FtpSourceConnectorEnhanced.FTP_FILE_HASH_CHECKPOINT_LINES, "1000"));
         this.skipHeaderLines = Integer.parseInt(props.getOrDefault(FtpSourceConnectorEnhanced.FTP_SKIP_HEADER_LINES, "0"));
         this.skipFooterLines = Integer.parseInt(props.getOrDefault(FtpSourceConnectorEnhanced.FTP_SKIP_FOOTER_LINES, "0"));
         this.skipEmptyLines = Boolean.parseBoolean(props.getOrDefault(FtpSourceConnectorEnhanced.FTP_SKIP_EMPTY_LINES, "true"));
         this.commentPrefix = props.getOrDefault(FtpSourceConnectorEnhanced.FTP_COMMENT_PREFIX, "");
+        this.commentPrefixBytes = commentPrefix.getBytes(charset);
+        if ("json".equals(outputFormat)
+                && Boolean.parseBoolean(props.getOrDefault(FtpSourceConnectorEnhanced.FTP_SCHEMA_INFERENCE_ENABLED, "false"))) {
+            this.inferenceSampleRows = Integer.parseInt(props.getOrDefault(FtpSourceConnectorEnhanced.FTP_SCHEMA_INFERENCE_SAMPLE_ROWS, "100"));
+        }
+        this.footerBuffer = skipFooterLines > 0 ? new FooterRingBuffer<>(skipFooterLines) : null;
 
         // Validation
         this.validationEnabled = Boolean.parseBoolean(props.getOrDefault(FtpSourceConnectorEnhanced.FTP_VALIDATION_ENABLED, "false"));
@@ -133,23 +296,117 @@ public class FtpSourceTaskEnhanced extends SourceTask {
 
         String headersConfig = props.getOrDefault(FtpSourceConnectorEnhanced.FTP_FILE_HEADERS, "").trim();
         this.fieldHeaders = headersConfig.isEmpty() ? null : Arrays.asList(headersConfig.split("\\s*,\\s*"));
+        this.trimFields = Boolean.parseBoolean(props.getOrDefault(FtpSourceConnectorEnhanced.FTP_FILE_TRIM_FIELDS, "true"));
+        String fixedWidthColumns = props.getOrDefault(FtpSourceConnectorEnhanced.FTP_FILE_FIXED_WIDTH_COLUMNS, "").trim();
+        if (!fixedWidthColumns.isEmpty()) {
+            try {
+                this.fixedWidthLayout = FixedWidthColumn.parseAll(fixedWidthColumns,
+                        trimFields ? FixedWidthColumn.Trim.BOTH : FixedWidthColumn.Trim.NONE);
+            } catch (IllegalArgumentException e) {
+                throw new ConnectException("Invalid " + FtpSourceConnectorEnhanced.FTP_FILE_FIXED_WIDTH_COLUMNS + ": " + e.getMessage(), e);
+            }
+            this.fieldHeaders = new ArrayList<>();
+            for (FixedWidthColumn column : fixedWidthLayout) {
+                fieldHeaders.add(column.getName());
+            }
+            if (inferenceSampleRows > 0) {
+                log.warn("Schema inference is ignored for fixed-width files, the layout sets the column types");
+                this.inferenceSampleRows = 0;
+            }
+        }
+        this.quoteChar = toChar(props.getOrDefault(FtpSourceConnectorEnhanced.FTP_FILE_QUOTE_CHAR, "\""), FtpSourceConnectorEnhanced.FTP_FILE_QUOTE_CHAR);
+        this.escapeChar = toChar(props.getOrDefault(FtpSourceConnectorEnhanced.FTP_FILE_ESCAPE_CHAR, ""), FtpSourceConnectorEnhanced.FTP_FILE_ESCAPE_CHAR);
+
+        this.headerRowEnabled = false;
+        if ("json".equals(outputFormat)
+                && Boolean.parseBoolean(props.getOrDefault(FtpSourceConnectorEnhanced.FTP_FILE_HEADER_ROW_ENABLED, "false"))) {
+            if (fixedWidthLayout != null) {
+                log.warn("The header row is ignored for fixed-width files, the layout names the columns");
+            } else {
+                this.headerRowEnabled = true;
+                this.headerTokenizer = new DelimitedTokenizer(tokenizer, quoteChar, escapeChar, true);
+                // the header row is the first of the header lines
+                this.skipHeaderLines = Math.max(1, skipHeaderLines);
+            }
+        }
 
-        // Pre-build schema if headers are fixed
-        if (fieldHeaders != null && !fieldHeaders.isEmpty() && "json".equals(outputFormat)) {
-            this.cachedSchema = buildSchemaFromHeaders(fieldHeaders);
-            this.cachedSchemaSignature = calculateSchemaSignature(fieldHeaders);
-            log.info("Pre-built schema with {} fields", fieldHeaders.size());
+        // with a header row, names are resolved against each file's header
+        this.columnsInclude = props.getOrDefault(FtpSourceConnectorEnhanced.FTP_FILE_COLUMNS_INCLUDE, "");
+        this.projectedColumns = headerRowEnabled ? null : resolveColumns(columnsInclude);
+        this.fieldTokenizer = createFieldTokenizer();
+        this.keyExtractor = headerRowEnabled ? null : compileKeyExtractor();
+
+        this.recordAssembler = null;
+        if (Boolean.parseBoolean(props.getOrDefault(FtpSourceConnectorEnhanced.FTP_FILE_MULTILINE_RECORDS_ENABLED, "false"))) {
+            if (rawOutput || fixedWidthLayout != null || quoteChar == DelimitedTokenizer.NO_CHAR) {
+                log.warn("Multi-line records need quoted delimited text, reading one record per line");
+            } else {
+                long maxRecordBytes = Long.parseLong(props.getOrDefault(FtpSourceConnectorEnhanced.FTP_FILE_MAX_RECORD_BYTES, "1048576"));
+                this.recordAssembler = new RecordAssembler(tokenizer, quoteChar, escapeChar, trimFields, maxRecordBytes);
+                log.info("Joining quoted line breaks into records of up to {} bytes", maxRecordBytes);
+            }
+        }
+
+
+        int shardCount = Integer.parseInt(props.getOrDefault(FtpSourceConnectorEnhanced.FTP_TASK_SHARD_COUNT, "1"));
+        if (shardCount > 1) {
+            this.sharding = new FileSharding(
+                    Integer.parseInt(props.getOrDefault(FtpSourceConnectorEnhanced.FTP_TASK_SHARD_ID, "0")), shardCount,
+                    Long.parseLong(props.getOrDefault(FtpSourceConnectorEnhanced.FTP_TASK_STEAL_IDLE_MS, "0")));
+            log.info("Claiming files of shard {} of {}", sharding.getShardId(), shardCount);
+        }
+
+        String assignedFiles = props.get(FtpSourceConnectorEnhanced.FTP_TASK_ASSIGNED_FILES);
+        if (assignedFiles != null) {
+            this.assignment = FileAssignment.parse(assignedFiles);
+            log.info("Claiming {} files assigned by the connector", assignment.pending().size());
+        }
+
+        if (Boolean.parseBoolean(props.getOrDefault(FtpSourceConnectorEnhanced.FTP_DEDUP_ENABLED, "false"))) {
+            String dedupKey = props.getOrDefault(FtpSourceConnectorEnhanced.FTP_DEDUP_KEY, FtpSourceConnectorEnhanced.DEDUP_KEY_ROW);
+            this.dedupByKey = FtpSourceConnectorEnhanced.DEDUP_KEY_KEY.equalsIgnoreCase(dedupKey.trim());
+            if (dedupByKey && (keyFields.isEmpty() || rawOutput)) {
+                throw new ConnectException(FtpSourceConnectorEnhanced.FTP_DEDUP_KEY + "=key needs "
+                        + FtpSourceConnectorEnhanced.FTP_KAFKA_KEY_FIELD + " and the string or json output format");
+            }
+            // workers get the deduplicator of their parent task
+            if (this.deduplicator == null) {
+                this.deduplicator = createDeduplicator(props);
+            }
+        }
+
+        int workerCount = Integer.parseInt(props.getOrDefault(FtpSourceConnectorEnhanced.FTP_WORKERS, "1"));
+        if (workerCount > 1) {
+            startWorkers(props, workerCount);
+            return;
+        }
+
+        if (Boolean.parseBoolean(props.getOrDefault(FtpSourceConnectorEnhanced.FTP_FILE_SPOOL_ENABLED, "false"))) {
+            // tasks of a worker share the configured directory, and cleanup and eviction must only see their own copies
+            Path spoolDir = Paths.get(props.getOrDefault(FtpSourceConnectorEnhanced.FTP_FILE_SPOOL_DIR,
+                    FtpSourceConnectorEnhanced.DEFAULT_SPOOL_DIR))
+                    .resolve("task-" + props.getOrDefault(FtpSourceConnectorEnhanced.FTP_TASK_ID, "0"));
+            long spoolMaxBytes = Long.parseLong(props.getOrDefault(FtpSourceConnectorEnhanced.FTP_FILE_SPOOL_MAX_BYTES,
+                    String.valueOf(10L * 1024 * 1024 * 1024)));
+            try {
+                this.spool = new FileSpool(spoolDir, spoolMaxBytes);
+                this.spool.cleanup();
+            } catch (IOException e) {
+                throw new ConnectException("Failed to prepare spool directory " + spoolDir, e);
+            }
+            log.info("Spooling files to {} (quota {} bytes)", spoolDir, spoolMaxBytes);
         }
 
         try {
             if (this.client == null) {
-                RemoteClient baseClient = "sftp".equalsIgnoreCase(protocol)
-                        ? new SftpRemoteClient(props)
-                        : new FtpRemoteClient(props);
+                this.client = createClient(props);
+            }
 
-                // Wrap with retry logic
-                RetryConfig retryConfig = new RetryConfig(retryMaxAttempts, retryBackoffMs, retryMaxBackoffMs, 2.0);
-                this.client = new RetryableRemoteClient(baseClient, retryConfig);
+            String identityStrategy = props.getOrDefault(FtpSourceConnectorEnhanced.FTP_FILE_IDENTITY_STRATEGY,
+                    FileIdentityResolver.STRATEGY_CONTENT);
+            if (FileIdentityResolver.STRATEGY_METADATA.equalsIgnoreCase(identityStrategy)) {
+                int sampleBytes = Integer.parseInt(props.getOrDefault(FtpSourceConnectorEnhanced.FTP_FILE_IDENTITY_SAMPLE_BYTES, "4096"));
+                this.identityResolver = new FileIdentityResolver(client, sampleBytes, hashAlgorithm);
             }
 
             long startTime = System.currentTimeMillis();
@@ -158,12 +415,27 @@ public class FtpSourceTaskEnhanced extends SourceTask {
             log.info("Connected to {} {} server in {} ms with retry support (max attempts: {})",
                     protocol.toUpperCase(), props.get(FtpSourceConnectorEnhanced.FTP_HOST), estimatedTime, retryMaxAttempts);
 
+            int prefetchDepth = Integer.parseInt(props.getOrDefault(FtpSourceConnectorEnhanced.FTP_FILE_PREFETCH_DEPTH, "0"));
+            if (prefetchDepth > 0) {
+                // Transfers cannot overlap on one FTP control connection, so claims use their own
+                if (this.prefetchClient == null) {
+                    this.prefetchClient = createClient(props);
+                }
+                this.prefetchClient.connect();
+                int prefetchBytes = Integer.parseInt(props.getOrDefault(FtpSourceConnectorEnhanced.FTP_FILE_PREFETCH_BYTES, "8388608"));
+                this.prefetcher = new FilePrefetcher(prefetchClient, directory, filePattern, stageDir, sharding, assignment,
+                        prefetchDepth, prefetchBytes, stagedInFlight);
+                log.info("Prefetching up to {} files ({} bytes each)", prefetchDepth, prefetchBytes);
+            }
+
             this.currentReader = null;
             this.currentStream = null;
             this.currentFilename = null;
             this.currentStagedPath = null;
             this.linesProcessed = 0;
             this.linesSkipped = 0;
+            this.linesJoined = 0;
+            this.recordLinesJoined = 0;
         } catch (Exception e) {
             log.error("Failed to connect to remote server", e);
             throw new ConnectException("Failed to connect to remote server", e);
@@ -172,135 +444,233 @@ public class FtpSourceTaskEnhanced extends SourceTask {
 
     @Override
     public List<SourceRecord> poll() throws InterruptedException {
+        if (workerPool != null) {
+            return workerPool.poll(maxRecordsPerPoll, pollInterval);
+        }
+
         List<SourceRecord> records = new ArrayList<>();
         List<SourceRecord> dlqRecords = new ArrayList<>();
+        long pollStartNanos = System.nanoTime();
 
         try {
+            archiveCompletedFiles();
+
             if (currentReader == null) {
-                log.info("Polling files from directory: {}", directory);
-                long startTime = System.currentTimeMillis();
-                List<String> files = client.listFiles(directory, filePattern);
-                long estimatedTime = System.currentTimeMillis() - startTime;
-                log.info("Polled {} files from directory: {} in {} ms", files.size(), directory, estimatedTime);
-
-                if (files.isEmpty()) {
-                    Thread.sleep(pollInterval);
-                    return records;
-                }
+                if (prefetcher != null) {
+                    prefetchedFile = prefetcher.next();
+                    if (prefetchedFile == null) {
+                        pollScheduler.awaitIdle();
+                        return records;
+                    }
+                    currentFilename = prefetchedFile.getFilename();
+                    currentStagedPath = prefetchedFile.getStagedPath();
+                    currentRange = FileRange.parse(prefetchedFile.getSourcePath());
+                    // Claim the following files while this one is emitted
+                    prefetcher.fill();
+                } else {
+                    List<String> files;
+                    long startTime = System.currentTimeMillis();
+                    long estimatedTime;
+                    if (assignment != null) {
+                        files = assignment.pending();
+                    } else {
+                        log.info("Polling files from directory: {}", directory);
+                        files = client.listFiles(directory, filePattern);
+                        estimatedTime = System.currentTimeMillis() - startTime;
+                        log.info("Polled {} files from directory: {} in {} ms", files.size(), directory, estimatedTime);
+                    }
+                    if (!stagedInFlight.isEmpty()) {
+                        // a file of the same name is still staged until its records are committed
+                        files = new ArrayList<>(files);
+                        files.removeIf(path -> FileRange.parse(path) == null
+                                && stagedInFlight.contains(stageDir + "/" + path.substring(path.lastIndexOf('/') + 1)));
+                    }
 
-                String file = files.get(0);
-                currentFilename = file.substring(file.lastIndexOf('/') + 1);
-                currentStagedPath = stageDir + "/" + currentFilename;
+                    String file = sharding.select(files);
+                    if (file == null) {
+                        pollScheduler.awaitIdle();
+                        return records;
+                    }
 
+                    currentRange = FileRange.parse(file);
+                    if (currentRange != null) {
+                        // ranges are staged by the connector, which hands them to several tasks
+                        assignment.claimed(file);
+                        currentFilename = currentRange.getFilename();
+                        currentStagedPath = currentRange.getPath();
+                        log.info("Processing range {}", currentRange);
+                    } else {
+                        currentFilename = file.substring(file.lastIndexOf('/') + 1);
+                        currentStagedPath = stageDir + "/" + currentFilename;
+
+                        log.info("Staging file: {} → {}", file, currentStagedPath);
+                        startTime = System.currentTimeMillis();
+                        // the claim, like one taken by the prefetcher, holds the path until archiveCompletedFiles
+                        stagedInFlight.add(currentStagedPath);
+                        try {
+                            if (assignment != null) {
+                                assignment.claimed(file);
+                            }
+                            // files left in the stage directory by a stopped task are assigned from there
+                            if (!file.equals(currentStagedPath)) {
+                                client.moveFile(file, currentStagedPath);
+                            }
+                        } catch (Exception e) {
+                            if (sharding.getShardCount() == 1 && assignment == null) {
+                                throw e;
+                            }
+                            // another task stole it first, or the assigned file is gone
+                            log.info("File {} was claimed by another task: {}", file, e.getMessage());
+                            stagedInFlight.remove(currentStagedPath);
+                            currentFilename = null;
+                            currentStagedPath = null;
+                            return records;
+                        }
+                        estimatedTime = System.currentTimeMillis() - startTime;
+                        log.info("Staged file: {} → {} in {} ms", file, currentStagedPath, estimatedTime);
+                    }
+                }
+
+                // a partition map of its own for each claim, which commitRecord matches the records by
+                this.partition = null;
                 // Check if we have a previous offset for this file
-                Map<String, Object> partition = Collections.singletonMap("file", currentFilename);
+                Map<String, Object> partition = currentPartition();
+                if (currentRange == null) {
+                    currentProgress = new FileProgress(partition, currentStagedPath, null);
+                    openFiles.put(partition, currentProgress);
+                }
                 Map<String, Object> lastOffset = context.offsetStorageReader().offset(partition);
                 FileOffset previousOffset = FileOffset.fromMap(lastOffset);
 
-                log.info("Staging file: {} → {}", file, currentStagedPath);
-                startTime = System.currentTimeMillis();
-                client.moveFile(file, currentStagedPath);
-                estimatedTime = System.currentTimeMillis() - startTime;
-                log.info("Staged file: {} → {} in {} ms", file, currentStagedPath, estimatedTime);
-
-                log.info("Streaming file: {}", currentStagedPath);
-                startTime = System.currentTimeMillis();
-                currentStream = client.retrieveFileStream(currentStagedPath);
-
-                // Handle compression
-                if (autoDetectCompression) {
-                    currentStream = handleCompression(currentStream, currentFilename);
+                // Compare the remote metadata first: a match or a mismatch settles the resume without reading content
+                String fileIdentity = identityResolver != null ? identityResolver.resolve(currentStagedPath) : null;
+                boolean identityVerified = false;
+                if (fileIdentity != null && previousOffset != null && previousOffset.getFileIdentity() != null) {
+                    identityVerified = fileIdentity.equals(previousOffset.getFileIdentity());
+                    if (!identityVerified) {
+                        log.info("File {} has changed (remote identity mismatch), processing from start", currentFilename);
+                        previousOffset = null;
+                    }
                 }
 
-                estimatedTime = System.currentTimeMillis() - startTime;
-                log.info("Streamed file: {} in {} ms", currentStagedPath, estimatedTime);
-
-                // Calculate file hash for offset management
-                byte[] fileBytes = readAllBytes(currentStream);
-                String fileHash = calculateHash(fileBytes);
-                currentFileOffset = new FileOffset(currentFilename, fileHash, 0, System.currentTimeMillis(), fileBytes.length);
+                metrics.startFile(currentFilename);
+                positionTracking = !isCompressed(currentFilename) && LineReader.isAsciiCompatible(charset);
+                headerRowRead = false;
+                if (inferenceSampleRows > 0) {
+                    inferColumnTypes();
+                }
 
-                // Check if we should resume from a previous offset
-                if (previousOffset != null && previousOffset.isSameFile(currentFileOffset)) {
-                    resumeFromLine = previousOffset.getLineNumber();
-                    log.info("Resuming file {} from line {}", currentFilename, resumeFromLine);
+                if (currentRange != null) {
+                    resumeFromLine = openRange(previousOffset, fileIdentity);
+                } else if (streamingEnabled) {
+                    // Content hash and size are only known at EOF; resume is verified against prefix checkpoints
+                    currentFileOffset = new FileOffset(currentFilename, null, 0, System.currentTimeMillis(), 0, fileIdentity);
+                    if (canResumeAtPosition(previousOffset) && resumeAtPosition(previousOffset)) {
+                        resumeFromLine = previousOffset.getLineNumber();
+                    } else {
+                        openCurrentStream(0);
+                        openCurrentReader(0);
+                        skipHeaderLines();
+                        resumeFromLine = resumeStreaming(previousOffset, identityVerified);
+                    }
                 } else {
-                    resumeFromLine = 0;
-                    if (previousOffset != null) {
-                        log.info("File {} has changed (hash or size mismatch), processing from start", currentFilename);
+                    openCurrentStream(0);
+
+                    // Calculate file hash for offset management
+                    byte[] fileBytes = readAllBytes(currentStream);
+                    String fileHash = calculateHash(fileBytes);
+                    currentFileOffset = new FileOffset(currentFilename, fileHash, 0, System.currentTimeMillis(),
+                            fileBytes.length, fileIdentity);
+
+                    // Check if we should resume from a previous offset
+                    if (previousOffset != null && previousOffset.isSameFile(currentFileOffset)) {
+                        resumeFromLine = previousOffset.getLineNumber();
+                        log.info("Resuming file {} from line {}", currentFilename, resumeFromLine);
+                    } else {
+                        resumeFromLine = 0;
+                        if (previousOffset != null) {
+                            log.info("File {} has changed (hash or size mismatch), processing from start", currentFilename);
+                        }
                     }
-                }
-
-                currentStream = new ByteArrayInputStream(fileBytes);
-                currentReader = new BufferedReader(new InputStreamReader(currentStream, fileEncoding), bufferSize);
-                linesProcessed = 0;
-                linesSkipped = 0;
-
-                metrics.startFile(currentFilename);
 
-                // Skip header lines
-                for (int i = 0; i < skipHeaderLines; i++) {
-                    currentReader.readLine();
-                    linesSkipped++;
-                }
+                    currentStream = new ByteArrayInputStream(fileBytes);
+                    openCurrentReader(0);
+                    skipHeaderLines();
 
-                // Skip to resume point if resuming
-                for (long i = 0; i < resumeFromLine; i++) {
-                    currentReader.readLine();
-                    linesSkipped++;
+                    // Skip to resume point if resuming (the stored line number already counts the header lines)
+                    while (linesSkipped < resumeFromLine && skipLine()) {
+                        linesSkipped++;
+                    }
                 }
             }
 
             boolean eof = false;
-            String line;
+            Object line = null;
             long generalStartTime = System.currentTimeMillis();
-            long readLineStartTime = System.currentTimeMillis();
-            long readLineTotalTime = 0;
-            long readLineMaxTime = 0;
-
-            List<String> allLines = new ArrayList<>();
-            while ((line = currentReader.readLine()) != null) {
-                allLines.add(line);
-            }
-
-            // Remove footer lines if needed
-            int linesToProcess = allLines.size() - skipFooterLines;
-            if (linesToProcess < 0) linesToProcess = 0;
-
-            for (int i = 0; i < linesToProcess && records.size() < maxRecordsPerPoll; i++) {
-                line = allLines.get(i);
-                long rowReadEstimatedTime = System.currentTimeMillis() - readLineStartTime;
-                if (rowReadEstimatedTime > readLineMaxTime) {
-                    readLineMaxTime = rowReadEstimatedTime;
+            // the clock is read around one line in CLOCK_SAMPLE_LINES, which also checks the time budget
+            long lineCount = 0;
+            long readSamples = 0;
+            long readSampleNanos = 0;
+            long readMaxNanos = 0;
+
+            // the file may already be open, so the time budget counts from the start of the poll
+            int recordLimit = batchTuner != null ? batchTuner.getRecordLimit() : maxRecordsPerPoll;
+            long maxPollNanos = TimeUnit.MILLISECONDS.toNanos(maxPollDurationMs);
+            long pollBytes = 0;
+
+            while (records.size() < recordLimit && (maxPollBytes <= 0 || pollBytes < maxPollBytes)) {
+                long readStart = 0;
+                boolean sampled = lineCount++ % CLOCK_SAMPLE_LINES == 0;
+                if (sampled) {
+                    readStart = System.nanoTime();
+                    if (maxPollNanos > 0 && readStart - pollStartNanos >= maxPollNanos) {
+                        break;
+                    }
                 }
-                readLineTotalTime += rowReadEstimatedTime;
-
-                // Skip empty lines if configured
-                if (skipEmptyLines && line.trim().isEmpty()) {
-                    linesSkipped++;
-                    readLineStartTime = System.currentTimeMillis();
-                    continue;
+                line = nextLine();
+                if (line == null) {
+                    eof = true;
+                    break;
+                }
+                if (sampled) {
+                    long readNanos = System.nanoTime() - readStart;
+                    readSampleNanos += readNanos;
+                    readMaxNanos = Math.max(readMaxNanos, readNanos);
+                    readSamples++;
                 }
+                pollBytes += lastLineByteCount;
 
-                // Skip comment lines if configured
-                if (!commentPrefix.isEmpty() && line.trim().startsWith(commentPrefix)) {
+                // Skip empty and comment lines if configured
+                if (isSkippedLine(line)) {
                     linesSkipped++;
-                    readLineStartTime = System.currentTimeMillis();
                     continue;
                 }
 
-                Map<String, Object> sourcePartition = Collections.singletonMap("file", currentFilename);
-                Map<String, Object> sourceOffset = new HashMap<>();
-                sourceOffset.put("filename", currentFilename);
-                sourceOffset.put("file_hash", currentFileOffset.getFileHash());
-                sourceOffset.put("line_number", linesProcessed + linesSkipped);
-                sourceOffset.put("last_modified", currentFileOffset.getLastModified());
-                sourceOffset.put("file_size", currentFileOffset.getFileSize());
+                if (deduplicator != null) {
+                    if (isDuplicate(line)) {
+                        metrics.incrementDedupHits();
+                        linesSkipped++;
+                        continue;
+                    }
+                    metrics.incrementDedupMisses();
+                }
 
-                long startTime = System.currentTimeMillis();
+                Map<String, Object> sourcePartition = currentPartition();
+                publishCheckpoints(lineNumber());
+                long position = positionTracking && lastLineStart >= 0 ? lastLineStart : -1;
+                // a position resume finds the first line of the record there
+                int positionHash = position < 0 ? 0 : recordLinesJoined > 0 ? firstLineHash : lineHash(line);
+                Map<String, Object> sourceOffset = new RecordOffset(offsetFileFields(), checkpointFields,
+                        lineNumber(), position, positionHash);
 
                 try {
-                    RecordModel record = buildRecordModel(line);
+                    if (recordOverflowed) {
+                        throw new DataException("Record exceeds " + FtpSourceConnectorEnhanced.FTP_FILE_MAX_RECORD_BYTES
+                                + " inside a quoted field");
+                    }
+                    RecordModel record = line instanceof byte[]
+                            ? recordModel.set(line, Schema.BYTES_SCHEMA, null)
+                            : buildRecordModel((String) line);
                     Object value = record.value;
                     Schema schema = record.schema;
 
@@ -309,87 +679,79 @@ public class FtpSourceTaskEnhanced extends SourceTask {
                         ValidationResult validationResult = validator.validate((Struct) value);
                         if (!validationResult.isValid()) {
                             metrics.incrementValidationErrors();
-                            handleValidationError(line, validationResult, sourcePartition, sourceOffset, dlqRecords);
+                            handleValidationError((String) line, validationResult, sourcePartition, sourceOffset, dlqRecords);
 
                             if ("strict".equals(validationMode)) {
                                 linesProcessed++;
-                                readLineStartTime = System.currentTimeMillis();
                                 continue;
                             }
                         }
                     }
 
-                    Object recordKey = null;
-                    if ("json".equals(outputFormat) && value instanceof Struct) {
-                        recordKey = buildKafkaKey((Struct) value, keyFieldName);
-                    }
-
                     records.add(new SourceRecord(
                             sourcePartition,
                             sourceOffset,
                             topic,
                             Schema.OPTIONAL_STRING_SCHEMA,
-                            recordKey != null ? recordKey.toString() : null,
+                            record.key,
                             schema,
                             value));
 
                     linesProcessed++;
                     metrics.incrementLines(1);
-                    metrics.incrementBytes(line.getBytes(fileEncoding).length);
+                    metrics.incrementBytes(lastLineByteCount);
 
                 } catch (Exception e) {
                     metrics.incrementErrors();
-                    handleProcessingError(line, e, sourcePartition, sourceOffset, dlqRecords);
+                    handleProcessingError(lineText(line), e, sourcePartition, sourceOffset, dlqRecords);
+                    // counted so that the next record's line number still matches its position in the file
+                    linesSkipped++;
                 }
 
-                long estimatedTime = System.currentTimeMillis() - startTime;
-
-                if ((linesProcessed + linesSkipped) % metricsIntervalLines == 0) {
+                if (lineNumber() % metricsIntervalLines == 0) {
                     long elapsedEstimatedTime = System.currentTimeMillis() - generalStartTime;
-                    long currentReadLineAverageTime = linesProcessed > 0 ? readLineTotalTime / linesProcessed : 0;
                     log.info("Processed {} lines (skipped {}) from {} in {} ms (row read avg {} ms max {} ms, lines/sec: {:.2f})",
                             linesProcessed, linesSkipped, currentFilename, elapsedEstimatedTime,
-                            currentReadLineAverageTime, readLineMaxTime, metrics.getCurrentFileLinesPerSecond());
+                            averageMillis(readSampleNanos, readSamples), TimeUnit.NANOSECONDS.toMillis(readMaxNanos),
+                            metrics.getCurrentFileLinesPerSecond());
                 }
-
-                readLineStartTime = System.currentTimeMillis();
             }
 
-            eof = (linesToProcess == allLines.size() || linesToProcess == 0);
+            if (batchTuner != null) {
+                batchTuner.onPoll(records.size(), System.currentTimeMillis() - generalStartTime);
+            }
+            if (currentProgress != null) {
+                currentProgress.outstanding.addAndGet(records.size() + dlqRecords.size());
+            }
 
             long generalEstimatedTime = System.currentTimeMillis() - generalStartTime;
-            long readLineAverageTime = linesProcessed > 0 ? readLineTotalTime / linesProcessed : 0;
+            long readLineAverageTime = averageMillis(readSampleNanos, readSamples);
+            long readLineMaxTime = TimeUnit.NANOSECONDS.toMillis(readMaxNanos);
 
             if (eof) {
-                if (currentReader != null) currentReader.close();
-                if (client instanceof FtpRemoteClient) {
-                    ((FtpRemoteClient) client).completePending();
+                if (currentRange != null) {
+                    // stops the transfer past the range end
+                    abortCurrentStream();
+                } else {
+                    closeCurrentStream();
                 }
-                if (currentStream != null) currentStream.close();
+
+                // A file resumed at a byte position never saw its prefix, so it has no full fingerprint
+                String fileHash = fingerprint != null ? fingerprint.getValue() : currentFileOffset.getFileHash();
+                log.info("File {} fingerprint ({}): {}", currentFilename, hashAlgorithm, fileHash);
 
                 DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmssSSS");
                 String timestamp = LocalDateTime.now().format(formatter);
-                String summaryFilename = currentFilename.replaceAll("(\\.\\w+)?$", "_" + timestamp + ".txt");
+                String rangeSuffix = currentRange != null ? "_" + currentRange.getPartitionKey() : "";
+                String summaryFilename = currentFilename.replaceAll("(\\.\\w+)?$", rangeSuffix + "_" + timestamp + ".txt");
                 String summaryPath = archiveDir + "/" + summaryFilename;
                 String summaryContent = String.format(Locale.ROOT,
                         "File: %s%nLines processed: %d%nLines skipped: %d%nProcessed at: %s%nProcessing time (ms): %d%n" +
                         "Average line read time (ms): %d%nMax line read time (ms): %d%nValidation errors: %d%nProcessing errors: %d%n" +
-                        "Lines per second: %.2f",
+                        "Lines per second: %.2f%nFile hash (%s): %s",
                         currentFilename, linesProcessed, linesSkipped, timestamp, generalEstimatedTime,
                         readLineAverageTime, readLineMaxTime, metrics.getTotalValidationErrors(),
-                        metrics.getTotalErrors(), metrics.getCurrentFileLinesPerSecond());
-
-                log.info("Deleting staged file: {}", currentStagedPath);
-                long startTime = System.currentTimeMillis();
-                client.deleteFile(currentStagedPath);
-                long estimatedTime = System.currentTimeMillis() - startTime;
-                log.info("Deleted staged file: {} in {} ms", currentStagedPath, estimatedTime);
-
-                log.info("Writing summary file: {}", summaryPath);
-                startTime = System.currentTimeMillis();
-                client.writeTextFile(summaryPath, summaryContent, Charset.forName(fileEncoding));
-                estimatedTime = System.currentTimeMillis() - startTime;
-                log.info("Summary file written: {} in {} ms", summaryPath, estimatedTime);
+                        metrics.getTotalErrors(), metrics.getCurrentFileLinesPerSecond(), hashAlgorithm, fileHash);
 
                 log.info("Finished processing file {} with {} lines (skipped {}) in {} ms (row read avg {} ms max {} ms, lines/sec: {:.2f})",
                         currentFilename, linesProcessed, linesSkipped, generalEstimatedTime,
@@ -397,11 +759,42 @@ public class FtpSourceTaskEnhanced extends SourceTask {
 
                 metrics.endFile();
 
+                if (fileFilter != null) {
+                    deduplicator.merge(fileFilter);
+                    fileFilter.clear();
+                    fileMerges++;
+                }
+
+                // archived by a later poll once the records are committed, so a crash before then replays them
+                if (currentRange != null) {
+                    log.info("Finished range {}, marking it done once its records are committed", currentRange);
+                } else {
+                    log.info("Finished file {}, archiving it once its records are committed", currentFilename);
+                }
+                currentProgress.summaryPath = summaryPath;
+                currentProgress.summaryContent = summaryContent;
+                currentProgress.dedupMerges = fileMerges;
+                // kept until archival, so a restart before the records are committed reads the local copy again
+                currentProgress.spooledName = spool != null && currentRange == null ? currentFilename : null;
+                currentProgress.finished = true;
+                releaseFile(currentProgress);
+
+                if (footerBuffer != null) {
+                    log.info("Dropped {} footer lines from {}", footerBuffer.size(), currentFilename);
+                    footerBuffer.clear();
+                }
                 currentReader = null;
                 currentStream = null;
                 currentFilename = null;
                 currentStagedPath = null;
                 currentFileOffset = null;
+                currentRange = null;
+                currentProgress = null;
+                prefetchedFile = null;
+                fingerprint = null;
+                pendingCheckpoints.clear();
+                pushedBackLine = null;
+                checkpointFields = Collections.emptyMap();
                 resumeFromLine = 0;
             }
 
@@ -414,14 +807,37 @@ public class FtpSourceTaskEnhanced extends SourceTask {
         // Add DLQ records if any
         records.addAll(dlqRecords);
 
-        Thread.sleep(pollInterval);
+        if (batchTuner != null && !records.isEmpty()) {
+            batchesInFlight.put(records.get(records.size() - 1), System.currentTimeMillis());
+        }
+
+        // a file was read, so there may be more backlog: poll again right away
+        pollScheduler.onWork();
         return records;
     }
 
     @Override
     public void stop() {
         log.info("Stopping FtpSourceTask");
-        log.info("Final metrics: {}", metrics);
+        log.info("Final metrics: {}", getMetrics());
+        pollScheduler.stop();
+        if (workerPool != null) {
+            workerPool.stop();
+        }
+        if (prefetcher != null && !sharedPrefetcher) {
+            prefetcher.close();
+        }
+        if (client != null && !completedFiles.isEmpty()) {
+            try {
+                archiveCompletedFiles();
+            } catch (Exception e) {
+                log.warn("Failed to archive committed files on stop: {}", e.getMessage());
+            }
+        }
+        if (!openFiles.isEmpty() || !completedFiles.isEmpty()) {
+            // their offsets are committed up to the last acknowledged record, so a restart resumes them
+            log.info("Leaving {} files staged whose records were not all committed", openFiles.size() + completedFiles.size());
+        }
         if (client != null) {
             client.disconnect();
             log.info("Disconnected from server");
@@ -432,69 +848,963 @@ public class FtpSourceTaskEnhanced extends SourceTask {
         this.client = client;
     }
 
+    public void setPrefetchClient(RemoteClient prefetchClient) {
+        this.prefetchClient = prefetchClient;
+    }
+
+    /**
+     * True while a file is open, i.e. the next poll continues it instead of claiming a new one
+     */
+    public boolean isProcessingFile() {
+        return currentReader != null;
+    }
+
+    /**
+     * Idle wait the worker pool runs between polls of this task, so that committing the last record of a
+     * file ends it and the next poll archives the file
+     */
+    public void setIdleScheduler(PollScheduler idleScheduler) {
+        this.idleScheduler = idleScheduler;
+    }
+
+    /**
+     * Metrics of the task; with file workers, the totals of the task and its workers added up
+     */
+    public ProcessingMetrics getMetrics() {
+        if (workers == null) {
+            return metrics;
+        }
+        ProcessingMetrics total = new ProcessingMetrics();
+        total.addTotals(metrics);
+        for (FtpSourceTaskEnhanced worker : workers) {
+            total.addTotals(worker.getMetrics());
+        }
+        return total;
+    }
+
+    BatchTuner getBatchTuner() {
+        return batchTuner;
+    }
+
+    List<FtpSourceTaskEnhanced> getWorkers() {
+        return workers != null ? workers : Collections.emptyList();
+    }
+
+    /**
+     * Starts {@code workerCount} single-file tasks on their own connections. They claim files from
+     * one shared prefetcher, so a file is never claimed twice, and poll() drains their records.
+     */
+    private void startWorkers(Map<String, String> props, int workerCount) {
+        Map<String, String> workerProps = new HashMap<>(props);
+        workerProps.put(FtpSourceConnectorEnhanced.FTP_WORKERS, "1");
+        workerProps.put(FtpSourceConnectorEnhanced.FTP_FILE_PREFETCH_DEPTH, "0");
+        // the assignment is claimed through the shared prefetcher
+        workerProps.remove(FtpSourceConnectorEnhanced.FTP_TASK_ASSIGNED_FILES);
+        // workers must not sleep between polls of an open file; idle waits happen in the pool
+        workerProps.put(FtpSourceConnectorEnhanced.FTP_POLL_INTERVAL, "0");
+
+        int prefetchDepth = Integer.parseInt(props.getOrDefault(FtpSourceConnectorEnhanced.FTP_FILE_PREFETCH_DEPTH, "0"));
+        int prefetchBytes = Integer.parseInt(props.getOrDefault(FtpSourceConnectorEnhanced.FTP_FILE_PREFETCH_BYTES, "8388608"));
+        int queueCapacity = Integer.parseInt(props.getOrDefault(FtpSourceConnectorEnhanced.FTP_WORKER_QUEUE_CAPACITY, "10000"));
+
+        try {
+            if (this.prefetchClient == null) {
+                this.prefetchClient = createClient(props);
+            }
+            this.prefetchClient.connect();
+        } catch (Exception e) {
+            log.error("Failed to connect to remote server", e);
+            throw new ConnectException("Failed to connect to remote server", e);
+        }
+        this.prefetcher = new FilePrefetcher(prefetchClient, directory, filePattern, stageDir, sharding, assignment,
+                prefetchDepth, prefetchBytes, stagedInFlight);
+
+        List<FtpSourceTaskEnhanced> workers = new ArrayList<>();
+        for (int i = 0; i < workerCount; i++) {
+            FtpSourceTaskEnhanced worker = new FtpSourceTaskEnhanced();
+            worker.initialize(context);
+            worker.setClient(createClient(props));
+            worker.prefetcher = prefetcher;
+            worker.sharedPrefetcher = true;
+            worker.deduplicator = deduplicator;
+            worker.stagedInFlight = stagedInFlight;
+            Map<String, String> ownProps = new HashMap<>(workerProps);
+            // a spool directory of its own
+            ownProps.put(FtpSourceConnectorEnhanced.FTP_TASK_ID,
+                    props.getOrDefault(FtpSourceConnectorEnhanced.FTP_TASK_ID, "0") + "-" + i);
+            worker.start(ownProps);
+            workers.add(worker);
+        }
+
+        this.workers = workers;
+        // each worker tunes the batches it emits, from the acknowledgements commitRecord forwards to it
+        this.batchTuner = null;
+        long maxIdleWaitMs = Long.parseLong(props.getOrDefault(FtpSourceConnectorEnhanced.FTP_POLL_BACKOFF_MAX_MS, "60000"));
+        this.workerPool = new FileWorkerPool(workers, queueCapacity, pollInterval, maxIdleWaitMs);
+        this.workerPool.start();
+        log.info("Processing files with {} workers (record queue capacity {})", workerCount, queueCapacity);
+    }
+
+    /**
+     * Creates a connection to the configured server, wrapped with retry logic
+     */
+    protected RemoteClient createClient(Map<String, String> props) {
+        String protocol = props.get(FtpSourceConnectorEnhanced.FTP_PROTOCOL);
+        RemoteClient baseClient = "sftp".equalsIgnoreCase(protocol)
+                ? new SftpRemoteClient(props)
+                : new FtpRemoteClient(props);
+
+        RetryConfig retryConfig = new RetryConfig(retryMaxAttempts, retryBackoffMs, retryMaxBackoffMs, 2.0);
+        return new RetryableRemoteClient(baseClient, retryConfig);
+    }
+
     @Override
     public String version() {
         return VERSION;
     }
 
-    protected String buildKafkaKey(Struct struct, String keyFieldName) {
-        if (keyFieldName == null || keyFieldName.isEmpty()) return null;
+    private void openCurrentStream(long offset) throws Exception {
+        log.info("Streaming file: {} from byte {}", currentStagedPath, offset);
+        long startTime = System.currentTimeMillis();
+        // a range is a slice of the file, spooling would download all of it
+        currentStream = spool != null && currentRange == null ? openSpooledStream(offset) : null;
+        if (currentStream == null) {
+            currentStream = retrieveRemote(offset);
+        }
+
+        // Handle compression
+        if (autoDetectCompression) {
+            currentStream = handleCompression(currentStream, currentFilename);
+        }
+
+        long estimatedTime = System.currentTimeMillis() - startTime;
+        log.info("Streamed file: {} in {} ms", currentStagedPath, estimatedTime);
+    }
+
+    /**
+     * Opens the local copy of the staged file, downloading it first if needed, so the remote transfer
+     * is completed before parsing starts. Returns null if the file does not fit in the spool.
+     */
+    private InputStream openSpooledStream(long offset) throws Exception {
+        RemoteFileInfo info = remoteFileInfo();
+        Path local = spool.find(currentFilename);
+        if (local != null && (info == null || !spool.isCopyOf(local, info.getSize(), info.getLastModified()))) {
+            log.info("Spooled copy of {} does not match the size and modification time of the staged file, downloading again",
+                    currentFilename);
+            spool.delete(currentFilename);
+            local = null;
+        }
+
+        if (local == null) {
+            InputStream remote = retrieveRemote(0);
+            try {
+                local = spool.spool(currentFilename, remote, info != null ? info.getSize() : -1,
+                        info != null ? info.getLastModified() : 0);
+            } finally {
+                remote.close();
+            }
+            if (local == null) {
+                try {
+                    completeTransfer();
+                } catch (IOException e) {
+                    log.debug("Spool transfer of {} aborted: {}", currentStagedPath, e.getMessage());
+                }
+                return null;
+            }
+            try {
+                completeTransfer();
+            } catch (IOException e) {
+                spool.delete(currentFilename);
+                throw e;
+            }
+        } else {
+            log.info("Reusing spooled copy {} of {}", local, currentFilename);
+        }
+        return new MappedFileInputStream(local, offset);
+    }
+
+    /**
+     * Opens the staged file on the server from the given offset, serving the prefetched head from memory
+     */
+    private InputStream retrieveRemote(long offset) throws Exception {
+        if (prefetchedFile != null && prefetchedFile.isComplete()) {
+            return prefetchedFile.openHead(offset);
+        }
+
+        InputStream remote;
+        if (prefetchedFile != null && offset < prefetchedFile.getHeadLength()) {
+            remote = new SequenceInputStream(prefetchedFile.openHead(offset),
+                    client.retrieveFileStream(currentStagedPath, prefetchedFile.getHeadLength()));
+        } else {
+            remote = offset > 0
+                    ? client.retrieveFileStream(currentStagedPath, offset)
+                    : client.retrieveFileStream(currentStagedPath);
+        }
+        transferPending = true;
+        return remote;
+    }
+
+    private RemoteFileInfo remoteFileInfo() {
+        try {
+            return client.getFileInfo(currentStagedPath);
+        } catch (Exception e) {
+            log.debug("Metadata of {} is not available: {}", currentStagedPath, e.getMessage());
+            return null;
+        }
+    }
+
+    private void openCurrentReader(long startPosition) {
+        currentReader = LineReader.open(currentStream, charset, bufferSize, startPosition);
+        pushedBackLine = null;
+        if (footerBuffer != null) {
+            footerBuffer.clear();
+        }
+        linesProcessed = 0;
+        linesSkipped = 0;
+        linesJoined = 0;
+        recordLinesJoined = 0;
+        if (deduplicator != null) {
+            if (fileFilter == null) {
+                fileFilter = deduplicator.newFileFilter();
+            } else {
+                fileFilter.clear();
+            }
+            fileMerges = 0;
+        }
+
+        // The prefix of a file opened past its first byte is never seen, so it cannot be fingerprinted
+        fingerprint = streamingEnabled && startPosition == 0 ? FileFingerprints.forAlgorithm(hashAlgorithm) : null;
+        fingerprintLines = 0;
+        checkpointFields = Collections.emptyMap();
+        pendingCheckpoints.clear();
+    }
+
+    private void closeCurrentStream() throws IOException {
+        if (currentReader != null) currentReader.close();
+        completeTransfer();
+        if (currentStream != null) currentStream.close();
+    }
+
+    private void completeTransfer() throws IOException {
+        if (transferPending) {
+            transferPending = false;
+            client.completePending();
+        }
+    }
+
+    private void abortCurrentStream() {
+        try {
+            closeCurrentStream();
+        } catch (IOException e) {
+            log.debug("Transfer of {} aborted before reopening: {}", currentStagedPath, e.getMessage());
+        }
+    }
+
+    private boolean canResumeAtPosition(FileOffset previousOffset) {
+        return previousOffset != null && positionTracking
+                && previousOffset.getBytePosition() > 0 && previousOffset.getLineHash() != null;
+    }
+
+    /**
+     * Reopens the staged file directly at the byte position stored in the previous offset, so the prefix
+     * is neither downloaded nor parsed again. The line found there must match the stored line hash,
+     * otherwise the file is treated as changed.
+     */
+    private boolean resumeAtPosition(FileOffset previousOffset) throws Exception {
+        long position = previousOffset.getBytePosition();
+        if (headerRowEnabled) {
+            readHeaderRow();
+        }
+        openCurrentStream(position);
+        openCurrentReader(position);
+
+        Object line = readLine();
+        if (line != null && lineHash(line) == previousOffset.getLineHash()) {
+            pushedBackLine = line;
+            linesSkipped = previousOffset.getLineNumber();
+            if (previousOffset.hasCheckpoint(hashAlgorithm)) {
+                // still describes the prefix of this file, keep it for the next restart
+                checkpointFields = RecordOffset.checkpointFields(hashAlgorithm, previousOffset.getCheckpointLine(),
+                        previousOffset.getCheckpointHash());
+            }
+            log.info("Resuming file {} from line {} at byte {}", currentFilename, linesSkipped, position);
+            return true;
+        }
+
+        log.info("File {} does not match the previous offset at byte {}, processing from start", currentFilename, position);
+        abortCurrentStream();
+        return false;
+    }
+
+    /**
+     * Opens the current range at its first whole line, or at the byte position of the previous offset
+     * of its range partition. The partial line at the range start belongs to the previous range.
+     */
+    private long openRange(FileOffset previousOffset, String fileIdentity) throws Exception {
+        currentFileOffset = new FileOffset(currentFilename, null, 0, System.currentTimeMillis(),
+                currentRange.getEnd() - currentRange.getStart(), fileIdentity);
+        currentProgress = new FileProgress(currentPartition(), null, currentRange.getMarkerPath());
+        openFiles.put(currentProgress.partition, currentProgress);
+
+        if (positionTracking && canResumeAtPosition(previousOffset) && resumeAtPosition(previousOffset)) {
+            return previousOffset.getLineNumber();
+        }
+
+        long position = currentRange.isFirst() ? 0 : currentRange.getStart() - 1;
+        if (headerRowEnabled && !currentRange.isFirst()) {
+            readHeaderRow();
+        }
+        openCurrentStream(position);
+        openCurrentReader(position);
+        if (currentRange.isFirst()) {
+            skipHeaderLines();
+        } else {
+            skipLine();
+        }
+        return 0;
+    }
+
+    /**
+     * Source partition of the current file or range, built once and shared by its records
+     */
+    private Map<String, Object> currentPartition() {
+        if (partition == null || partitionFilename != currentFilename || partitionRange != currentRange) {
+            if (currentRange == null) {
+                partition = Collections.singletonMap("file", currentFilename);
+            } else {
+                Map<String, Object> fields = new HashMap<>();
+                fields.put("file", currentFilename);
+                fields.put("range", currentRange.getPartitionKey());
+                partition = Collections.unmodifiableMap(fields);
+            }
+            partitionFilename = currentFilename;
+            partitionRange = currentRange;
+        }
+        return partition;
+    }
+
+    /**
+     * Offset entries shared by the records of the current file, built once per file
+     */
+    private Map<String, Object> offsetFileFields() {
+        if (offsetFileFieldsOf != currentFileOffset) {
+            offsetFileFields = RecordOffset.fileFields(currentFileOffset);
+            offsetFileFieldsOf = currentFileOffset;
+        }
+        return offsetFileFields;
+    }
+
+    private static long averageMillis(long nanos, long samples) {
+        return samples > 0 ? TimeUnit.NANOSECONDS.toMillis(nanos / samples) : 0;
+    }
+
+    /**
+     * Queues a file or range for archival once it has been read to its end and all of its records are committed
+     */
+    private void releaseFile(FileProgress progress) {
+        if (progress.finished && progress.outstanding.get() <= 0 && progress.released.compareAndSet(false, true)) {
+            openFiles.remove(progress.partition);
+            completedFiles.add(progress);
+            // commitRecord runs on the producer thread; the client is only used by poll()
+            pollScheduler.wakeUp();
+            PollScheduler idle = idleScheduler;
+            if (idle != null) {
+                idle.wakeUp();
+            }
+        }
+    }
+
+    /**
+     * Deletes the staged files, or writes the done markers of the ranges, whose records are all committed,
+     * then writes their summaries
+     */
+    private void archiveCompletedFiles() throws Exception {
+        FileProgress progress;
+        while ((progress = completedFiles.poll()) != null) {
+            long startTime = System.currentTimeMillis();
+            if (progress.markerPath != null) {
+                // the connector deletes the staged file once the markers of every range are written
+                client.writeTextFile(progress.markerPath, "", charset);
+                log.info("Wrote range marker {}", progress.markerPath);
+            } else {
+                client.deleteFile(progress.stagedPath);
+                if (progress.spooledName != null) {
+                    spool.delete(progress.spooledName);
+                }
+                stagedInFlight.remove(progress.stagedPath);
+                log.info("Deleted staged file: {} in {} ms", progress.stagedPath, System.currentTimeMillis() - startTime);
+            }
+
+            startTime = System.currentTimeMillis();
+            client.writeTextFile(progress.summaryPath, progress.summaryContent, charset);
+            log.info("Summary file written: {} in {} ms", progress.summaryPath, System.currentTimeMillis() - startTime);
+
+            if (progress.dedupMerges > 0) {
+                try {
+                    deduplicator.acknowledge(progress.dedupMerges);
+                } catch (IOException e) {
+                    log.warn("Failed to save deduplication state: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    @Override
+    public void commitRecord(SourceRecord record, RecordMetadata metadata) {
+        // only the worker that emitted the record holds it in its batches in flight or open files
+        if (workers != null) {
+            for (FtpSourceTaskEnhanced worker : workers) {
+                worker.commitRecord(record, metadata);
+            }
+        }
+        if (batchTuner != null) {
+            Long sentAt = batchesInFlight.remove(record);
+            if (sentAt != null) {
+                batchTuner.onAck(System.currentTimeMillis() - sentAt);
+            }
+        }
+        if (openFiles.isEmpty()) {
+            return;
+        }
+        FileProgress progress = openFiles.get(record.sourcePartition());
+        if (progress != null) {
+            progress.outstanding.decrementAndGet();
+            releaseFile(progress);
+        }
+    }
+
+    private void skipHeaderLines() throws IOException {
+        for (int i = 0; i < skipHeaderLines; i++) {
+            if (skipLine() && i == 0 && headerRowEnabled) {
+                applyHeaderRow(currentReader.decodeLastLine());
+            }
+            linesSkipped++;
+        }
+    }
+
+    /**
+     * Reads the header row on a separate read, for reads that start past the top of the file
+     */
+    private void readHeaderRow() throws Exception {
+        if (headerRowRead) {
+            return;
+        }
+        openCurrentStream(0);
+        try {
+            applyHeaderRow(LineReader.open(currentStream, charset, bufferSize, 0).readLine());
+        } finally {
+            abortCurrentStream();
+        }
+    }
+
+    /**
+     * Takes the field names of the current file from its header row. The schema cache and the column
+     * projection are only rebuilt when the names differ from those of the previous file.
+     */
+    private void applyHeaderRow(String line) {
+        headerRowRead = true;
+        if (line == null) {
+            return;
+        }
+        headerTokenizer.split(line);
+        List<String> headers = Arrays.asList(headerTokenizer.getFields());
+        if (headers.equals(fieldHeaders)) {
+            return;
+        }
+        fieldHeaders = headers;
+        projectedColumns = resolveColumns(columnsInclude);
+        fieldTokenizer = createFieldTokenizer();
+        keyExtractor = compileKeyExtractor();
+        schemaCache.clear();
+        log.info("Read {} field names from the header row of {}", headers.size(), currentFilename);
+    }
+
+    /**
+     * Skips to the line stored in the previous offset, but only keeps the position if the prefix
+     * fingerprint recomputed on the way matches the checkpoint stored with that offset, or if the
+     * remote identity already proved it is the same file.
+     * On a mismatch the file is reopened and processed from the start.
+     */
+    private long resumeStreaming(FileOffset previousOffset, boolean identityVerified) throws Exception {
+        if (previousOffset == null) {
+            return 0;
+        }
+
+        long resumeLine = previousOffset.getLineNumber();
+        long expectedLine = previousOffset.getCheckpointLine();
+        if (!identityVerified && (!previousOffset.hasCheckpoint(hashAlgorithm) || expectedLine > resumeLine)) {
+            log.info("File {} has a previous offset without a {} checkpoint, processing from start",
+                    currentFilename, hashAlgorithm);
+            return 0;
+        }
+
+        String prefixHash = null;
+        while (fingerprintLines < resumeLine) {
+            if (fingerprintLines == expectedLine) {
+                prefixHash = fingerprint.getValue();
+            }
+            if (!skipLine()) {
+                break;
+            }
+            linesSkipped++;
+        }
+        if (fingerprintLines == expectedLine) {
+            prefixHash = fingerprint.getValue();
+        }
+
+        publishCheckpoints(fingerprintLines);
+
+        if (fingerprintLines == resumeLine && identityVerified) {
+            log.info("Resuming file {} from line {} (remote identity verified)", currentFilename, resumeLine);
+            return resumeLine;
+        }
+        if (fingerprintLines == resumeLine && prefixHash != null && prefixHash.equals(previousOffset.getCheckpointHash())) {
+            log.info("Resuming file {} from line {} (checkpoint verified at line {})",
+                    currentFilename, resumeLine, expectedLine);
+            return resumeLine;
+        }
+
+        log.info("File {} has changed (checkpoint mismatch at line {}), processing from start",
+                currentFilename, expectedLine);
+        abortCurrentStream();
+        openCurrentStream(0);
+        openCurrentReader(0);
+        skipHeaderLines();
+        return 0;
+    }
+
+    /**
+     * Reads a line from the current reader and feeds it to the fingerprint, taking a checkpoint
+     * every {@code hashCheckpointLines} lines. The checkpoint is taken before the line is read so
+     * that it never covers a line whose record has not been emitted yet.
+     * @return the decoded line, or its raw bytes in the bytes output format
+     */
+    private Object readLine() throws IOException {
+        if (pushedBackLine != null) {
+            Object line = pushedBackLine;
+            pushedBackLine = null;
+            return line;
+        }
+        if (!advanceLine()) {
+            return null;
+        }
+        return rawOutput ? currentReader.copyLastLine() : currentReader.decodeLastLine();
+    }
+
+    /**
+     * Same as {@link #readLine()} for lines that are not emitted, without decoding them
+     */
+    private boolean skipLine() throws IOException {
+        if (pushedBackLine != null) {
+            pushedBackLine = null;
+            return true;
+        }
+        return advanceLine();
+    }
+
+    private boolean advanceLine() throws IOException {
+        if (fingerprint != null && fingerprintLines > 0 && fingerprintLines % hashCheckpointLines == 0
+                && (pendingCheckpoints.isEmpty() || pendingCheckpoints.peekLast().lines != fingerprintLines)) {
+            pendingCheckpoints.addLast(new HashCheckpoint(fingerprintLines, fingerprint.getValue()));
+        }
+
+        if (!currentReader.skipLine()) {
+            return false;
+        }
+        lastLineByteCount = currentReader.getLastLineByteCount();
+        lastLineStart = currentReader.getLastLineStart();
+        if (fingerprint != null) {
+            currentReader.digestLastLine(fingerprint);
+            fingerprint.update(LINE_SEPARATOR, 0, 1);
+            fingerprintLines++;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the next record to emit, or null at end of file. With multi-line records, a line that ends
+     * inside a quoted field is joined with the lines that follow it up to the closing quote. The line
+     * position and byte count then describe the whole record, and its continuation lines are added to
+     * the line number once the record has been emitted.
+     */
+    private Object nextLine() throws IOException {
+        linesJoined += recordLinesJoined;
+        recordLinesJoined = 0;
+        recordOverflowed = false;
+
+        Object line = nextPhysicalLine();
+        if (recordAssembler == null || !(line instanceof String)
+                || !recordAssembler.begin((String) line, lastLineByteCount) && !recordAssembler.isOverflowed()
+                || isSkippedLine(line)) {
+            return line;
+        }
+
+        long recordStart = lastLineStart;
+        int recordHash = lineHash(line);
+        boolean open = !recordAssembler.isOverflowed();
+        while (open) {
+            Object next = nextPhysicalLine();
+            if (next == null) {
+                log.warn("File {} ends inside a quoted field opened at line {}", currentFilename, lineNumber() + 1);
+                break;
+            }
+            open = recordAssembler.append((String) next, lastLineByteCount);
+        }
+        if (recordAssembler.isOverflowed()) {
+            log.warn("Record at line {} of {} is still inside a quoted field after {} bytes, cutting it there",
+                    lineNumber() + 1, currentFilename, recordAssembler.getByteCount());
+            recordOverflowed = true;
+        }
+
+        recordLinesJoined = recordAssembler.getLineCount() - 1;
+        firstLineHash = recordHash;
+        lastLineStart = recordStart;
+        lastLineByteCount = (int) Math.min(Integer.MAX_VALUE, recordAssembler.getByteCount());
+        return recordAssembler.getRecord();
+    }
+
+    /**
+     * Returns the next line to emit, or null at end of file. When footer lines are configured each line
+     * goes through a look-behind ring buffer and is only released once it is known not to be a footer line.
+     */
+    private Object nextPhysicalLine() throws IOException {
+        Object line;
+        while ((line = readLine()) != null) {
+            if (currentRange != null && lastLineStart >= currentRange.getEnd()) {
+                // starts the next range
+                return null;
+            }
+            // footer lines only exist at the end of the file
+            if (footerBuffer == null || (currentRange != null && !currentRange.isLast())) {
+                return line;
+            }
+            Object released = footerBuffer.offer(line, lastLineByteCount, lastLineStart);
+            if (released != null) {
+                lastLineByteCount = footerBuffer.getReleasedByteCount();
+                lastLineStart = footerBuffer.getReleasedStartPosition();
+                return released;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Physical lines before the record being emitted, as stored in the line_number offset
+     */
+    private long lineNumber() {
+        return linesProcessed + linesSkipped + linesJoined;
+    }
+
+    /**
+     * Makes the newest checkpoint that only covers lines up to {@code lineNumber} the one stored in offsets.
+     * Lines held in the footer buffer are read ahead of emission, so newer checkpoints wait in a queue.
+     */
+    private void publishCheckpoints(long lineNumber) {
+        while (!pendingCheckpoints.isEmpty() && pendingCheckpoints.peekFirst().lines <= lineNumber) {
+            HashCheckpoint checkpoint = pendingCheckpoints.pollFirst();
+            checkpointFields = RecordOffset.checkpointFields(hashAlgorithm, checkpoint.lines, checkpoint.hash);
+        }
+    }
+
+    /**
+     * Resolves ftp.file.columns.include entries, given as field names (headers or field1, field2...) or
+     * one-based positions, to sorted zero-based columns. Key fields are always kept. The string output
+     * format only splits lines for their key, so it keeps the key fields alone.
+     */
+    private int[] resolveColumns(String include) {
+        Set<String> entries = new LinkedHashSet<>();
+        if (!include.trim().isEmpty()) {
+            entries.addAll(Arrays.asList(include.trim().split("\\s*,\\s*")));
+        } else if ("json".equals(outputFormat) || keyFields.isEmpty()) {
+            return null;
+        }
+        entries.addAll(keyFields);
 
-        String[] keyFields = keyFieldName.split("\\+");
-        StringBuilder keyBuilder = new StringBuilder();
+        TreeSet<Integer> columns = new TreeSet<>();
+        for (String entry : entries) {
+            columns.add(resolveColumn(entry, FtpSourceConnectorEnhanced.FTP_FILE_COLUMNS_INCLUDE));
+        }
+        return columns.stream().mapToInt(Integer::intValue).toArray();
+    }
 
-        for (String field : keyFields) {
-            Object part = struct.get(field.trim());
-            if (part != null) {
-                if (keyBuilder.length() > 0) keyBuilder.append("_");
-                keyBuilder.append(part.toString());
+    private int resolveColumn(String entry, String configKey) {
+        int column = fieldHeaders != null ? fieldHeaders.indexOf(entry) : -1;
+        if (column < 0 && entry.matches("(field)?[1-9][0-9]*")) {
+            column = Integer.parseInt(entry.startsWith("field") ? entry.substring(5) : entry) - 1;
+        }
+        if (column < 0) {
+            throw new ConnectException("Unknown column in " + configKey + ": " + entry);
+        }
+        return column;
+    }
+
+    /**
+     * Resolves ftp.kafka.key.field to the indexes of its fields in the tokenizer output, which only holds
+     * the projected columns when there is a projection
+     */
+    private KeyExtractor compileKeyExtractor() {
+        if (keyFields.isEmpty() || rawOutput) {
+            return null;
+        }
+        int[] fields = new int[keyFields.size()];
+        for (int i = 0; i < fields.length; i++) {
+            int column = resolveColumn(keyFields.get(i), FtpSourceConnectorEnhanced.FTP_KAFKA_KEY_FIELD);
+            fields[i] = projectedColumns != null ? Arrays.binarySearch(projectedColumns, column) : column;
+        }
+        return new KeyExtractor(fields, keyHashed);
+    }
+
+    private RecordDeduplicator createDeduplicator(Map<String, String> props) {
+        double fpp = Double.parseDouble(props.getOrDefault(FtpSourceConnectorEnhanced.FTP_DEDUP_FALSE_POSITIVE_RATE, "0.001"));
+        long memoryBytes = Long.parseLong(props.getOrDefault(FtpSourceConnectorEnhanced.FTP_DEDUP_MEMORY_BYTES, "16777216"));
+        boolean offHeap = Boolean.parseBoolean(props.getOrDefault(FtpSourceConnectorEnhanced.FTP_DEDUP_OFFHEAP, "false"));
+        String dir = props.getOrDefault(FtpSourceConnectorEnhanced.FTP_DEDUP_PATH, "").trim();
+        Path path = null;
+        if (!dir.isEmpty()) {
+            try {
+                Files.createDirectories(Paths.get(dir));
+            } catch (IOException e) {
+                throw new ConnectException("Failed to prepare deduplication directory " + dir, e);
             }
+            path = Paths.get(dir, "dedup-task-" + props.getOrDefault(FtpSourceConnectorEnhanced.FTP_TASK_ID, "0") + ".bloom");
         }
+        RecordDeduplicator created;
+        try {
+            // with file workers, each one reads its file into a filter of its own
+            int fileFilters = Integer.parseInt(props.getOrDefault(FtpSourceConnectorEnhanced.FTP_WORKERS, "1"));
+            created = new RecordDeduplicator(memoryBytes, fileFilters, fpp, offHeap, path);
+        } catch (IllegalArgumentException e) {
+            throw new ConnectException("Invalid deduplication settings: " + e.getMessage(), e);
+        }
+        log.info("Dropping duplicate {}s, remembering {} rows per generation at a false positive rate of {}{}",
+                dedupByKey ? "key" : "row", created.getCapacity(), fpp, path != null ? " (saved to " + path + ")" : "");
+        return created;
+    }
 
-        return keyBuilder.length() > 0 ? keyBuilder.toString() : null;
+    /**
+     * Whether the row, or its record key, was seen earlier in this file or in a completed file. New rows
+     * are added to the file filter; rows without a key are never duplicates.
+     */
+    private boolean isDuplicate(Object line) {
+        if (dedupByKey) {
+            if (keyExtractor == null) {
+                return false;
+            }
+            String text = (String) line;
+            fieldTokenizer.split(text);
+            splitLine = text;
+            String key = keyExtractor.extract(fieldTokenizer);
+            if (key == null) {
+                return false;
+            }
+            Murmur3.hash128(key, 0, rowHash);
+        } else if (line instanceof byte[]) {
+            byte[] bytes = (byte[]) line;
+            Murmur3.hash128(bytes, 0, bytes.length, 0, rowHash);
+        } else {
+            Murmur3.hash128((String) line, 0, rowHash);
+        }
+
+        if (fileFilter.mightContain(rowHash[0], rowHash[1]) || deduplicator.mightContain(rowHash[0], rowHash[1])) {
+            return true;
+        }
+        fileFilter.put(rowHash[0], rowHash[1]);
+        if (fileFilter.getInsertions() >= deduplicator.getCapacity()) {
+            // a file larger than a generation fills it early, so that memory stays bounded
+            deduplicator.merge(fileFilter);
+            fileFilter.clear();
+            fileMerges++;
+        }
+        return false;
+    }
+
+    private static char toChar(String value, String key) {
+        if (value.isEmpty()) {
+            return DelimitedTokenizer.NO_CHAR;
+        }
+        if (value.length() > 1) {
+            throw new ConnectException(key + " must be a single character: " + value);
+        }
+        return value.charAt(0);
+    }
+
+    /**
+     * Whether the line is blank and empty lines are skipped, or starts with the comment prefix once
+     * leading blanks are ignored. Raw lines are checked byte by byte when the charset allows it.
+     */
+    private boolean isSkippedLine(Object line) {
+        if (line instanceof byte[] && currentReader instanceof ByteLineReader) {
+            byte[] bytes = (byte[]) line;
+            int start = 0;
+            while (start < bytes.length && (bytes[start] & 0xFF) <= ' ') {
+                start++;
+            }
+            if (start == bytes.length) {
+                return skipEmptyLines;
+            }
+            if (commentPrefixBytes.length == 0 || bytes.length - start < commentPrefixBytes.length) {
+                return false;
+            }
+            for (int i = 0; i < commentPrefixBytes.length; i++) {
+                if (bytes[start + i] != commentPrefixBytes[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // same blanks as String.trim()
+        String text = lineText(line);
+        int start = 0;
+        while (start < text.length() && text.charAt(start) <= ' ') {
+            start++;
+        }
+        if (start == text.length()) {
+            return skipEmptyLines;
+        }
+        return !commentPrefix.isEmpty() && text.startsWith(commentPrefix, start);
+    }
+
+    private String lineText(Object line) {
+        return line instanceof byte[] ? new String((byte[]) line, charset) : (String) line;
+    }
+
+    /**
+     * Hash stored as {@code line_hash} and compared when resuming at a byte position
+     */
+    private static int lineHash(Object line) {
+        return line instanceof byte[] ? Arrays.hashCode((byte[]) line) : line.hashCode();
     }
 
     protected RecordModel buildRecordModel(String line) {
+        boolean split = line == splitLine;
+        splitLine = null;
         if ("json".equals(outputFormat)) {
-            String[] parts = line.split(Pattern.quote(tokenizer), -1);
+            int fieldCount = split ? fieldTokenizer.getFieldCount() : fieldTokenizer.split(line);
+            String key = keyExtractor != null ? keyExtractor.extract(fieldTokenizer) : null;
 
-            Schema schema = getOrBuildSchema(parts.length);
+            Schema schema = getOrBuildSchema(fieldCount);
 
             Struct struct = new Struct(schema);
-            for (int i = 0; i < parts.length; i++) {
-                String key = getFieldName(i);
-                struct.put(key, parts[i].trim());
+            for (int i = 0; i < fieldCount; i++) {
+                Field field = schema.fields().get(i);
+                String value = fieldTokenizer.getField(i);
+                if (fixedWidthLayout != null) {
+                    struct.put(field, fixedWidthLayout.get(fieldTokenizer.getColumn(i)).convert(value));
+                } else {
+                    struct.put(field, columnSchemas != null ? ColumnTypeInference.convert(value, field.schema()) : value);
+                }
             }
 
-            return new RecordModel(struct, schema);
+            return recordModel.set(struct, schema, key);
+        } else if (keyExtractor != null) {
+            if (!split) {
+                fieldTokenizer.split(line);
+            }
+            return recordModel.set(line, Schema.STRING_SCHEMA, keyExtractor.extract(fieldTokenizer));
         } else {
-            return new RecordModel(line, Schema.STRING_SCHEMA);
+            return recordModel.set(line, Schema.STRING_SCHEMA, null);
         }
     }
 
     private Schema getOrBuildSchema(int fieldCount) {
-        String currentSignature = calculateSchemaSignature(fieldCount);
-
-        if (cachedSchema != null && cachedSchemaSignature.equals(currentSignature)) {
-            return cachedSchema;
+        Schema schema = schemaCache.get(fieldCount);
+        if (schema != null) {
+            return schema;
         }
 
         SchemaBuilder builder = SchemaBuilder.struct().optional();
         for (int i = 0; i < fieldCount; i++) {
-            builder.field(getFieldName(i), Schema.OPTIONAL_STRING_SCHEMA);
+            int column = projectedColumns != null ? projectedColumns[i] : i;
+            builder.field(getFieldName(column), getFieldSchema(i, column));
         }
 
-        cachedSchema = builder.build();
-        cachedSchemaSignature = currentSignature;
-        return cachedSchema;
+        schema = builder.build();
+        schemaCache.put(fieldCount, schema);
+        return schema;
     }
 
-    private Schema buildSchemaFromHeaders(List<String> headers) {
-        SchemaBuilder builder = SchemaBuilder.struct().optional();
-        for (String header : headers) {
-            builder.field(header, Schema.OPTIONAL_STRING_SCHEMA);
+    /**
+     * Creates the tokenizer of record fields, keeping only the projected columns
+     */
+    private LineTokenizer createFieldTokenizer() {
+        BitSet columns = null;
+        if (projectedColumns != null) {
+            columns = new BitSet();
+            for (int column : projectedColumns) {
+                columns.set(column);
+            }
+            log.info("Projecting columns {}", columns);
+        }
+        if (fixedWidthLayout != null) {
+            return new FixedWidthTokenizer(fixedWidthLayout, columns);
+        }
+        return new DelimitedTokenizer(tokenizer, quoteChar, escapeChar, trimFields, columns);
+    }
+
+    /**
+     * Reads the first {@code inferenceSampleRows} rows of the current file on a separate read and infers
+     * the column types of its records. Ranges sample the head of the file, so all ranges of a file get
+     * the same schema. Footer lines are left out when the whole file fits in the sample.
+     */
+    private void inferColumnTypes() throws Exception {
+        long startTime = System.currentTimeMillis();
+        List<String> sample = new ArrayList<>();
+        boolean eof = false;
+        String headerRow = null;
+        openCurrentStream(0);
+        try {
+            LineReader sampleReader = LineReader.open(currentStream, charset, bufferSize, 0);
+            for (int i = 0; i < skipHeaderLines; i++) {
+                if (i == 0 && headerRowEnabled) {
+                    headerRow = sampleReader.readLine();
+                } else {
+                    sampleReader.skipLine();
+                }
+            }
+            while (sample.size() < inferenceSampleRows + skipFooterLines) {
+                String line = sampleReader.readLine();
+                if (line == null) {
+                    eof = true;
+                    break;
+                }
+                if (!isSkippedLine(line)) {
+                    sample.add(line);
+                }
+            }
+        } finally {
+            abortCurrentStream();
+        }
+        if (headerRowEnabled) {
+            applyHeaderRow(headerRow);
         }
-        return builder.build();
+
+        int rows = eof ? Math.max(0, sample.size() - skipFooterLines) : Math.min(sample.size(), inferenceSampleRows);
+        ColumnTypeInference inference = new ColumnTypeInference();
+        for (String line : sample.subList(0, rows)) {
+            fieldTokenizer.split(line);
+            inference.add(fieldTokenizer);
+        }
+        List<Schema> schemas = inference.getSchemas();
+        if (!schemas.equals(columnSchemas)) {
+            columnSchemas = schemas;
+            schemaCache.clear();
+        }
+
+        StringBuilder types = new StringBuilder();
+        for (Schema schema : columnSchemas) {
+            types.append(schema.name() != null ? schema.name() : schema.type())
+                    .append(schema.parameters() != null ? schema.parameters() : "").append(',');
+        }
+        log.info("Inferred column types {} of {} from {} rows in {} ms", types, currentFilename,
+                rows, System.currentTimeMillis() - startTime);
+    }
+
+    private Schema getFieldSchema(int field, int column) {
+        if (fixedWidthLayout != null) {
+            return fixedWidthLayout.get(column).getSchema();
+        }
+        return columnSchemas != null && field < columnSchemas.size() ? columnSchemas.get(field) : Schema.OPTIONAL_STRING_SCHEMA;
     }
 
     private String getFieldName(int index) {
@@ -503,19 +1813,12 @@ public class FtpSourceTaskEnhanced extends SourceTask {
                 : "field" + (index + 1);
     }
 
-    private String calculateSchemaSignature(int fieldCount) {
-        if (fieldHeaders != null && fieldHeaders.size() == fieldCount) {
-            return String.join(",", fieldHeaders);
-        }
-        return "fields:" + fieldCount;
-    }
-
-    private String calculateSchemaSignature(List<String> headers) {
-        return String.join(",", headers);
+    private boolean isCompressed(String filename) {
+        return autoDetectCompression && (filename.endsWith(".gz") || filename.endsWith(".gzip"));
     }
 
     private InputStream handleCompression(InputStream stream, String filename) throws IOException {
-        if (filename.endsWith(".gz") || filename.endsWith(".gzip")) {
+        if (isCompressed(filename)) {
             log.info("Detected GZIP compression for file: {}", filename);
             return new GZIPInputStream(stream);
         }
@@ -524,18 +1827,9 @@ public class FtpSourceTaskEnhanced extends SourceTask {
     }
 
     private String calculateHash(byte[] data) {
-        try {
-            MessageDigest md = MessageDigest.getInstance("MD5");
-            byte[] hash = md.digest(data);
-            StringBuilder sb = new StringBuilder();
-            for (byte b : hash) {
-                sb.append(String.format("%02x", b));
-            }
-            return sb.toString();
-        } catch (Exception e) {
-            log.warn("Failed to calculate file hash", e);
-            return "unknown";
-        }
+        FileFingerprint fullFingerprint = FileFingerprints.forAlgorithm(hashAlgorithm);
+        fullFingerprint.update(data, 0, data.length);
+        return fullFingerprint.getValue();
     }
 
     private byte[] readAllBytes(InputStream stream) throws IOException {
@@ -591,7 +1885,7 @@ public class FtpSourceTaskEnhanced extends SourceTask {
                     .put("error_type", errorType)
                     .put("error_message", errorMessage)
                     .put("source_file", currentFilename)
-                    .put("line_number", linesProcessed + linesSkipped)
+                    .put("line_number", lineNumber())
                     .put("timestamp", Instant.now().toString());
 
             SourceRecord dlqRecord = new SourceRecord(
@@ -599,7 +1893,7 @@ public class FtpSourceTaskEnhanced extends SourceTask {
                     sourceOffset,
                     dlqTopic,
                     Schema.STRING_SCHEMA,
-                    currentFilename + ":" + (linesProcessed + linesSkipped),
+                    currentFilename + ":" + lineNumber(),
                     errorSchema,
                     errorStruct
             );
@@ -610,4 +1904,42 @@ public class FtpSourceTaskEnhanced extends SourceTask {
             log.error("Failed to send record to DLQ", e);
         }
     }
+
+    /**
+     * Records of one file or range emitted but not yet committed. Once it is finished and none are left,
+     * the next poll deletes the staged file, or writes the done marker of the range, and the summary.
+     */
+    private static class FileProgress {
+        // the partition map of its records, matched by identity
+        final Map<String, Object> partition;
+        // null for a range, whose staged file is shared with other ranges
+        final String stagedPath;
+        // null for a whole file
+        final String markerPath;
+        final AtomicLong outstanding = new AtomicLong();
+        final AtomicBoolean released = new AtomicBoolean();
+        String summaryPath;
+        String summaryContent;
+        int dedupMerges;
+        // name of the local spool copy, deleted with the staged file
+        String spooledName;
+        // set last, so the fields above are visible to the thread that releases the file
+        volatile boolean finished;
+
+        FileProgress(Map<String, Object> partition, String stagedPath, String markerPath) {
+            this.partition = partition;
+            this.stagedPath = stagedPath;
+            this.markerPath = markerPath;
+        }
+    }
+
+    private static final class HashCheckpoint {
+        final long lines;
+        final String hash;
+
+        HashCheckpoint(long lines, String hash) {
+            this.lines = lines;
+            this.hash = hash;
+        }
+    }
 }
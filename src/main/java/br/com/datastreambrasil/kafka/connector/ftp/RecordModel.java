@@ -3,11 +3,27 @@ package br.com.datastreambrasil.kafka.connector.ftp;
 import org.apache.kafka.connect.data.Schema;
 
 public class RecordModel {
-    final Object value;
-    final Schema schema;
+    Object value;
+    Schema schema;
+    String key;
 
     RecordModel(Object value, Schema schema) {
+        this(value, schema, null);
+    }
+
+    RecordModel(Object value, Schema schema, String key) {
+        this.value = value;
+        this.schema = schema;
+        this.key = key;
+    }
+
+    /**
+     * Refills a model that is reused from record to record
+     */
+    RecordModel set(Object value, Schema schema, String key) {
         this.value = value;
         this.schema = schema;
+        this.key = key;
+        return this;
     }
 }
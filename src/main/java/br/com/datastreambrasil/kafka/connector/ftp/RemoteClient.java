@@ -1,5 +1,8 @@
 package br.com.datastreambrasil.kafka.connector.ftp;
 
+import br.com.datastreambrasil.kafka.connector.ftp.model.RemoteFileInfo;
+
+import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.Charset;
 import java.util.List;
@@ -9,8 +12,29 @@ public interface RemoteClient {
 
     List<String> listFiles(String directory, String pattern) throws Exception;
 
+    /**
+     * Same as listFiles, with the size and modification time the listing already carries
+     */
+    List<RemoteFileInfo> listFileInfos(String directory, String pattern) throws Exception;
+
+    /**
+     * Size and modification time of a single file, read from the server metadata
+     */
+    RemoteFileInfo getFileInfo(String filePath) throws Exception;
+
     InputStream retrieveFileStream(String filePath) throws Exception;
 
+    /**
+     * Retrieve a file starting at the given byte offset, used to resume without downloading the prefix again
+     */
+    InputStream retrieveFileStream(String filePath, long offset) throws Exception;
+
+    /**
+     * Finish a transfer opened by retrieveFileStream once its stream has been closed, for protocols that need it
+     */
+    default void completePending() throws IOException {
+    }
+
     void moveFile(String sourcePath, String destinationPath) throws Exception;
 
     void deleteFile(String path) throws Exception;
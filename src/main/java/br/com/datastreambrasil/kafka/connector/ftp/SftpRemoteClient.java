@@ -1,13 +1,18 @@
 package br.com.datastreambrasil.kafka.connector.ftp;
 
+import br.com.datastreambrasil.kafka.connector.ftp.model.RemoteFileInfo;
 import org.apache.sshd.client.SshClient;
 import org.apache.sshd.client.session.ClientSession;
 import org.apache.sshd.sftp.client.SftpClient;
 import org.apache.sshd.sftp.client.SftpClientFactory;
+import org.apache.sshd.sftp.client.SftpClient.Attributes;
+import org.apache.sshd.sftp.client.SftpClient.CloseableHandle;
 import org.apache.sshd.sftp.client.SftpClient.DirEntry;
+import org.apache.sshd.sftp.client.SftpClient.OpenMode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.charset.Charset;
@@ -66,11 +71,42 @@ public class SftpRemoteClient implements RemoteClient {
         return files;
     }
 
+    @Override
+    public List<RemoteFileInfo> listFileInfos(String directory, String pattern) throws Exception {
+        Pattern regex = Pattern.compile(pattern);
+        List<RemoteFileInfo> files = new ArrayList<>();
+
+        for (DirEntry entry : sftp.readDir(directory)) {
+            Attributes attributes = entry.getAttributes();
+            if (!attributes.isDirectory() && regex.matcher(entry.getFilename()).matches()) {
+                long lastModified = attributes.getModifyTime() != null ? attributes.getModifyTime().toMillis() : 0;
+                files.add(new RemoteFileInfo(directory + "/" + entry.getFilename(), attributes.getSize(), lastModified));
+            }
+        }
+
+        return files;
+    }
+
+    @Override
+    public RemoteFileInfo getFileInfo(String filePath) throws Exception {
+        Attributes attributes = sftp.stat(filePath);
+        long lastModified = attributes.getModifyTime() != null ? attributes.getModifyTime().toMillis() : 0;
+        return new RemoteFileInfo(filePath, attributes.getSize(), lastModified);
+    }
+
     @Override
     public InputStream retrieveFileStream(String filePath) throws Exception {
         return sftp.read(filePath);
     }
 
+    @Override
+    public InputStream retrieveFileStream(String filePath, long offset) throws Exception {
+        if (offset <= 0) {
+            return retrieveFileStream(filePath);
+        }
+        return new PositionedInputStream(sftp, sftp.open(filePath, OpenMode.Read), offset);
+    }
+
     @Override
     public void moveFile(String sourcePath, String destinationPath) throws Exception {
         sftp.rename(sourcePath, destinationPath);
@@ -103,4 +139,49 @@ public class SftpRemoteClient implements RemoteClient {
             log.warn("Error while disconnecting from SFTP", e);
         }
     }
+
+    /**
+     * Reads a remote file from a given offset using positioned SFTP reads on an open handle
+     */
+    static class PositionedInputStream extends InputStream {
+        private final SftpClient sftp;
+        private final CloseableHandle handle;
+        private long position;
+        private boolean eof = false;
+
+        PositionedInputStream(SftpClient sftp, CloseableHandle handle, long position) {
+            this.sftp = sftp;
+            this.handle = handle;
+            this.position = position;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            int n = read(single, 0, 1);
+            return n < 0 ? -1 : single[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (eof) {
+                return -1;
+            }
+            if (len == 0) {
+                return 0;
+            }
+            int n = sftp.read(handle, position, b, off, len);
+            if (n < 0) {
+                eof = true;
+                return -1;
+            }
+            position += n;
+            return n;
+        }
+
+        @Override
+        public void close() throws IOException {
+            handle.close();
+        }
+    }
 }
@@ -0,0 +1,138 @@
+package br.com.datastreambrasil.kafka.connector.ftp.dedup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Fixed-size Bloom filter over a 128-bit hash of each element, using double hashing to derive the
+ * bit positions. The bits live in a heap or direct {@link ByteBuffer}, so large filters can be kept
+ * off the Java heap. Not thread-safe.
+ */
+public class BloomFilter {
+
+    private final long bitCount;
+    private final int hashCount;
+    private final ByteBuffer buffer;
+    private final LongBuffer words;
+    private long insertions;
+
+    /**
+     * @param bitCount number of bits, rounded up to a multiple of 64
+     * @param hashCount number of bit positions per element
+     * @param offHeap whether to allocate the bits outside the Java heap
+     */
+    public BloomFilter(long bitCount, int hashCount, boolean offHeap) {
+        long wordCount = (bitCount + 63) / 64;
+        if (wordCount <= 0 || wordCount > Integer.MAX_VALUE / 8) {
+            throw new IllegalArgumentException("Bloom filter size out of range: " + bitCount + " bits");
+        }
+        if (hashCount < 1) {
+            throw new IllegalArgumentException("Bloom filter needs at least one hash: " + hashCount);
+        }
+        this.bitCount = wordCount * 64;
+        this.hashCount = hashCount;
+        this.buffer = offHeap ? ByteBuffer.allocateDirect((int) wordCount * 8) : ByteBuffer.allocate((int) wordCount * 8);
+        this.words = buffer.asLongBuffer();
+    }
+
+    /**
+     * Number of bits that keeps the false positive rate at {@code fpp} up to {@code capacity} elements
+     */
+    public static long optimalBitCount(long capacity, double fpp) {
+        return (long) Math.ceil(-capacity * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+    }
+
+    /**
+     * Number of elements {@code bitCount} bits hold at the false positive rate {@code fpp}
+     */
+    public static long capacity(long bitCount, double fpp) {
+        return (long) (bitCount * Math.log(2) * Math.log(2) / -Math.log(fpp));
+    }
+
+    public static int optimalHashCount(double fpp) {
+        return Math.max(1, (int) Math.round(-Math.log(fpp) / Math.log(2)));
+    }
+
+    public void put(long h1, long h2) {
+        long combined = h1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = (combined & Long.MAX_VALUE) % bitCount;
+            int word = (int) (bit >>> 6);
+            words.put(word, words.get(word) | (1L << bit));
+            combined += h2;
+        }
+        insertions++;
+    }
+
+    public boolean mightContain(long h1, long h2) {
+        long combined = h1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = (combined & Long.MAX_VALUE) % bitCount;
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+            combined += h2;
+        }
+        return true;
+    }
+
+    /**
+     * Adds every element of a filter of the same size
+     */
+    public void merge(BloomFilter other) {
+        if (other.bitCount != bitCount || other.hashCount != hashCount) {
+            throw new IllegalArgumentException("Cannot merge Bloom filters of different sizes");
+        }
+        for (int i = 0, n = words.capacity(); i < n; i++) {
+            words.put(i, words.get(i) | other.words.get(i));
+        }
+        insertions += other.insertions;
+    }
+
+    public void clear() {
+        for (int i = 0, n = words.capacity(); i < n; i++) {
+            words.put(i, 0L);
+        }
+        insertions = 0;
+    }
+
+    public long getBitCount() {
+        return bitCount;
+    }
+
+    public int getHashCount() {
+        return hashCount;
+    }
+
+    /**
+     * Number of elements put, including those already present
+     */
+    public long getInsertions() {
+        return insertions;
+    }
+
+    void setInsertions(long insertions) {
+        this.insertions = insertions;
+    }
+
+    void writeTo(WritableByteChannel channel) throws IOException {
+        ByteBuffer bits = buffer.duplicate();
+        bits.clear();
+        while (bits.hasRemaining()) {
+            channel.write(bits);
+        }
+    }
+
+    void readFrom(ReadableByteChannel channel) throws IOException {
+        ByteBuffer bits = buffer.duplicate();
+        bits.clear();
+        while (bits.hasRemaining()) {
+            if (channel.read(bits) < 0) {
+                throw new IOException("Bloom filter file ends early");
+            }
+        }
+    }
+}
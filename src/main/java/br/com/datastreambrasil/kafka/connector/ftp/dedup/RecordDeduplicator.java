@@ -0,0 +1,162 @@
+package br.com.datastreambrasil.kafka.connector.ftp.dedup;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Remembers the rows of completed files in two rotating Bloom filter generations. A row is seen if
+ * either generation might contain it; rows are added to the current generation, and once it holds its
+ * capacity at the configured false positive rate the previous generation is dropped and the current one
+ * takes its place. Memory stays bounded and the oldest rows are forgotten first.
+ * <p>
+ * Rows of the file being read are collected in a separate filter from {@link #newFileFilter()} and only
+ * merged when the file is done, so rows replayed after a restart are not mistaken for duplicates. With a
+ * path, the generations are saved once the records of every merged file are acknowledged, and loaded
+ * again on start.
+ * <p>
+ * The memory budget is split evenly between the two generations and the file filters, one for each
+ * reader sharing the deduplicator: the task, or each of its file workers.
+ */
+public class RecordDeduplicator {
+
+    private static final Logger log = LoggerFactory.getLogger(RecordDeduplicator.class);
+    private static final int MAGIC = 0x46445550;
+    private static final int HEADER_BYTES = 40;
+
+    private final long bitCount;
+    private final int hashCount;
+    private final long capacity;
+    private final boolean offHeap;
+    private final Path path;
+    private BloomFilter current;
+    private BloomFilter previous;
+    private int unacknowledgedMerges;
+
+    /**
+     * @param memoryBytes budget of the two generations and the file filters together
+     * @param fileFilters number of file filters that will be taken from {@link #newFileFilter()}
+     * @param fpp false positive rate of a full generation
+     * @param path file the generations are saved to, or null to keep them in memory only
+     */
+    public RecordDeduplicator(long memoryBytes, int fileFilters, double fpp, boolean offHeap, Path path) {
+        if (fpp <= 0 || fpp >= 1) {
+            throw new IllegalArgumentException("False positive rate must be between 0 and 1: " + fpp);
+        }
+        this.bitCount = Math.max(64, memoryBytes * 8 / (2 + Math.max(1, fileFilters)) / 64 * 64);
+        this.hashCount = BloomFilter.optimalHashCount(fpp);
+        this.capacity = Math.max(1, BloomFilter.capacity(bitCount, fpp));
+        this.offHeap = offHeap;
+        this.path = path;
+        this.current = new BloomFilter(bitCount, hashCount, offHeap);
+        this.previous = new BloomFilter(bitCount, hashCount, offHeap);
+        if (path != null) {
+            load();
+        }
+    }
+
+    /**
+     * A filter of the generation size for the rows of one file
+     */
+    public BloomFilter newFileFilter() {
+        return new BloomFilter(bitCount, hashCount, offHeap);
+    }
+
+    /**
+     * Rows a generation holds before it rotates
+     */
+    public long getCapacity() {
+        return capacity;
+    }
+
+    public synchronized boolean mightContain(long h1, long h2) {
+        return current.mightContain(h1, h2) || previous.mightContain(h1, h2);
+    }
+
+    /**
+     * Adds the rows of a file filter, rotating first if the current generation would go over capacity.
+     * The rows are not saved before the merge is acknowledged.
+     */
+    public synchronized void merge(BloomFilter fileFilter) {
+        unacknowledgedMerges++;
+        if (current.getInsertions() > 0 && current.getInsertions() + fileFilter.getInsertions() > capacity) {
+            BloomFilter dropped = previous;
+            previous = current;
+            dropped.clear();
+            current = dropped;
+            log.info("Rotated deduplication filter after {} rows", previous.getInsertions());
+        }
+        current.merge(fileFilter);
+    }
+
+    /**
+     * Marks merges whose records were committed, and saves once no merge is left unacknowledged, so that a
+     * saved state never holds rows that are replayed after a restart
+     */
+    public synchronized void acknowledge(int merges) throws IOException {
+        unacknowledgedMerges = Math.max(0, unacknowledgedMerges - merges);
+        if (unacknowledgedMerges == 0) {
+            save();
+        }
+    }
+
+    /**
+     * Writes the generations to the path, if any, replacing the previous file atomically
+     */
+    public synchronized void save() throws IOException {
+        if (path == null) {
+            return;
+        }
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putInt(MAGIC).putLong(bitCount).putInt(hashCount).putLong(capacity)
+                    .putLong(current.getInsertions()).putLong(previous.getInsertions()).flip();
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+            current.writeTo(channel);
+            previous.writeTo(channel);
+            channel.force(true);
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void load() {
+        if (!Files.exists(path)) {
+            log.info("No deduplication state at {}, starting empty", path);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // fill the header
+            }
+            header.flip();
+            if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC || header.getLong() != bitCount
+                    || header.getInt() != hashCount || header.getLong() != capacity) {
+                log.warn("Deduplication state at {} was written with another size or false positive rate, starting empty", path);
+                return;
+            }
+            long currentInsertions = header.getLong();
+            long previousInsertions = header.getLong();
+            current.readFrom(channel);
+            previous.readFrom(channel);
+            current.setInsertions(currentInsertions);
+            previous.setInsertions(previousInsertions);
+            log.info("Loaded deduplication state of {} rows from {}", currentInsertions + previousInsertions, path);
+        } catch (IOException e) {
+            log.warn("Failed to load deduplication state from {}, starting empty: {}", path, e.getMessage());
+            current.clear();
+            previous.clear();
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package br.com.datastreambrasil.kafka.connector.ftp.hash;
+
+/**
+ * Incremental fingerprint of file contents, fed while the data streams through the parser
+ */
+public interface FileFingerprint {
+    /**
+     * Name of the algorithm, as stored in the source offset
+     */
+    String getAlgorithm();
+
+    /**
+     * Add bytes to the fingerprint
+     */
+    void update(byte[] data, int offset, int length);
+
+    /**
+     * Hex value of everything seen so far. Does not reset the state, so it can be used as a checkpoint
+     */
+    String getValue();
+}
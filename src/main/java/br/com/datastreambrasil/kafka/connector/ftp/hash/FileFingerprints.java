@@ -0,0 +1,219 @@
+package br.com.datastreambrasil.kafka.connector.ftp.hash;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.zip.CRC32C;
+
+/**
+ * Built-in file fingerprint algorithms
+ */
+public class FileFingerprints {
+
+    public static final String MD5 = "md5";
+    public static final String CRC32C = "crc32c";
+    public static final String XXHASH64 = "xxhash64";
+
+    public static FileFingerprint forAlgorithm(String algorithm) {
+        switch (algorithm.trim().toLowerCase()) {
+            case MD5:
+                return md5();
+            case CRC32C:
+                return crc32c();
+            case XXHASH64:
+                return xxHash64();
+            default:
+                throw new IllegalArgumentException("Unknown fingerprint algorithm: " + algorithm);
+        }
+    }
+
+    public static FileFingerprint md5() {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 not available", e);
+        }
+
+        return new FileFingerprint() {
+            @Override
+            public String getAlgorithm() {
+                return MD5;
+            }
+
+            @Override
+            public void update(byte[] data, int offset, int length) {
+                digest.update(data, offset, length);
+            }
+
+            @Override
+            public String getValue() {
+                try {
+                    return toHex(((MessageDigest) digest.clone()).digest());
+                } catch (CloneNotSupportedException e) {
+                    throw new IllegalStateException("MD5 digest cannot be checkpointed", e);
+                }
+            }
+        };
+    }
+
+    public static FileFingerprint crc32c() {
+        final CRC32C crc = new CRC32C();
+
+        return new FileFingerprint() {
+            @Override
+            public String getAlgorithm() {
+                return CRC32C;
+            }
+
+            @Override
+            public void update(byte[] data, int offset, int length) {
+                crc.update(data, offset, length);
+            }
+
+            @Override
+            public String getValue() {
+                return String.format("%08x", crc.getValue());
+            }
+        };
+    }
+
+    public static FileFingerprint xxHash64() {
+        return new XxHash64();
+    }
+
+    static String toHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xf, 16));
+            sb.append(Character.forDigit(b & 0xf, 16));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Streaming XXH64 with seed 0, following the reference implementation
+     */
+    static class XxHash64 implements FileFingerprint {
+        private static final long P1 = 0x9E3779B185EBCA87L;
+        private static final long P2 = 0xC2B2AE3D27D4EB4FL;
+        private static final long P3 = 0x165667B19E3779F9L;
+        private static final long P4 = 0x85EBCA77C2B2AE63L;
+        private static final long P5 = 0x27D4EB2F165667C5L;
+
+        private long v1 = P1 + P2;
+        private long v2 = P2;
+        private long v3 = 0;
+        private long v4 = -P1;
+        private long totalLength = 0;
+        private final byte[] buffer = new byte[32];
+        private int buffered = 0;
+
+        @Override
+        public String getAlgorithm() {
+            return XXHASH64;
+        }
+
+        @Override
+        public void update(byte[] data, int offset, int length) {
+            totalLength += length;
+            int end = offset + length;
+
+            if (buffered + length < 32) {
+                System.arraycopy(data, offset, buffer, buffered, length);
+                buffered += length;
+                return;
+            }
+
+            if (buffered > 0) {
+                int fill = 32 - buffered;
+                System.arraycopy(data, offset, buffer, buffered, fill);
+                processStripe(buffer, 0);
+                offset += fill;
+                buffered = 0;
+            }
+
+            while (offset + 32 <= end) {
+                processStripe(data, offset);
+                offset += 32;
+            }
+
+            buffered = end - offset;
+            System.arraycopy(data, offset, buffer, 0, buffered);
+        }
+
+        @Override
+        public String getValue() {
+            long h;
+            if (totalLength >= 32) {
+                h = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+                h = mergeRound(h, v1);
+                h = mergeRound(h, v2);
+                h = mergeRound(h, v3);
+                h = mergeRound(h, v4);
+            } else {
+                h = P5;
+            }
+            h += totalLength;
+
+            int p = 0;
+            while (p + 8 <= buffered) {
+                h ^= round(0, readLong(buffer, p));
+                h = Long.rotateLeft(h, 27) * P1 + P4;
+                p += 8;
+            }
+            if (p + 4 <= buffered) {
+                h ^= (readInt(buffer, p) & 0xFFFFFFFFL) * P1;
+                h = Long.rotateLeft(h, 23) * P2 + P3;
+                p += 4;
+            }
+            while (p < buffered) {
+                h ^= (buffer[p] & 0xFFL) * P5;
+                h = Long.rotateLeft(h, 11) * P1;
+                p++;
+            }
+
+            h ^= h >>> 33;
+            h *= P2;
+            h ^= h >>> 29;
+            h *= P3;
+            h ^= h >>> 32;
+            return String.format("%016x", h);
+        }
+
+        private void processStripe(byte[] data, int offset) {
+            v1 = round(v1, readLong(data, offset));
+            v2 = round(v2, readLong(data, offset + 8));
+            v3 = round(v3, readLong(data, offset + 16));
+            v4 = round(v4, readLong(data, offset + 24));
+        }
+
+        private static long round(long acc, long input) {
+            acc += input * P2;
+            acc = Long.rotateLeft(acc, 31);
+            return acc * P1;
+        }
+
+        private static long mergeRound(long acc, long value) {
+            acc ^= round(0, value);
+            return acc * P1 + P4;
+        }
+
+        private static long readLong(byte[] b, int i) {
+            return (b[i] & 0xFFL)
+                    | (b[i + 1] & 0xFFL) << 8
+                    | (b[i + 2] & 0xFFL) << 16
+                    | (b[i + 3] & 0xFFL) << 24
+                    | (b[i + 4] & 0xFFL) << 32
+                    | (b[i + 5] & 0xFFL) << 40
+                    | (b[i + 6] & 0xFFL) << 48
+                    | (b[i + 7] & 0xFFL) << 56;
+        }
+
+        private static int readInt(byte[] b, int i) {
+            return (b[i] & 0xFF)
+                    | (b[i + 1] & 0xFF) << 8
+                    | (b[i + 2] & 0xFF) << 16
+                    | (b[i + 3] & 0xFF) << 24;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package br.com.datastreambrasil.kafka.connector.ftp.hash;
+
+import br.com.datastreambrasil.kafka.connector.ftp.RemoteClient;
+import br.com.datastreambrasil.kafka.connector.ftp.model.RemoteFileInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Identifies a remote file from its metadata instead of its full content.
+ * The identity is {@code size:mtime}, optionally followed by fingerprints of the first and
+ * last {@code sampleBytes} bytes fetched with ranged reads, e.g. {@code 81920:1700000000000:1a2b3c4d:5e6f7a8b}.
+ */
+public class FileIdentityResolver {
+    private static final Logger log = LoggerFactory.getLogger(FileIdentityResolver.class);
+
+    public static final String STRATEGY_CONTENT = "content";
+    public static final String STRATEGY_METADATA = "metadata";
+
+    private final RemoteClient client;
+    private final int sampleBytes;
+    private final String algorithm;
+
+    public FileIdentityResolver(RemoteClient client, int sampleBytes, String algorithm) {
+        this.client = client;
+        this.sampleBytes = sampleBytes;
+        this.algorithm = algorithm;
+    }
+
+    /**
+     * Returns the identity of the given file, or null if the server does not report its metadata
+     */
+    public String resolve(String filePath) throws Exception {
+        long startTime = System.currentTimeMillis();
+        RemoteFileInfo info = client.getFileInfo(filePath);
+        if (info == null) {
+            return null;
+        }
+
+        long size = info.getSize();
+        StringBuilder identity = new StringBuilder().append(size).append(':').append(info.getLastModified());
+        if (sampleBytes > 0 && size > 0) {
+            long headLength = Math.min(sampleBytes, size);
+            identity.append(':').append(sample(filePath, 0, headLength));
+            if (size > headLength) {
+                // the tail never overlaps the head, so small files are not sampled twice
+                long tailStart = Math.max(headLength, size - sampleBytes);
+                identity.append(':').append(sample(filePath, tailStart, size - tailStart));
+            }
+        }
+
+        log.info("Resolved identity of {} in {} ms: {}", filePath, System.currentTimeMillis() - startTime, identity);
+        return identity.toString();
+    }
+
+    private String sample(String filePath, long offset, long length) throws Exception {
+        FileFingerprint fingerprint = FileFingerprints.forAlgorithm(algorithm);
+        byte[] buffer = new byte[(int) Math.min(length, 8192)];
+        long remaining = length;
+
+        InputStream stream = offset > 0
+                ? client.retrieveFileStream(filePath, offset)
+                : client.retrieveFileStream(filePath);
+        try {
+            int read;
+            while (remaining > 0 && (read = stream.read(buffer, 0, (int) Math.min(buffer.length, remaining))) != -1) {
+                fingerprint.update(buffer, 0, read);
+                remaining -= read;
+            }
+        } finally {
+            stream.close();
+            try {
+                client.completePending();
+            } catch (IOException e) {
+                // expected when the head sample stops the transfer before the end of the file
+                log.debug("Sample transfer of {} ended early: {}", filePath, e.getMessage());
+            }
+        }
+        return fingerprint.getValue();
+    }
+}
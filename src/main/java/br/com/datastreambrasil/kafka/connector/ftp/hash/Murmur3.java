@@ -0,0 +1,166 @@
+package br.com.datastreambrasil.kafka.connector.ftp.hash;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * MurmurHash3 x64 128-bit, used to shorten long record keys to a fixed length and to hash rows for
+ * deduplication. Not cryptographic.
+ */
+public final class Murmur3 {
+
+    private static final long C1 = 0x87C37B91114253D5L;
+    private static final long C2 = 0x4CF5AD432745937FL;
+
+    private Murmur3() {
+    }
+
+    /**
+     * Hashes the UTF-8 bytes of the text with seed 0
+     * @return 32 hex characters, the two 64-bit halves in little-endian byte order
+     */
+    public static String hash128Hex(CharSequence text) {
+        byte[] data = text.toString().getBytes(StandardCharsets.UTF_8);
+        long[] hash = hash128(data, 0, data.length, 0);
+        StringBuilder sb = new StringBuilder(32);
+        appendLittleEndianHex(sb, hash[0]);
+        appendLittleEndianHex(sb, hash[1]);
+        return sb.toString();
+    }
+
+    public static long[] hash128(byte[] data, int offset, int length, long seed) {
+        long[] hash = new long[2];
+        hash128(data, offset, length, seed, hash);
+        return hash;
+    }
+
+    /**
+     * Hashes bytes into {@code out}, which receives the two 64-bit halves
+     */
+    public static void hash128(byte[] data, int offset, int length, long seed, long[] out) {
+        long h1 = seed;
+        long h2 = seed;
+        int end = offset + length;
+        int p = offset;
+
+        while (p + 16 <= end) {
+            long k1 = readLong(data, p);
+            long k2 = readLong(data, p + 8);
+            p += 16;
+
+            h1 ^= mixK1(k1);
+            h1 = Long.rotateLeft(h1, 27) + h2;
+            h1 = h1 * 5 + 0x52DCE729;
+
+            h2 ^= mixK2(k2);
+            h2 = Long.rotateLeft(h2, 31) + h1;
+            h2 = h2 * 5 + 0x38495AB5;
+        }
+
+        long k1 = 0;
+        long k2 = 0;
+        int tail = end - p;
+        for (int i = tail - 1; i >= 8; i--) {
+            k2 ^= (data[p + i] & 0xFFL) << ((i - 8) * 8);
+        }
+        for (int i = Math.min(tail, 8) - 1; i >= 0; i--) {
+            k1 ^= (data[p + i] & 0xFFL) << (i * 8);
+        }
+        finish(h1, h2, k1, k2, tail, length, out);
+    }
+
+    /**
+     * Hashes the UTF-16 code units of the text without encoding it, the same as hashing its UTF-16LE bytes
+     */
+    public static void hash128(CharSequence text, long seed, long[] out) {
+        long h1 = seed;
+        long h2 = seed;
+        int end = text.length();
+        int p = 0;
+
+        while (p + 8 <= end) {
+            long k1 = readChars(text, p, 4);
+            long k2 = readChars(text, p + 4, 4);
+            p += 8;
+
+            h1 ^= mixK1(k1);
+            h1 = Long.rotateLeft(h1, 27) + h2;
+            h1 = h1 * 5 + 0x52DCE729;
+
+            h2 ^= mixK2(k2);
+            h2 = Long.rotateLeft(h2, 31) + h1;
+            h2 = h2 * 5 + 0x38495AB5;
+        }
+
+        int tail = end - p;
+        long k1 = readChars(text, p, Math.min(tail, 4));
+        long k2 = tail > 4 ? readChars(text, p + 4, tail - 4) : 0;
+        finish(h1, h2, k1, k2, tail * 2, end * 2, out);
+    }
+
+    private static void finish(long h1, long h2, long k1, long k2, int tailBytes, int length, long[] out) {
+        if (tailBytes > 8) {
+            h2 ^= mixK2(k2);
+        }
+        if (tailBytes > 0) {
+            h1 ^= mixK1(k1);
+        }
+
+        h1 ^= length;
+        h2 ^= length;
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix64(h1);
+        h2 = fmix64(h2);
+        h1 += h2;
+        h2 += h1;
+        out[0] = h1;
+        out[1] = h2;
+    }
+
+    private static long mixK1(long k1) {
+        k1 *= C1;
+        k1 = Long.rotateLeft(k1, 31);
+        return k1 * C2;
+    }
+
+    private static long mixK2(long k2) {
+        k2 *= C2;
+        k2 = Long.rotateLeft(k2, 33);
+        return k2 * C1;
+    }
+
+    private static long fmix64(long k) {
+        k ^= k >>> 33;
+        k *= 0xFF51AFD7ED558CCDL;
+        k ^= k >>> 33;
+        k *= 0xC4CEB9FE1A85EC53L;
+        k ^= k >>> 33;
+        return k;
+    }
+
+    private static long readLong(byte[] b, int i) {
+        return (b[i] & 0xFFL)
+                | (b[i + 1] & 0xFFL) << 8
+                | (b[i + 2] & 0xFFL) << 16
+                | (b[i + 3] & 0xFFL) << 24
+                | (b[i + 4] & 0xFFL) << 32
+                | (b[i + 5] & 0xFFL) << 40
+                | (b[i + 6] & 0xFFL) << 48
+                | (b[i + 7] & 0xFFL) << 56;
+    }
+
+    private static long readChars(CharSequence text, int index, int count) {
+        long value = 0;
+        for (int i = 0; i < count; i++) {
+            value |= (long) text.charAt(index + i) << (i * 16);
+        }
+        return value;
+    }
+
+    private static void appendLittleEndianHex(StringBuilder sb, long value) {
+        for (int i = 0; i < 8; i++) {
+            int b = (int) (value >>> (i * 8)) & 0xFF;
+            sb.append(Character.forDigit(b >>> 4, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+    }
+}
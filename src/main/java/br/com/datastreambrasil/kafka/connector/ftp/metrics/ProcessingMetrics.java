@@ -11,6 +11,8 @@ public class ProcessingMetrics {
     private final AtomicLong totalBytesProcessed = new AtomicLong(0);
     private final AtomicLong totalErrors = new AtomicLong(0);
     private final AtomicLong totalValidationErrors = new AtomicLong(0);
+    private final AtomicLong totalDedupHits = new AtomicLong(0);
+    private final AtomicLong totalDedupMisses = new AtomicLong(0);
 
     private volatile long currentFileStartTime = 0;
     private volatile long currentFileLinesProcessed = 0;
@@ -46,6 +48,27 @@ public class ProcessingMetrics {
         totalValidationErrors.incrementAndGet();
     }
 
+    public void incrementDedupHits() {
+        totalDedupHits.incrementAndGet();
+    }
+
+    public void incrementDedupMisses() {
+        totalDedupMisses.incrementAndGet();
+    }
+
+    /**
+     * Adds the totals of another task, such as a file worker; its current file is left out
+     */
+    public void addTotals(ProcessingMetrics other) {
+        totalFilesProcessed.addAndGet(other.getTotalFilesProcessed());
+        totalLinesProcessed.addAndGet(other.getTotalLinesProcessed());
+        totalBytesProcessed.addAndGet(other.getTotalBytesProcessed());
+        totalErrors.addAndGet(other.getTotalErrors());
+        totalValidationErrors.addAndGet(other.getTotalValidationErrors());
+        totalDedupHits.addAndGet(other.getTotalDedupHits());
+        totalDedupMisses.addAndGet(other.getTotalDedupMisses());
+    }
+
     // Getters
     public long getTotalFilesProcessed() {
         return totalFilesProcessed.get();
@@ -67,6 +90,14 @@ public class ProcessingMetrics {
         return totalValidationErrors.get();
     }
 
+    public long getTotalDedupHits() {
+        return totalDedupHits.get();
+    }
+
+    public long getTotalDedupMisses() {
+        return totalDedupMisses.get();
+    }
+
     public long getCurrentFileStartTime() {
         return currentFileStartTime;
     }
@@ -95,6 +126,8 @@ public class ProcessingMetrics {
         totalBytesProcessed.set(0);
         totalErrors.set(0);
         totalValidationErrors.set(0);
+        totalDedupHits.set(0);
+        totalDedupMisses.set(0);
         currentFileStartTime = 0;
         currentFileLinesProcessed = 0;
         currentFileName = null;
@@ -108,6 +141,8 @@ public class ProcessingMetrics {
                ", totalBytesProcessed=" + totalBytesProcessed +
                ", totalErrors=" + totalErrors +
                ", totalValidationErrors=" + totalValidationErrors +
+               ", totalDedupHits=" + totalDedupHits +
+               ", totalDedupMisses=" + totalDedupMisses +
                ", currentFileName='" + currentFileName + '\'' +
                ", currentFileDurationMs=" + getCurrentFileDurationMs() +
                ", currentFileLinesProcessed=" + currentFileLinesProcessed +
@@ -14,13 +14,42 @@ public class FileOffset {
     private final long lineNumber;
     private final long lastModified;
     private final long fileSize;
+    private final String hashAlgorithm;
+    private final long checkpointLine;
+    private final String checkpointHash;
+    private final long bytePosition;
+    private final Integer lineHash;
+    private final String fileIdentity;
 
     public FileOffset(String filename, String fileHash, long lineNumber, long lastModified, long fileSize) {
+        this(filename, fileHash, lineNumber, lastModified, fileSize, null, 0, null);
+    }
+
+    public FileOffset(String filename, String fileHash, long lineNumber, long lastModified, long fileSize,
+                      String fileIdentity) {
+        this(filename, fileHash, lineNumber, lastModified, fileSize, null, 0, null, -1, null, fileIdentity);
+    }
+
+    public FileOffset(String filename, String fileHash, long lineNumber, long lastModified, long fileSize,
+                      String hashAlgorithm, long checkpointLine, String checkpointHash) {
+        this(filename, fileHash, lineNumber, lastModified, fileSize, hashAlgorithm, checkpointLine, checkpointHash,
+                -1, null, null);
+    }
+
+    public FileOffset(String filename, String fileHash, long lineNumber, long lastModified, long fileSize,
+                      String hashAlgorithm, long checkpointLine, String checkpointHash,
+                      long bytePosition, Integer lineHash, String fileIdentity) {
         this.filename = filename;
         this.fileHash = fileHash;
         this.lineNumber = lineNumber;
         this.lastModified = lastModified;
         this.fileSize = fileSize;
+        this.hashAlgorithm = hashAlgorithm;
+        this.checkpointLine = checkpointLine;
+        this.checkpointHash = checkpointHash;
+        this.bytePosition = bytePosition;
+        this.lineHash = lineHash;
+        this.fileIdentity = fileIdentity;
     }
 
     public String getFilename() {
@@ -43,6 +72,45 @@ public class FileOffset {
         return fileSize;
     }
 
+    public String getHashAlgorithm() {
+        return hashAlgorithm;
+    }
+
+    /**
+     * Number of lines covered by the prefix checkpoint
+     */
+    public long getCheckpointLine() {
+        return checkpointLine;
+    }
+
+    /**
+     * Fingerprint of the first {@link #getCheckpointLine()} lines of the file
+     */
+    public String getCheckpointHash() {
+        return checkpointHash;
+    }
+
+    /**
+     * Byte position in the uncompressed file where line {@link #getLineNumber()} starts, -1 if unknown
+     */
+    public long getBytePosition() {
+        return bytePosition;
+    }
+
+    /**
+     * Hash of the line starting at {@link #getBytePosition()}, used to verify the position on resume
+     */
+    public Integer getLineHash() {
+        return lineHash;
+    }
+
+    /**
+     * Identity built from the remote metadata (size, mtime and sampled hashes), null when content hashing is used
+     */
+    public String getFileIdentity() {
+        return fileIdentity;
+    }
+
     /**
      * Convert to Map for Kafka Connect offset storage
      */
@@ -53,6 +121,18 @@ public class FileOffset {
         map.put("line_number", lineNumber);
         map.put("last_modified", lastModified);
         map.put("file_size", fileSize);
+        if (checkpointHash != null) {
+            map.put("hash_algorithm", hashAlgorithm);
+            map.put("hash_checkpoint_line", checkpointLine);
+            map.put("hash_checkpoint", checkpointHash);
+        }
+        if (bytePosition >= 0 && lineHash != null) {
+            map.put("byte_position", bytePosition);
+            map.put("line_hash", lineHash);
+        }
+        if (fileIdentity != null) {
+            map.put("file_identity", fileIdentity);
+        }
         return map;
     }
 
@@ -69,21 +149,39 @@ public class FileOffset {
             (String) map.get("file_hash"),
             ((Number) map.getOrDefault("line_number", 0L)).longValue(),
             ((Number) map.getOrDefault("last_modified", 0L)).longValue(),
-            ((Number) map.getOrDefault("file_size", 0L)).longValue()
+            ((Number) map.getOrDefault("file_size", 0L)).longValue(),
+            (String) map.get("hash_algorithm"),
+            ((Number) map.getOrDefault("hash_checkpoint_line", 0L)).longValue(),
+            (String) map.get("hash_checkpoint"),
+            ((Number) map.getOrDefault("byte_position", -1L)).longValue(),
+            map.get("line_hash") != null ? ((Number) map.get("line_hash")).intValue() : null,
+            (String) map.get("file_identity")
         );
     }
 
     /**
-     * Check if this represents the same file (hash and size match)
+     * Check if this represents the same file. The remote identity is compared when both offsets
+     * carry one, otherwise the content hash and size must match.
      */
     public boolean isSameFile(FileOffset other) {
         if (other == null) {
             return false;
         }
+        if (this.fileIdentity != null && other.fileIdentity != null) {
+            return this.fileIdentity.equals(other.fileIdentity);
+        }
         return Objects.equals(this.fileHash, other.fileHash) &&
                this.fileSize == other.fileSize;
     }
 
+    /**
+     * Check if this offset carries a prefix checkpoint computed with the given algorithm
+     */
+    public boolean hasCheckpoint(String algorithm) {
+        return checkpointHash != null && checkpointLine > 0 &&
+               hashAlgorithm != null && hashAlgorithm.equalsIgnoreCase(algorithm);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -92,13 +190,20 @@ public class FileOffset {
         return lineNumber == that.lineNumber &&
                lastModified == that.lastModified &&
                fileSize == that.fileSize &&
+               checkpointLine == that.checkpointLine &&
+               bytePosition == that.bytePosition &&
                Objects.equals(filename, that.filename) &&
-               Objects.equals(fileHash, that.fileHash);
+               Objects.equals(fileHash, that.fileHash) &&
+               Objects.equals(hashAlgorithm, that.hashAlgorithm) &&
+               Objects.equals(checkpointHash, that.checkpointHash) &&
+               Objects.equals(lineHash, that.lineHash) &&
+               Objects.equals(fileIdentity, that.fileIdentity);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(filename, fileHash, lineNumber, lastModified, fileSize);
+        return Objects.hash(filename, fileHash, lineNumber, lastModified, fileSize,
+                hashAlgorithm, checkpointLine, checkpointHash, bytePosition, lineHash, fileIdentity);
     }
 
     @Override
@@ -109,6 +214,12 @@ public class FileOffset {
                ", lineNumber=" + lineNumber +
                ", lastModified=" + lastModified +
                ", fileSize=" + fileSize +
+               ", hashAlgorithm='" + hashAlgorithm + '\'' +
+               ", checkpointLine=" + checkpointLine +
+               ", checkpointHash='" + checkpointHash + '\'' +
+               ", bytePosition=" + bytePosition +
+               ", lineHash=" + lineHash +
+               ", fileIdentity='" + fileIdentity + '\'' +
                '}';
     }
 }
@@ -0,0 +1,120 @@
+package br.com.datastreambrasil.kafka.connector.ftp.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.regex.Pattern;
+
+/**
+ * A byte range of a staged file processed by one task. A range owns every line that starts inside it,
+ * so the task reads past {@link #getEnd()} to finish its last line and skips the partial line at
+ * {@link #getStart()}, which belongs to the previous range.
+ */
+public class FileRange {
+
+    /**
+     * Suffix of the marker written next to the staged file once every record of a range is committed
+     */
+    public static final String DONE_SUFFIX = ".done";
+    public static final String MARKER_PATTERN = ".*\\.\\d+-\\d+" + Pattern.quote(DONE_SUFFIX);
+
+    private static final String SEPARATOR = "\t";
+
+    private final String path;
+    private final long start;
+    private final long end;
+    private final long fileSize;
+
+    public FileRange(String path, long start, long end, long fileSize) {
+        this.path = path;
+        this.start = start;
+        this.end = end;
+        this.fileSize = fileSize;
+    }
+
+    /**
+     * Cuts a file into consecutive ranges of {@code rangeBytes}, the last one holding the remainder
+     */
+    public static List<FileRange> split(String path, long fileSize, long rangeBytes) {
+        List<FileRange> ranges = new ArrayList<>();
+        for (long start = 0; start < fileSize; start += rangeBytes) {
+            ranges.add(new FileRange(path, start, Math.min(start + rangeBytes, fileSize), fileSize));
+        }
+        return ranges;
+    }
+
+    /**
+     * Reads a range written by {@link #format()}, or returns null for a plain file path
+     */
+    public static FileRange parse(String value) {
+        String[] parts = value.split(SEPARATOR);
+        if (parts.length != 4) {
+            return null;
+        }
+        return new FileRange(parts[0], Long.parseLong(parts[1]), Long.parseLong(parts[2]), Long.parseLong(parts[3]));
+    }
+
+    public String format() {
+        return path + SEPARATOR + start + SEPARATOR + end + SEPARATOR + fileSize;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public String getFilename() {
+        return path.substring(path.lastIndexOf('/') + 1);
+    }
+
+    public long getStart() {
+        return start;
+    }
+
+    public long getEnd() {
+        return end;
+    }
+
+    public long getLength() {
+        return end - start;
+    }
+
+    public boolean isFirst() {
+        return start == 0;
+    }
+
+    public boolean isLast() {
+        return end >= fileSize;
+    }
+
+    /**
+     * Value of the "range" key of this range's offset partition
+     */
+    public String getPartitionKey() {
+        return start + "-" + end;
+    }
+
+    public String getMarkerPath() {
+        return path + "." + getPartitionKey() + DONE_SUFFIX;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        FileRange that = (FileRange) o;
+        return start == that.start &&
+               end == that.end &&
+               fileSize == that.fileSize &&
+               Objects.equals(path, that.path);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(path, start, end, fileSize);
+    }
+
+    @Override
+    public String toString() {
+        return path + " [" + start + ", " + end + ")";
+    }
+}
@@ -0,0 +1,156 @@
+package br.com.datastreambrasil.kafka.connector.ftp.model;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Source offset of one record, as an immutable map. The entries that are the same for every record
+ * of a file, and those of the current hash checkpoint, are shared maps built once; the line number and
+ * the byte position are kept as primitives and only boxed when read. Kafka Connect reads the map when
+ * it flushes offsets, so emitting a record neither fills a map nor boxes its numbers.
+ */
+public final class RecordOffset extends AbstractMap<String, Object> {
+
+    public static final String LINE_NUMBER = "line_number";
+    public static final String BYTE_POSITION = "byte_position";
+    public static final String LINE_HASH = "line_hash";
+
+    private final Map<String, Object> fileFields;
+    private final Map<String, Object> checkpointFields;
+    private final long lineNumber;
+    private final long bytePosition;
+    private final int lineHash;
+
+    /**
+     * @param fileFields entries shared by the records of the file, from {@link #fileFields(FileOffset)}
+     * @param checkpointFields entries of the hash checkpoint, from {@link #checkpointFields}, or an empty map
+     * @param bytePosition where the record starts, -1 to leave the position and the line hash out
+     */
+    public RecordOffset(Map<String, Object> fileFields, Map<String, Object> checkpointFields,
+                        long lineNumber, long bytePosition, int lineHash) {
+        this.fileFields = fileFields;
+        this.checkpointFields = checkpointFields;
+        this.lineNumber = lineNumber;
+        this.bytePosition = bytePosition;
+        this.lineHash = lineHash;
+    }
+
+    /**
+     * Entries of the file, leaving out the content hash and the identity when there are none
+     */
+    public static Map<String, Object> fileFields(FileOffset file) {
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("filename", file.getFilename());
+        if (file.getFileHash() != null) {
+            fields.put("file_hash", file.getFileHash());
+        }
+        fields.put("last_modified", file.getLastModified());
+        fields.put("file_size", file.getFileSize());
+        if (file.getFileIdentity() != null) {
+            fields.put("file_identity", file.getFileIdentity());
+        }
+        return Collections.unmodifiableMap(fields);
+    }
+
+    public static Map<String, Object> checkpointFields(String hashAlgorithm, long checkpointLine, String checkpointHash) {
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("hash_algorithm", hashAlgorithm);
+        fields.put("hash_checkpoint_line", checkpointLine);
+        fields.put("hash_checkpoint", checkpointHash);
+        return Collections.unmodifiableMap(fields);
+    }
+
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    @Override
+    public Object get(Object key) {
+        if (LINE_NUMBER.equals(key)) {
+            return lineNumber;
+        }
+        if (BYTE_POSITION.equals(key)) {
+            return bytePosition >= 0 ? bytePosition : null;
+        }
+        if (LINE_HASH.equals(key)) {
+            return bytePosition >= 0 ? lineHash : null;
+        }
+        Object value = fileFields.get(key);
+        return value != null ? value : checkpointFields.get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public int size() {
+        return fileFields.size() + checkpointFields.size() + (bytePosition >= 0 ? 3 : 1);
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        // a view over the shared maps and the primitives, so serializing the offset copies nothing
+        return new AbstractSet<Entry<String, Object>>() {
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return RecordOffset.this.size();
+            }
+        };
+    }
+
+    /**
+     * The entries of the file, then those of the checkpoint, then the line number, the byte position
+     * and the line hash
+     */
+    private final class EntryIterator implements Iterator<Entry<String, Object>> {
+        private Iterator<Entry<String, Object>> shared = fileFields.entrySet().iterator();
+        private boolean inCheckpoint;
+        private int primitive;
+
+        @Override
+        public boolean hasNext() {
+            if (shared.hasNext()) {
+                return true;
+            }
+            if (!inCheckpoint) {
+                inCheckpoint = true;
+                shared = checkpointFields.entrySet().iterator();
+                if (shared.hasNext()) {
+                    return true;
+                }
+            }
+            return primitive < (bytePosition >= 0 ? 3 : 1);
+        }
+
+        @Override
+        public Entry<String, Object> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            if (shared.hasNext()) {
+                return shared.next();
+            }
+            switch (primitive++) {
+                case 0:
+                    return new SimpleImmutableEntry<>(LINE_NUMBER, lineNumber);
+                case 1:
+                    return new SimpleImmutableEntry<>(BYTE_POSITION, bytePosition);
+                default:
+                    return new SimpleImmutableEntry<>(LINE_HASH, lineHash);
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package br.com.datastreambrasil.kafka.connector.ftp.model;
+
+import java.util.Objects;
+
+/**
+ * Metadata of a remote file as reported by the server listing, without reading its content
+ */
+public class RemoteFileInfo {
+    private final String path;
+    private final long size;
+    private final long lastModified;
+
+    public RemoteFileInfo(String path, long size, long lastModified) {
+        this.path = path;
+        this.size = size;
+        this.lastModified = lastModified;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Modification time in epoch milliseconds, 0 if the server does not report it
+     */
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        RemoteFileInfo that = (RemoteFileInfo) o;
+        return size == that.size &&
+               lastModified == that.lastModified &&
+               Objects.equals(path, that.path);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(path, size, lastModified);
+    }
+
+    @Override
+    public String toString() {
+        return "RemoteFileInfo{" +
+               "path='" + path + '\'' +
+               ", size=" + size +
+               ", lastModified=" + lastModified +
+               '}';
+    }
+}
@@ -0,0 +1,225 @@
+package br.com.datastreambrasil.kafka.connector.ftp.monitor;
+
+import br.com.datastreambrasil.kafka.connector.ftp.RemoteClient;
+import br.com.datastreambrasil.kafka.connector.ftp.model.FileRange;
+import br.com.datastreambrasil.kafka.connector.ftp.model.RemoteFileInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lists the source directory once for the whole connector and splits the pending files across tasks
+ * by size. Files already in the stage directory were left by stopped tasks and are assigned again so
+ * they resume from their offsets. Files larger than {@code splitBytes} are staged by the monitor and
+ * assigned as byte ranges, see {@link FileRange}. The change callback fires when new files arrive or
+ * when the backlog has drained while tasks are still running.
+ */
+public class DirectoryMonitor implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(DirectoryMonitor.class);
+
+    private final RemoteClient client;
+    private final String directory;
+    private final String stageDir;
+    private final String filePattern;
+    private final long intervalMs;
+    private final long splitBytes;
+    private final Runnable onChange;
+
+    private List<RemoteFileInfo> pending = Collections.emptyList();
+    private Set<String> assigned = Collections.emptySet();
+    private int activeTasks = 0;
+    private ScheduledExecutorService executor;
+
+    public DirectoryMonitor(RemoteClient client, String directory, String stageDir, String filePattern,
+                            long intervalMs, long splitBytes, Runnable onChange) {
+        this.client = client;
+        this.directory = directory;
+        this.stageDir = stageDir;
+        this.filePattern = filePattern;
+        this.intervalMs = intervalMs;
+        this.splitBytes = splitBytes;
+        this.onChange = onChange;
+    }
+
+    /**
+     * Lists once so the first assignment is available, then keeps listing every {@code intervalMs}
+     */
+    public void start() {
+        scan();
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ftp-monitor-" + directory);
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::scanAndNotify, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Lists the stage and source directories and returns true when the tasks need a new assignment
+     */
+    public boolean scan() {
+        List<RemoteFileInfo> files = new ArrayList<>();
+        long startTime = System.currentTimeMillis();
+        try {
+            if (stageDir != null) {
+                Set<String> markers = new HashSet<>();
+                if (splitBytes > 0) {
+                    for (RemoteFileInfo marker : client.listFileInfos(stageDir, FileRange.MARKER_PATTERN)) {
+                        markers.add(marker.getPath());
+                    }
+                }
+                for (RemoteFileInfo file : client.listFileInfos(stageDir, filePattern)) {
+                    if (!file.getPath().matches(FileRange.MARKER_PATTERN)) {
+                        addStaged(file, markers, files);
+                    }
+                }
+            }
+            for (RemoteFileInfo file : client.listFileInfos(directory, filePattern)) {
+                if (isSplittable(file)) {
+                    // several tasks read a split file, so it is staged here rather than by one of them
+                    String stagedPath = stagedPath(file.getPath());
+                    client.moveFile(file.getPath(), stagedPath);
+                    log.info("Staged {} ({} bytes) for splitting into ranges of {} bytes", stagedPath, file.getSize(), splitBytes);
+                    addStaged(new RemoteFileInfo(stagedPath, file.getSize(), file.getLastModified()),
+                            Collections.emptySet(), files);
+                } else {
+                    files.add(file);
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Failed to list {}, keeping the current assignment: {}", directory, e.getMessage());
+            return false;
+        }
+        log.debug("Listed {} pending files in {} ms", files.size(), System.currentTimeMillis() - startTime);
+
+        synchronized (this) {
+            pending = files;
+            if (files.isEmpty()) {
+                return activeTasks > 0;
+            }
+            for (RemoteFileInfo file : files) {
+                if (!assigned.contains(file.getPath())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private String stagedPath(String path) {
+        return stageDir + "/" + path.substring(path.lastIndexOf('/') + 1);
+    }
+
+    private boolean isSplittable(RemoteFileInfo file) {
+        return splitBytes > 0 && stageDir != null && file.getSize() > splitBytes
+                && !file.getPath().toLowerCase().endsWith(".gz");
+    }
+
+    /**
+     * Adds a staged file as pending, or each of its ranges without a done marker if it is split.
+     * A split file whose ranges are all done is deleted together with its markers.
+     */
+    private void addStaged(RemoteFileInfo file, Set<String> markers, List<RemoteFileInfo> files) throws Exception {
+        if (!isSplittable(file)) {
+            files.add(file);
+            return;
+        }
+
+        List<FileRange> ranges = FileRange.split(file.getPath(), file.getSize(), splitBytes);
+        boolean done = true;
+        for (FileRange range : ranges) {
+            if (!markers.contains(range.getMarkerPath())) {
+                files.add(new RemoteFileInfo(range.format(), range.getLength(), file.getLastModified()));
+                done = false;
+            }
+        }
+        if (done) {
+            client.deleteFile(file.getPath());
+            for (FileRange range : ranges) {
+                client.deleteFile(range.getMarkerPath());
+            }
+            log.info("All {} ranges of {} are committed, deleted the staged file", ranges.size(), file.getPath());
+        }
+    }
+
+    private void scanAndNotify() {
+        try {
+            if (scan()) {
+                log.info("Backlog of {} changed, requesting a new file assignment", directory);
+                onChange.run();
+            }
+        } catch (RuntimeException e) {
+            log.error("Directory monitor failed", e);
+        }
+    }
+
+    /**
+     * Splits the last listing across at most {@code maxTasks} tasks and remembers it as the current
+     * assignment. Returns one list of paths or formatted ranges per task, or no list at all when nothing
+     * is pending.
+     */
+    public synchronized List<List<String>> assign(int maxTasks) {
+        List<List<String>> assignment = balance(pending, maxTasks);
+        Set<String> paths = new HashSet<>();
+        for (RemoteFileInfo file : pending) {
+            paths.add(file.getPath());
+            if (stageDir != null && file.getPath().startsWith(directory + "/")) {
+                // a task claims the file by moving it there, which must not look like a new file
+                paths.add(stagedPath(file.getPath()));
+            }
+        }
+        this.assigned = paths;
+        this.activeTasks = assignment.size();
+        log.info("Assigned {} files to {} tasks", pending.size(), activeTasks);
+        return assignment;
+    }
+
+    /**
+     * Largest file first to the task with the fewest bytes, so tasks finish close together.
+     * Files with the same size keep their listing order.
+     */
+    static List<List<String>> balance(List<RemoteFileInfo> files, int maxTasks) {
+        int taskCount = Math.min(maxTasks, files.size());
+        List<List<String>> assignment = new ArrayList<>();
+        if (taskCount == 0) {
+            return assignment;
+        }
+
+        List<RemoteFileInfo> bySize = new ArrayList<>(files);
+        bySize.sort(Comparator.comparingLong(RemoteFileInfo::getSize).reversed());
+
+        long[] load = new long[taskCount];
+        PriorityQueue<Integer> tasks = new PriorityQueue<>(
+                Comparator.<Integer>comparingLong(task -> load[task]).thenComparingInt(task -> task));
+        for (int i = 0; i < taskCount; i++) {
+            assignment.add(new ArrayList<>());
+            tasks.add(i);
+        }
+        for (RemoteFileInfo file : bySize) {
+            int task = tasks.poll();
+            assignment.get(task).add(file.getPath());
+            load[task] += file.getSize();
+            tasks.add(task);
+        }
+        return assignment;
+    }
+
+    @Override
+    public void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        client.disconnect();
+    }
+}
@@ -0,0 +1,47 @@
+package br.com.datastreambrasil.kafka.connector.ftp.monitor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Files handed to one task by the {@link DirectoryMonitor}. The task claims them in order instead of
+ * listing the directory itself; claimed files are removed so a later poll does not try them again.
+ */
+public class FileAssignment {
+
+    private static final String SEPARATOR = "\n";
+
+    private final List<String> pending;
+
+    public FileAssignment(List<String> paths) {
+        this.pending = new ArrayList<>(paths);
+    }
+
+    /**
+     * Reads an assignment written by {@link #format(List)}
+     */
+    public static FileAssignment parse(String value) {
+        List<String> paths = new ArrayList<>();
+        for (String path : value.split(SEPARATOR)) {
+            if (!path.isEmpty()) {
+                paths.add(path);
+            }
+        }
+        return new FileAssignment(paths);
+    }
+
+    /**
+     * Paths are joined by newlines, which unlike commas do not appear in file names
+     */
+    public static String format(List<String> paths) {
+        return String.join(SEPARATOR, paths);
+    }
+
+    public synchronized List<String> pending() {
+        return new ArrayList<>(pending);
+    }
+
+    public synchronized void claimed(String path) {
+        pending.remove(path);
+    }
+}
@@ -0,0 +1,185 @@
+package br.com.datastreambrasil.kafka.connector.ftp.parse;
+
+import org.apache.kafka.connect.data.Date;
+import org.apache.kafka.connect.data.Decimal;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.Timestamp;
+import org.apache.kafka.connect.errors.DataException;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Infers a column type from sample rows: INT64, DECIMAL (plain decimals, scale of the longest fraction),
+ * FLOAT64 (exponent notation), DATE (yyyy-MM-dd) or TIMESTAMP (yyyy-MM-dd HH:mm[:ss[.f]], T also accepted,
+ * read as UTC). A column falls back to STRING as soon as one sampled value does not fit, and numbers with
+ * leading zeros stay strings so codes keep their digits. Empty values are ignored and become nulls.
+ */
+public class ColumnTypeInference {
+
+    private static final Pattern INTEGER = Pattern.compile("[-+]?(0|[1-9][0-9]*)");
+    private static final Pattern DECIMAL = Pattern.compile("[-+]?(0|[1-9][0-9]*)\\.([0-9]+)");
+    private static final Pattern FLOATING = Pattern.compile("[-+]?([0-9]+\\.?[0-9]*|\\.[0-9]+)([eE][-+]?[0-9]+)?");
+    private static final Pattern DATE = Pattern.compile("[0-9]{4}-[0-9]{2}-[0-9]{2}");
+    private static final Pattern TIMESTAMP = Pattern.compile("[0-9]{4}-[0-9]{2}-[0-9]{2}[T ][0-9]{2}:[0-9]{2}(:[0-9]{2}(\\.[0-9]{1,9})?)?Z?");
+
+    private final List<Column> columns = new ArrayList<>();
+
+    /**
+     * Adds the fields of one sample row, as split by the tokenizer
+     */
+    public void add(LineTokenizer row) {
+        for (int i = 0; i < row.getFieldCount(); i++) {
+            if (i == columns.size()) {
+                columns.add(new Column());
+            }
+            columns.get(i).observe(row.getField(i));
+        }
+    }
+
+    /**
+     * One optional schema per column seen in the sample
+     */
+    public List<Schema> getSchemas() {
+        List<Schema> schemas = new ArrayList<>(columns.size());
+        for (Column column : columns) {
+            schemas.add(column.schema());
+        }
+        return schemas;
+    }
+
+    /**
+     * Converts a field to the type of its inferred schema
+     * @throws DataException if the value does not fit the type
+     */
+    public static Object convert(String value, Schema schema) {
+        if (schema.type() == Schema.Type.STRING) {
+            return value;
+        }
+        if (value.isEmpty()) {
+            return null;
+        }
+        try {
+            if (Decimal.LOGICAL_NAME.equals(schema.name())) {
+                int scale = Integer.parseInt(schema.parameters().get(Decimal.SCALE_FIELD));
+                if (hasLeadingZero(value)) {
+                    throw new NumberFormatException("leading zero");
+                }
+                return new BigDecimal(value).setScale(scale);
+            }
+            if (Date.LOGICAL_NAME.equals(schema.name())) {
+                return new java.util.Date(LocalDate.parse(value).toEpochDay() * 86_400_000L);
+            }
+            if (Timestamp.LOGICAL_NAME.equals(schema.name())) {
+                return java.util.Date.from(parseTimestamp(value).toInstant(ZoneOffset.UTC));
+            }
+            if (schema.type() == Schema.Type.INT64) {
+                if (hasLeadingZero(value)) {
+                    throw new NumberFormatException("leading zero");
+                }
+                return Long.parseLong(value);
+            }
+            if (schema.type() == Schema.Type.FLOAT64) {
+                return Double.parseDouble(value);
+            }
+        } catch (NumberFormatException | ArithmeticException | DateTimeParseException e) {
+            throw new DataException("Value '" + value + "' does not fit the inferred type "
+                    + (schema.name() != null ? schema.name() : schema.type()), e);
+        }
+        throw new DataException("Unsupported inferred schema " + schema);
+    }
+
+    private static boolean hasLeadingZero(String value) {
+        int start = value.charAt(0) == '-' || value.charAt(0) == '+' ? 1 : 0;
+        return value.length() > start + 1 && value.charAt(start) == '0' && value.charAt(start + 1) != '.';
+    }
+
+    private static LocalDateTime parseTimestamp(String value) {
+        String normalized = value.endsWith("Z") ? value.substring(0, value.length() - 1) : value;
+        return LocalDateTime.parse(normalized.replace(' ', 'T'));
+    }
+
+    private static class Column {
+        private boolean seen = false;
+        private boolean integer = true;
+        private boolean decimal = true;
+        private boolean floating = true;
+        private boolean date = true;
+        private boolean timestamp = true;
+        private int scale = 0;
+
+        void observe(String value) {
+            if (value.isEmpty()) {
+                return;
+            }
+            seen = true;
+            if (integer) {
+                integer = INTEGER.matcher(value).matches() && fitsLong(value);
+            }
+            if (decimal) {
+                Matcher matcher = DECIMAL.matcher(value);
+                if (matcher.matches()) {
+                    scale = Math.max(scale, matcher.group(2).length());
+                } else {
+                    decimal = INTEGER.matcher(value).matches();
+                }
+            }
+            if (floating) {
+                floating = FLOATING.matcher(value).matches() && !hasLeadingZero(value);
+            }
+            if (date) {
+                date = DATE.matcher(value).matches() && parses(() -> LocalDate.parse(value));
+            }
+            if (timestamp) {
+                timestamp = TIMESTAMP.matcher(value).matches() && parses(() -> parseTimestamp(value));
+            }
+        }
+
+        Schema schema() {
+            if (!seen) {
+                return Schema.OPTIONAL_STRING_SCHEMA;
+            }
+            if (integer) {
+                return Schema.OPTIONAL_INT64_SCHEMA;
+            }
+            if (decimal) {
+                return Decimal.builder(scale).optional().build();
+            }
+            if (floating) {
+                return Schema.OPTIONAL_FLOAT64_SCHEMA;
+            }
+            if (date) {
+                return Date.builder().optional().build();
+            }
+            if (timestamp) {
+                return Timestamp.builder().optional().build();
+            }
+            return Schema.OPTIONAL_STRING_SCHEMA;
+        }
+
+        private static boolean fitsLong(String value) {
+            try {
+                Long.parseLong(value);
+                return true;
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+
+        private static boolean parses(Runnable parse) {
+            try {
+                parse.run();
+                return true;
+            } catch (DateTimeParseException e) {
+                return false;
+            }
+        }
+    }
+}
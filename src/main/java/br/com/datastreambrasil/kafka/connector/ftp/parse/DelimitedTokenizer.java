@@ -0,0 +1,231 @@
+package br.com.datastreambrasil.kafka.connector.ftp.parse;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Splits a line into fields following RFC 4180: a field that starts with the quote character runs up
+ * to the matching quote and may contain delimiters, and a doubled quote inside it stands for one quote.
+ * An optional escape character takes the next character literally inside quotes. Unquoted fields are
+ * cut with {@link String#indexOf}, with a single-character fast path, and trimmed on their character
+ * range before the one substring that is created for them. With a column projection, columns that are
+ * not included are passed over without creating anything, and the line is not scanned past the last
+ * included column.
+ * Not thread-safe: the field array is reused from line to line.
+ */
+public class DelimitedTokenizer implements LineTokenizer {
+
+    public static final char NO_CHAR = '\0';
+
+    private final String delimiter;
+    private final char delimiterChar;
+    private final char quote;
+    private final char escape;
+    private final boolean trim;
+    private final BitSet columns;
+    private final int lastColumn;
+
+    private final StringBuilder quoted = new StringBuilder();
+    private String[] fields = new String[16];
+    private int[] fieldColumns = new int[16];
+    private int count = 0;
+
+    /**
+     * @param delimiter one or more characters separating fields
+     * @param quote quote character, or {@link #NO_CHAR} to disable quoting
+     * @param escape escape character inside quotes, or {@link #NO_CHAR} for doubled quotes only
+     * @param trim whether to drop blanks around unquoted fields and around quotes, as {@link String#trim()} does
+     */
+    public DelimitedTokenizer(String delimiter, char quote, char escape, boolean trim) {
+        this(delimiter, quote, escape, trim, null);
+    }
+
+    /**
+     * @param columns zero-based indexes of the columns to keep, or null to keep all of them
+     */
+    public DelimitedTokenizer(String delimiter, char quote, char escape, boolean trim, BitSet columns) {
+        if (delimiter == null || delimiter.isEmpty()) {
+            throw new IllegalArgumentException("Delimiter must not be empty");
+        }
+        if (quote != NO_CHAR && delimiter.indexOf(quote) >= 0) {
+            throw new IllegalArgumentException("Quote character must not be part of the delimiter: " + quote);
+        }
+        this.delimiter = delimiter;
+        this.delimiterChar = delimiter.length() == 1 ? delimiter.charAt(0) : NO_CHAR;
+        this.quote = quote;
+        // a quote "escaping" itself is the doubled-quote rule
+        this.escape = escape == quote ? NO_CHAR : escape;
+        this.trim = trim;
+        this.columns = columns;
+        this.lastColumn = columns != null ? columns.length() - 1 : Integer.MAX_VALUE;
+    }
+
+    /**
+     * Splits the line; the fields are available through {@link #getField(int)} until the next call
+     * @return the number of fields kept, at least one without a projection
+     */
+    @Override
+    public int split(String line) {
+        count = 0;
+        int length = line.length();
+        int pos = 0;
+        for (int column = 0; column <= lastColumn; column++) {
+            if (columns != null && !columns.get(column)) {
+                int next = skipField(line, pos);
+                if (next < 0) {
+                    break;
+                }
+                pos = next + delimiter.length();
+                continue;
+            }
+
+            int start = pos;
+            if (trim) {
+                while (start < length && line.charAt(start) <= ' ' && !isDelimiterAt(line, start)) {
+                    start++;
+                }
+            }
+
+            int next;
+            if (quote != NO_CHAR && start < length && line.charAt(start) == quote) {
+                next = readQuoted(line, start + 1, column);
+            } else {
+                next = indexOfDelimiter(line, pos);
+                int end = next < 0 ? length : next;
+                if (trim) {
+                    while (end > start && line.charAt(end - 1) <= ' ') {
+                        end--;
+                    }
+                }
+                add(line.substring(start, end), column);
+            }
+
+            if (next < 0) {
+                break;
+            }
+            pos = next + delimiter.length();
+        }
+        return count;
+    }
+
+    @Override
+    public int getFieldCount() {
+        return count;
+    }
+
+    @Override
+    public String getField(int index) {
+        if (index >= count) {
+            throw new IndexOutOfBoundsException("Field " + index + " of " + count);
+        }
+        return fields[index];
+    }
+
+    @Override
+    public int getColumn(int index) {
+        if (index >= count) {
+            throw new IndexOutOfBoundsException("Field " + index + " of " + count);
+        }
+        return fieldColumns[index];
+    }
+
+    /**
+     * Copy of the fields of the last line
+     */
+    public String[] getFields() {
+        return Arrays.copyOf(fields, count);
+    }
+
+    /**
+     * Reads a quoted field starting after its opening quote and adds it. Text between the closing quote
+     * and the next delimiter is kept as is, and an unterminated quote runs to the end of the line.
+     * @return the index of the delimiter ending the field, or -1 at end of line
+     */
+    private int readQuoted(String line, int pos, int column) {
+        int length = line.length();
+        quoted.setLength(0);
+        while (pos < length) {
+            char c = line.charAt(pos);
+            if (escape != NO_CHAR && c == escape && pos + 1 < length) {
+                quoted.append(line.charAt(pos + 1));
+                pos += 2;
+            } else if (c == quote) {
+                if (pos + 1 < length && line.charAt(pos + 1) == quote) {
+                    quoted.append(quote);
+                    pos += 2;
+                } else {
+                    pos++;
+                    break;
+                }
+            } else {
+                quoted.append(c);
+                pos++;
+            }
+        }
+
+        int next = indexOfDelimiter(line, pos);
+        int end = next < 0 ? length : next;
+        if (trim) {
+            while (end > pos && line.charAt(end - 1) <= ' ') {
+                end--;
+            }
+        }
+        quoted.append(line, pos, end);
+        add(quoted.toString(), column);
+        return next;
+    }
+
+    /**
+     * Finds the end of a field that is not kept, stepping over a quoted part without copying it
+     * @return the index of the delimiter ending the field, or -1 at end of line
+     */
+    private int skipField(String line, int pos) {
+        int length = line.length();
+        if (quote != NO_CHAR) {
+            int start = pos;
+            if (trim) {
+                while (start < length && line.charAt(start) <= ' ' && !isDelimiterAt(line, start)) {
+                    start++;
+                }
+            }
+            if (start < length && line.charAt(start) == quote) {
+                pos = start + 1;
+                while (pos < length) {
+                    char c = line.charAt(pos);
+                    if (escape != NO_CHAR && c == escape) {
+                        pos += 2;
+                    } else if (c == quote) {
+                        pos++;
+                        if (pos >= length || line.charAt(pos) != quote) {
+                            break;
+                        }
+                        pos++;
+                    } else {
+                        pos++;
+                    }
+                }
+                if (pos >= length) {
+                    return -1;
+                }
+            }
+        }
+        return indexOfDelimiter(line, pos);
+    }
+
+    private int indexOfDelimiter(String line, int from) {
+        return delimiterChar != NO_CHAR ? line.indexOf(delimiterChar, from) : line.indexOf(delimiter, from);
+    }
+
+    private boolean isDelimiterAt(String line, int index) {
+        return delimiterChar != NO_CHAR ? line.charAt(index) == delimiterChar : line.startsWith(delimiter, index);
+    }
+
+    private void add(String field, int column) {
+        if (count == fields.length) {
+            fields = Arrays.copyOf(fields, count * 2);
+            fieldColumns = Arrays.copyOf(fieldColumns, count * 2);
+        }
+        fieldColumns[count] = column;
+        fields[count++] = field;
+    }
+}
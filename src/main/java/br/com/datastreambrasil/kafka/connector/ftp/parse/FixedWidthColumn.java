@@ -0,0 +1,161 @@
+package br.com.datastreambrasil.kafka.connector.ftp.parse;
+
+import org.apache.kafka.connect.data.Date;
+import org.apache.kafka.connect.data.Decimal;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.Timestamp;
+import org.apache.kafka.connect.errors.DataException;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A column of a fixed-width layout, written as {@code name:start:length[:type][:trim]} with a one-based
+ * start. Types are {@code string} (default), {@code int64}, {@code float64}, {@code decimal(scale)},
+ * {@code date(pattern)} and {@code timestamp(pattern)}; a decimal without a point has an implied one,
+ * as in COBOL {@code PIC 9(5)V99}, and numbers may have leading zeros. Trim is {@code both},
+ * {@code left}, {@code right} or {@code none}.
+ */
+public class FixedWidthColumn {
+
+    public enum Trim { NONE, LEFT, RIGHT, BOTH }
+
+    private static final Pattern SPEC = Pattern.compile(
+            "([^:]+):([0-9]+):([0-9]+)(?::([a-z0-9]+)(?:\\(([^)]*)\\))?)?(?::(none|left|right|both))?");
+
+    private final String name;
+    private final int start;
+    private final int end;
+    private final Trim trim;
+    private final Schema schema;
+    private final int scale;
+    private final DateTimeFormatter formatter;
+
+    public FixedWidthColumn(String name, int start, int length, String type, String argument, Trim trim) {
+        if (start < 0 || length <= 0) {
+            throw new IllegalArgumentException("Invalid position of column " + name + ": start " + (start + 1) + ", length " + length);
+        }
+        this.name = name;
+        this.start = start;
+        this.end = start + length;
+        this.trim = trim;
+        int columnScale = 0;
+        DateTimeFormatter columnFormatter = null;
+        switch (type) {
+            case "string":
+                schema = Schema.OPTIONAL_STRING_SCHEMA;
+                break;
+            case "int64":
+                schema = Schema.OPTIONAL_INT64_SCHEMA;
+                break;
+            case "float64":
+                schema = Schema.OPTIONAL_FLOAT64_SCHEMA;
+                break;
+            case "decimal":
+                columnScale = argument != null ? Integer.parseInt(argument.trim()) : 0;
+                schema = Decimal.builder(columnScale).optional().build();
+                break;
+            case "date":
+                columnFormatter = DateTimeFormatter.ofPattern(argument != null ? argument : "yyyyMMdd");
+                schema = Date.builder().optional().build();
+                break;
+            case "timestamp":
+                columnFormatter = DateTimeFormatter.ofPattern(argument != null ? argument : "yyyyMMddHHmmss");
+                schema = Timestamp.builder().optional().build();
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown type of column " + name + ": " + type);
+        }
+        this.scale = columnScale;
+        this.formatter = columnFormatter;
+    }
+
+    /**
+     * Parses a comma-separated layout
+     */
+    public static List<FixedWidthColumn> parseAll(String spec, Trim defaultTrim) {
+        List<FixedWidthColumn> columns = new ArrayList<>();
+        for (String entry : spec.trim().split("\\s*,\\s*")) {
+            Matcher matcher = SPEC.matcher(entry);
+            if (!matcher.matches()) {
+                throw new IllegalArgumentException("Invalid fixed-width column, expected name:start:length[:type][:trim]: " + entry);
+            }
+            columns.add(new FixedWidthColumn(matcher.group(1).trim(),
+                    Integer.parseInt(matcher.group(2)) - 1,
+                    Integer.parseInt(matcher.group(3)),
+                    matcher.group(4) != null ? matcher.group(4) : "string",
+                    matcher.group(5),
+                    matcher.group(6) != null ? Trim.valueOf(matcher.group(6).toUpperCase()) : defaultTrim));
+        }
+        return columns;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Zero-based index of the first character
+     */
+    public int getStart() {
+        return start;
+    }
+
+    /**
+     * Zero-based index after the last character
+     */
+    public int getEnd() {
+        return end;
+    }
+
+    public Trim getTrim() {
+        return trim;
+    }
+
+    public Schema getSchema() {
+        return schema;
+    }
+
+    /**
+     * Converts a sliced value to the column type; blank values of typed columns are null
+     * @throws DataException if the value does not fit the type
+     */
+    public Object convert(String value) {
+        if (schema.type() == Schema.Type.STRING) {
+            return value;
+        }
+        String text = value.trim();
+        if (text.isEmpty()) {
+            return null;
+        }
+        try {
+            if (Decimal.LOGICAL_NAME.equals(schema.name())) {
+                return text.indexOf('.') >= 0
+                        ? new BigDecimal(text).setScale(scale)
+                        : new BigDecimal(new BigInteger(text), scale);
+            }
+            if (Date.LOGICAL_NAME.equals(schema.name())) {
+                return new java.util.Date(LocalDate.parse(text, formatter).toEpochDay() * 86_400_000L);
+            }
+            if (Timestamp.LOGICAL_NAME.equals(schema.name())) {
+                return java.util.Date.from(LocalDateTime.parse(text, formatter).toInstant(ZoneOffset.UTC));
+            }
+            if (schema.type() == Schema.Type.INT64) {
+                return Long.parseLong(text);
+            }
+            return Double.parseDouble(text);
+        } catch (NumberFormatException | ArithmeticException | DateTimeParseException e) {
+            throw new DataException("Value '" + value + "' of column " + name + " is not a valid "
+                    + (schema.name() != null ? schema.name() : schema.type()), e);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package br.com.datastreambrasil.kafka.connector.ftp.parse;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Slices fixed-width records at column offsets computed once from the layout. Each field is trimmed on
+ * its character range before the one substring created for it. Lines whose trailing blanks were stripped
+ * are shorter than the layout: the columns past the end are empty, so every line has the same fields.
+ * Not thread-safe.
+ */
+public class FixedWidthTokenizer implements LineTokenizer {
+
+    private final int[] columns;
+    private final int[] starts;
+    private final int[] ends;
+    private final FixedWidthColumn.Trim[] trims;
+    private final String[] fields;
+    private int count = 0;
+
+    /**
+     * @param include zero-based indexes of the layout columns to keep, or null to keep all of them
+     */
+    public FixedWidthTokenizer(List<FixedWidthColumn> layout, BitSet include) {
+        List<Integer> kept = new ArrayList<>();
+        for (int i = 0; i < layout.size(); i++) {
+            if (include == null || include.get(i)) {
+                kept.add(i);
+            }
+        }
+        this.columns = new int[kept.size()];
+        this.starts = new int[kept.size()];
+        this.ends = new int[kept.size()];
+        this.trims = new FixedWidthColumn.Trim[kept.size()];
+        this.fields = new String[kept.size()];
+        for (int i = 0; i < kept.size(); i++) {
+            FixedWidthColumn column = layout.get(kept.get(i));
+            columns[i] = kept.get(i);
+            starts[i] = column.getStart();
+            ends[i] = column.getEnd();
+            trims[i] = column.getTrim();
+        }
+    }
+
+    @Override
+    public int split(String line) {
+        int length = line.length();
+        for (int i = 0; i < columns.length; i++) {
+            int start = Math.min(starts[i], length);
+            int end = Math.min(ends[i], length);
+            FixedWidthColumn.Trim trim = trims[i];
+            if (trim == FixedWidthColumn.Trim.LEFT || trim == FixedWidthColumn.Trim.BOTH) {
+                while (start < end && line.charAt(start) <= ' ') {
+                    start++;
+                }
+            }
+            if (trim == FixedWidthColumn.Trim.RIGHT || trim == FixedWidthColumn.Trim.BOTH) {
+                while (end > start && line.charAt(end - 1) <= ' ') {
+                    end--;
+                }
+            }
+            fields[i] = line.substring(start, end);
+        }
+        count = columns.length;
+        return count;
+    }
+
+    @Override
+    public int getFieldCount() {
+        return count;
+    }
+
+    @Override
+    public String getField(int index) {
+        if (index >= count) {
+            throw new IndexOutOfBoundsException("Field " + index + " of " + count);
+        }
+        return fields[index];
+    }
+
+    @Override
+    public int getColumn(int index) {
+        if (index >= count) {
+            throw new IndexOutOfBoundsException("Field " + index + " of " + count);
+        }
+        return columns[index];
+    }
+}
@@ -0,0 +1,60 @@
+package br.com.datastreambrasil.kafka.connector.ftp.parse;
+
+import br.com.datastreambrasil.kafka.connector.ftp.hash.Murmur3;
+
+/**
+ * Builds record keys from the fields of a split line, so that no {@link org.apache.kafka.connect.data.Struct}
+ * lookup is needed. The key spec is resolved once to field indexes of the tokenizer output; parts of a
+ * composite key are joined with '_', leaving out fields missing from the line and empty fields. A single
+ * field key is the field itself. Optionally the key is replaced by its 128-bit MurmurHash3, so very long
+ * composite keys have a fixed length of 32 hex characters.
+ * Not thread-safe: the key buffer is reused from line to line.
+ */
+public class KeyExtractor {
+
+    private static final char SEPARATOR = '_';
+
+    private final int[] fields;
+    private final boolean hashed;
+    private final StringBuilder key = new StringBuilder();
+
+    /**
+     * @param fields indexes of the key fields in the tokenizer output, in key order
+     * @param hashed whether to replace the key by its MurmurHash3
+     */
+    public KeyExtractor(int[] fields, boolean hashed) {
+        if (fields.length == 0) {
+            throw new IllegalArgumentException("A key needs at least one field");
+        }
+        this.fields = fields.clone();
+        this.hashed = hashed;
+    }
+
+    /**
+     * @return the key of the last line split by the tokenizer, or null when all key fields are missing or empty
+     */
+    public String extract(LineTokenizer tokens) {
+        int count = tokens.getFieldCount();
+        if (fields.length == 1 && !hashed) {
+            String value = fields[0] < count ? tokens.getField(fields[0]) : null;
+            return value == null || value.isEmpty() ? null : value;
+        }
+
+        key.setLength(0);
+        for (int field : fields) {
+            if (field < count) {
+                String value = tokens.getField(field);
+                if (!value.isEmpty()) {
+                    if (key.length() > 0) {
+                        key.append(SEPARATOR);
+                    }
+                    key.append(value);
+                }
+            }
+        }
+        if (key.length() == 0) {
+            return null;
+        }
+        return hashed ? Murmur3.hash128Hex(key) : key.toString();
+    }
+}
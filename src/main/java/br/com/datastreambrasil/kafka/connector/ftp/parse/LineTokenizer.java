@@ -0,0 +1,23 @@
+package br.com.datastreambrasil.kafka.connector.ftp.parse;
+
+/**
+ * Splits a line into the fields of one record. Implementations reuse their state from line to line
+ * and are not thread-safe.
+ */
+public interface LineTokenizer {
+
+    /**
+     * Splits the line; the fields are available through {@link #getField(int)} until the next call
+     * @return the number of fields kept
+     */
+    int split(String line);
+
+    int getFieldCount();
+
+    String getField(int index);
+
+    /**
+     * Zero-based column of the line that field {@code index} was read from
+     */
+    int getColumn(int index);
+}
@@ -0,0 +1,139 @@
+package br.com.datastreambrasil.kafka.connector.ftp.parse;
+
+/**
+ * Joins the physical lines of a record whose quoted fields contain line breaks. The quote state is
+ * carried from line to line with the rules of {@link DelimitedTokenizer}: a quote only opens a field
+ * at its start, a doubled quote or an escaped character stays inside it, and the record ends at the
+ * first line break outside quotes. Lines without a quote character are passed over without scanning.
+ * The lines are joined with '\n'; once the joined record exceeds {@code maxRecordBytes} it is cut
+ * there, so an unterminated quote cannot grow the buffer without limit.
+ * Not thread-safe: the buffer is reused from record to record.
+ */
+public class RecordAssembler {
+
+    private static final int FIELD_START = 0;
+    private static final int UNQUOTED = 1;
+    private static final int QUOTED = 2;
+
+    private final String delimiter;
+    private final char quote;
+    private final char escape;
+    private final boolean trim;
+    private final long maxRecordBytes;
+
+    private final StringBuilder record = new StringBuilder();
+    private int state;
+    private int lineCount;
+    private long byteCount;
+    private boolean overflowed;
+
+    /**
+     * @param maxRecordBytes size of the joined lines, not counting line breaks, at which a record is cut
+     */
+    public RecordAssembler(String delimiter, char quote, char escape, boolean trim, long maxRecordBytes) {
+        if (quote == DelimitedTokenizer.NO_CHAR) {
+            throw new IllegalArgumentException("Records can only span lines inside quotes");
+        }
+        this.delimiter = delimiter;
+        this.quote = quote;
+        this.escape = escape == quote ? DelimitedTokenizer.NO_CHAR : escape;
+        this.trim = trim;
+        this.maxRecordBytes = maxRecordBytes;
+    }
+
+    /**
+     * Starts a record with its first line
+     * @param lineBytes encoded size of the line
+     * @return true when the line ends inside a quoted field, so the record goes on with {@link #append}
+     */
+    public boolean begin(String line, long lineBytes) {
+        record.setLength(0);
+        lineCount = 1;
+        byteCount = lineBytes;
+        overflowed = false;
+        state = FIELD_START;
+        if (line.indexOf(quote) < 0 || !scan(line)) {
+            return false;
+        }
+        record.append(line);
+        return checkSize();
+    }
+
+    /**
+     * Adds the next physical line of an open record
+     * @return true while the record is still open
+     */
+    public boolean append(String line, long lineBytes) {
+        record.append('\n').append(line);
+        lineCount++;
+        byteCount += lineBytes;
+        return scan(line) && checkSize();
+    }
+
+    /**
+     * The joined lines of the last record that went through {@link #append}
+     */
+    public String getRecord() {
+        return record.toString();
+    }
+
+    /**
+     * Number of physical lines of the last record
+     */
+    public int getLineCount() {
+        return lineCount;
+    }
+
+    public long getByteCount() {
+        return byteCount;
+    }
+
+    /**
+     * Whether the last record was cut at the size limit while still inside quotes
+     */
+    public boolean isOverflowed() {
+        return overflowed;
+    }
+
+    private boolean checkSize() {
+        if (byteCount > maxRecordBytes) {
+            overflowed = true;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Moves the quote state over one line
+     * @return true when the line ends inside a quoted field
+     */
+    private boolean scan(String line) {
+        int length = line.length();
+        for (int i = 0; i < length; i++) {
+            char c = line.charAt(i);
+            if (state == QUOTED) {
+                if (escape != DelimitedTokenizer.NO_CHAR && c == escape) {
+                    // an escape at the end of the line takes the line break
+                    i++;
+                } else if (c == quote) {
+                    if (i + 1 < length && line.charAt(i + 1) == quote) {
+                        i++;
+                    } else {
+                        // text after the closing quote runs to the delimiter as in an unquoted field
+                        state = UNQUOTED;
+                    }
+                }
+            } else if (line.startsWith(delimiter, i)) {
+                state = FIELD_START;
+                i += delimiter.length() - 1;
+            } else if (state == FIELD_START) {
+                if (c == quote) {
+                    state = QUOTED;
+                } else if (!trim || c > ' ') {
+                    state = UNQUOTED;
+                }
+            }
+        }
+        return state == QUOTED;
+    }
+}
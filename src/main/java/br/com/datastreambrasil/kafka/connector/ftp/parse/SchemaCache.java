@@ -0,0 +1,47 @@
+package br.com.datastreambrasil.kafka.connector.ftp.parse;
+
+import org.apache.kafka.connect.data.Schema;
+
+import java.util.Arrays;
+
+/**
+ * Record schemas of the current field names and types, indexed by field count, so that files whose
+ * rows have a varying number of fields build each schema once and a lookup is an array read. Field
+ * counts beyond the capacity share one slot. The owner clears the cache when the field names or
+ * types change, for example when a new file brings its own header row.
+ */
+public class SchemaCache {
+
+    private final Schema[] byFieldCount;
+    private int overflowFieldCount = -1;
+    private Schema overflowSchema;
+
+    public SchemaCache(int capacity) {
+        this.byFieldCount = new Schema[capacity];
+    }
+
+    /**
+     * @return the schema cached for this field count, or null
+     */
+    public Schema get(int fieldCount) {
+        if (fieldCount < byFieldCount.length) {
+            return byFieldCount[fieldCount];
+        }
+        return fieldCount == overflowFieldCount ? overflowSchema : null;
+    }
+
+    public void put(int fieldCount, Schema schema) {
+        if (fieldCount < byFieldCount.length) {
+            byFieldCount[fieldCount] = schema;
+        } else {
+            overflowFieldCount = fieldCount;
+            overflowSchema = schema;
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(byFieldCount, null);
+        overflowFieldCount = -1;
+        overflowSchema = null;
+    }
+}
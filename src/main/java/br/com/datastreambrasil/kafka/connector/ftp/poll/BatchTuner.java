@@ -0,0 +1,67 @@
+package br.com.datastreambrasil.kafka.connector.ftp.poll;
+
+/**
+ * Adjusts the number of records returned per poll. The limit follows the measured parse rate so
+ * that a poll takes about {@code targetPollMs}, and is halved while producer acknowledgements take
+ * longer than {@code targetAckMs}, since larger batches would then only queue up in the producer.
+ * Both measurements are smoothed with an exponentially weighted moving average. The limit never goes
+ * above the configured records per poll, so tuning keeps the memory bound that setting implies.
+ */
+public class BatchTuner {
+
+    private static final double ALPHA = 0.3;
+
+    private final long targetPollMs;
+    private final long targetAckMs;
+    private final int maxRecords;
+    private volatile int recordLimit;
+    private double recordsPerMs = -1;
+    private volatile double ackLatencyMs = -1;
+
+    /**
+     * @param maxRecords the configured records per poll, where the limit starts and which it never exceeds
+     */
+    public BatchTuner(int maxRecords, long targetPollMs, long targetAckMs) {
+        this.maxRecords = Math.max(1, maxRecords);
+        this.recordLimit = this.maxRecords;
+        this.targetPollMs = targetPollMs;
+        this.targetAckMs = targetAckMs;
+    }
+
+    public int getRecordLimit() {
+        return recordLimit;
+    }
+
+    /**
+     * Feeds the parse rate of a finished poll and recomputes the limit
+     */
+    public void onPoll(int records, long elapsedMs) {
+        if (records == 0) {
+            return;
+        }
+        double rate = (double) records / Math.max(1, elapsedMs);
+        recordsPerMs = recordsPerMs < 0 ? rate : ALPHA * rate + (1 - ALPHA) * recordsPerMs;
+
+        long target = (long) (recordsPerMs * targetPollMs);
+        if (ackLatencyMs > targetAckMs) {
+            target = Math.min(target, recordLimit / 2);
+        }
+        recordLimit = clamp(target);
+    }
+
+    /**
+     * Feeds the time between a batch leaving poll() and the producer acknowledging it
+     */
+    public void onAck(long latencyMs) {
+        double latency = ackLatencyMs;
+        ackLatencyMs = latency < 0 ? latencyMs : ALPHA * latencyMs + (1 - ALPHA) * latency;
+    }
+
+    public double getAckLatencyMs() {
+        return ackLatencyMs;
+    }
+
+    private int clamp(long records) {
+        return (int) Math.max(1, Math.min(maxRecords, records));
+    }
+}
@@ -0,0 +1,63 @@
+package br.com.datastreambrasil.kafka.connector.ftp.poll;
+
+/**
+ * Decides how long poll() waits when there is nothing to read. Polls that find work return
+ * immediately; consecutive idle polls wait {@code minIntervalMs}, then twice as long each time up
+ * to {@code maxIntervalMs}. The wait ends early when the task is stopped or woken up.
+ */
+public class PollScheduler {
+
+    private final long minIntervalMs;
+    private final long maxIntervalMs;
+    private long nextWaitMs;
+    private boolean stopped = false;
+    private boolean woken = false;
+
+    public PollScheduler(long minIntervalMs, long maxIntervalMs) {
+        this.minIntervalMs = Math.max(0, minIntervalMs);
+        this.maxIntervalMs = Math.max(this.minIntervalMs, maxIntervalMs);
+        this.nextWaitMs = this.minIntervalMs;
+    }
+
+    /**
+     * Called after a poll that found work, so the next idle wait starts from the minimum again
+     */
+    public synchronized void onWork() {
+        nextWaitMs = minIntervalMs;
+    }
+
+    /**
+     * Waits after a poll that found nothing, backing off exponentially across consecutive idle polls
+     */
+    public synchronized void awaitIdle() throws InterruptedException {
+        long waitMs = nextWaitMs;
+        nextWaitMs = Math.min(maxIntervalMs, nextWaitMs * 2);
+
+        long deadline = System.currentTimeMillis() + waitMs;
+        while (!stopped && !woken && waitMs > 0) {
+            wait(waitMs);
+            waitMs = deadline - System.currentTimeMillis();
+        }
+        woken = false;
+    }
+
+    /**
+     * Ends the current wait, or the next one if none is in progress, without resetting the backoff
+     */
+    public synchronized void wakeUp() {
+        woken = true;
+        notifyAll();
+    }
+
+    /**
+     * Ends the current wait and makes later waits return immediately
+     */
+    public synchronized void stop() {
+        stopped = true;
+        notifyAll();
+    }
+
+    public synchronized long getNextWaitMs() {
+        return nextWaitMs;
+    }
+}
@@ -0,0 +1,219 @@
+package br.com.datastreambrasil.kafka.connector.ftp.prefetch;
+
+import br.com.datastreambrasil.kafka.connector.ftp.RemoteClient;
+import br.com.datastreambrasil.kafka.connector.ftp.model.FileRange;
+import br.com.datastreambrasil.kafka.connector.ftp.monitor.FileAssignment;
+import br.com.datastreambrasil.kafka.connector.ftp.shard.FileSharding;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Claims the next files in the background on a dedicated connection: lists the directory,
+ * moves the file to the stage directory and downloads its first bytes, while the task is still
+ * emitting the current file. Claims run one at a time, in listing order, on a single thread.
+ * Safe to share between workers: each claimed file is handed out once. A file is not claimed while
+ * a file of the same name is still staged, since it would be moved onto the staged file that is
+ * deleted once the records of the earlier one are committed.
+ */
+public class FilePrefetcher implements Closeable {
+    private static final Logger log = LoggerFactory.getLogger(FilePrefetcher.class);
+
+    private final RemoteClient client;
+    private final String directory;
+    private final String filePattern;
+    private final String stageDir;
+    private final FileSharding sharding;
+    private final FileAssignment assignment;
+    private final int depth;
+    private final int headBytes;
+    private final Set<String> stagedInFlight;
+    private final ExecutorService executor;
+    private final Deque<Future<PrefetchedFile>> claims = new ArrayDeque<>();
+    private final Deque<String> listed = new ArrayDeque<>();
+    private volatile boolean closed = false;
+
+    /**
+     * @param stagedInFlight staged paths not yet archived; claims add their staged path, the task removes it
+     *                       once the file is archived
+     */
+    public FilePrefetcher(RemoteClient client, String directory, String filePattern, String stageDir,
+                          FileSharding sharding, FileAssignment assignment, int depth, int headBytes,
+                          Set<String> stagedInFlight) {
+        this.client = client;
+        this.directory = directory;
+        this.filePattern = filePattern;
+        this.stageDir = stageDir;
+        this.sharding = sharding;
+        this.assignment = assignment;
+        this.depth = depth;
+        this.headBytes = headBytes;
+        this.stagedInFlight = stagedInFlight;
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ftp-prefetch-" + directory);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Returns the next claimed file, waiting for its claim if it is still running,
+     * or null if the directory had no file left
+     */
+    public synchronized PrefetchedFile next() throws Exception {
+        if (claims.isEmpty()) {
+            claims.addLast(executor.submit(this::claim));
+        }
+        try {
+            return claims.pollFirst().get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        }
+    }
+
+    /**
+     * Starts claiming files in the background until {@code depth} claims are queued
+     */
+    public synchronized void fill() {
+        while (claims.size() < depth) {
+            claims.addLast(executor.submit(this::claim));
+        }
+    }
+
+    private List<String> listFiles() throws Exception {
+        return assignment != null ? assignment.pending() : client.listFiles(directory, filePattern);
+    }
+
+    private PrefetchedFile claim() throws Exception {
+        if (closed) {
+            return null;
+        }
+        boolean fresh = false;
+        if (listed.isEmpty()) {
+            listed.addAll(listFiles());
+            fresh = true;
+        }
+
+        String file;
+        String stagedPath;
+        long startTime;
+        while (true) {
+            file = sharding.select(new ArrayList<>(listed));
+            if (file == null && !fresh) {
+                // the cached listing only holds files of other shards, look for new ones
+                listed.clear();
+                listed.addAll(listFiles());
+                fresh = true;
+                file = sharding.select(new ArrayList<>(listed));
+            }
+            if (file == null) {
+                listed.clear();
+                return null;
+            }
+            listed.remove(file);
+
+            FileRange range = FileRange.parse(file);
+            if (range != null) {
+                // already staged by the connector; the task reads it from the range start, so there is no head
+                assignment.claimed(file);
+                return new PrefetchedFile(file, range.getPath(), new byte[0], false);
+            }
+
+            startTime = System.currentTimeMillis();
+            stagedPath = stageDir + "/" + file.substring(file.lastIndexOf('/') + 1);
+            if (!stagedInFlight.add(stagedPath)) {
+                log.info("Leaving {} until the staged file of the same name is archived", file);
+                continue;
+            }
+            if (assignment != null) {
+                assignment.claimed(file);
+                if (file.equals(stagedPath)) {
+                    // left in the stage directory by a stopped task
+                    break;
+                }
+            }
+            try {
+                client.moveFile(file, stagedPath);
+                break;
+            } catch (Exception e) {
+                stagedInFlight.remove(stagedPath);
+                if (sharding.getShardCount() == 1 && assignment == null) {
+                    throw e;
+                }
+                log.info("File {} was claimed by another task: {}", file, e.getMessage());
+            }
+        }
+
+        byte[] head = new byte[headBytes];
+        int length = 0;
+        boolean complete;
+        InputStream stream = client.retrieveFileStream(stagedPath);
+        try {
+            int read = 0;
+            while (length < head.length && (read = stream.read(head, length, head.length - length)) != -1) {
+                length += read;
+            }
+            complete = read == -1 || stream.read() == -1;
+        } finally {
+            stream.close();
+            try {
+                client.completePending();
+            } catch (IOException e) {
+                // expected when the transfer is stopped after the head
+                log.debug("Prefetch transfer of {} ended early: {}", stagedPath, e.getMessage());
+            }
+        }
+
+        log.info("Prefetched {} → {} ({} bytes{}) in {} ms", file, stagedPath, length,
+                complete ? ", complete" : "", System.currentTimeMillis() - startTime);
+        return new PrefetchedFile(file, stagedPath, Arrays.copyOf(head, length), complete);
+    }
+
+    /**
+     * Stops claiming and moves the files claimed but never handed out back to the source directory
+     */
+    @Override
+    public synchronized void close() {
+        // claims already running finish, so the file they moved can be returned; queued ones do nothing
+        closed = true;
+        executor.shutdown();
+        try {
+            executor.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        for (Future<PrefetchedFile> claim : claims) {
+            try {
+                PrefetchedFile file = claim.isDone() ? claim.get() : null;
+                if (file == null || FileRange.parse(file.getSourcePath()) != null) {
+                    continue;
+                }
+                stagedInFlight.remove(file.getStagedPath());
+                // files assigned from the stage directory and ranges stay there for the next assignment
+                if (!file.getSourcePath().equals(file.getStagedPath())) {
+                    log.info("Returning unprocessed file {} → {}", file.getStagedPath(), file.getSourcePath());
+                    client.moveFile(file.getStagedPath(), file.getSourcePath());
+                }
+            } catch (Exception e) {
+                log.warn("Could not return prefetched file to {}", directory, e);
+            }
+        }
+        claims.clear();
+        client.disconnect();
+    }
+}
@@ -0,0 +1,52 @@
+package br.com.datastreambrasil.kafka.connector.ftp.prefetch;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+
+/**
+ * A file claimed ahead of time: already moved to the stage directory, with its first bytes downloaded
+ */
+public class PrefetchedFile {
+    private final String sourcePath;
+    private final String stagedPath;
+    private final byte[] head;
+    private final boolean complete;
+
+    public PrefetchedFile(String sourcePath, String stagedPath, byte[] head, boolean complete) {
+        this.sourcePath = sourcePath;
+        this.stagedPath = stagedPath;
+        this.head = head;
+        this.complete = complete;
+    }
+
+    public String getSourcePath() {
+        return sourcePath;
+    }
+
+    public String getStagedPath() {
+        return stagedPath;
+    }
+
+    public String getFilename() {
+        return stagedPath.substring(stagedPath.lastIndexOf('/') + 1);
+    }
+
+    public int getHeadLength() {
+        return head.length;
+    }
+
+    /**
+     * True if the head holds the whole file, so no further transfer is needed
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Stream over the prefetched bytes from the given offset
+     */
+    public InputStream openHead(long offset) {
+        int start = (int) Math.min(Math.max(offset, 0), head.length);
+        return new ByteArrayInputStream(head, start, head.length - start);
+    }
+}
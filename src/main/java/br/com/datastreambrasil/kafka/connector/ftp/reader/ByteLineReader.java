@@ -0,0 +1,169 @@
+package br.com.datastreambrasil.kafka.connector.ftp.reader;
+
+import br.com.datastreambrasil.kafka.connector.ftp.hash.FileFingerprint;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Line reader that scans raw bytes for terminators, so the byte position of every line is known.
+ * Only valid for ASCII-compatible charsets, see {@link LineReader#isAsciiCompatible(Charset)}.
+ * A line is kept as bytes in the read buffer and only decoded when {@link #decodeLastLine()} is called;
+ * lines without bytes above 0x7F are decoded as Latin-1, which copies them straight into the String.
+ */
+public class ByteLineReader implements LineReader {
+    private final InputStream in;
+    private final Charset charset;
+    private final byte[] buffer;
+    private int pos = 0;
+    private int limit = 0;
+    private long bufferStart;
+    private boolean pendingCarriageReturn = false;
+
+    private byte[] lineBuffer = new byte[256];
+    private byte[] lastLineBytes;
+    private int lastLineOffset = 0;
+    private int lastLineByteCount = 0;
+    private long lastLineStart = -1;
+    private boolean lastLineAscii = true;
+
+    public ByteLineReader(InputStream in, Charset charset, int bufferSize, long startPosition) {
+        this.in = in;
+        // every byte is a character in Latin-1, so no line needs the charset's decoder
+        this.charset = StandardCharsets.ISO_8859_1.equals(charset) ? StandardCharsets.ISO_8859_1 : charset;
+        this.buffer = new byte[bufferSize];
+        this.bufferStart = startPosition;
+    }
+
+    @Override
+    public String readLine() throws IOException {
+        return skipLine() ? decodeLastLine() : null;
+    }
+
+    @Override
+    public boolean skipLine() throws IOException {
+        if (pendingCarriageReturn) {
+            // a \r ended the previous line at a buffer boundary; swallow the \n of a \r\n pair
+            pendingCarriageReturn = false;
+            if (pos < limit || fill()) {
+                if (buffer[pos] == '\n') {
+                    pos++;
+                }
+            }
+        }
+
+        if (pos >= limit && !fill()) {
+            return false;
+        }
+
+        long lineStart = bufferStart + pos;
+        int lineLength = 0;
+        int highBits = 0;
+
+        while (true) {
+            int start = pos;
+            byte b;
+            while (pos < limit && (b = buffer[pos]) != '\n' && b != '\r') {
+                highBits |= b;
+                pos++;
+            }
+
+            if (pos < limit) {
+                if (lineLength == 0) {
+                    // the whole line is in the read buffer, no copy needed
+                    lastLineBytes = buffer;
+                    lastLineOffset = start;
+                    lineLength = pos - start;
+                } else {
+                    lineLength = append(lineLength, start, pos - start);
+                    lastLineBytes = lineBuffer;
+                    lastLineOffset = 0;
+                }
+                byte terminator = buffer[pos];
+                pos++;
+                if (terminator == '\r') {
+                    if (pos < limit) {
+                        if (buffer[pos] == '\n') {
+                            pos++;
+                        }
+                    } else {
+                        pendingCarriageReturn = true;
+                    }
+                }
+                break;
+            }
+
+            lineLength = append(lineLength, start, pos - start);
+            if (!fill()) {
+                // last line without terminator
+                lastLineBytes = lineBuffer;
+                lastLineOffset = 0;
+                break;
+            }
+        }
+
+        lastLineByteCount = lineLength;
+        lastLineStart = lineStart;
+        lastLineAscii = highBits >= 0;
+        return true;
+    }
+
+    @Override
+    public String decodeLastLine() {
+        return new String(lastLineBytes, lastLineOffset, lastLineByteCount,
+                lastLineAscii ? StandardCharsets.ISO_8859_1 : charset);
+    }
+
+    @Override
+    public byte[] copyLastLine() {
+        return Arrays.copyOfRange(lastLineBytes, lastLineOffset, lastLineOffset + lastLineByteCount);
+    }
+
+    @Override
+    public void digestLastLine(FileFingerprint fingerprint) {
+        fingerprint.update(lastLineBytes, lastLineOffset, lastLineByteCount);
+    }
+
+    @Override
+    public int getLastLineByteCount() {
+        return lastLineByteCount;
+    }
+
+    @Override
+    public long getLastLineStart() {
+        return lastLineStart;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private int append(int lineLength, int start, int length) {
+        if (lineLength + length > lineBuffer.length) {
+            byte[] grown = new byte[Math.max(lineBuffer.length * 2, lineLength + length)];
+            System.arraycopy(lineBuffer, 0, grown, 0, lineLength);
+            lineBuffer = grown;
+        }
+        System.arraycopy(buffer, start, lineBuffer, lineLength, length);
+        return lineLength + length;
+    }
+
+    private boolean fill() throws IOException {
+        bufferStart += limit;
+        pos = 0;
+        limit = 0;
+        int n;
+        do {
+            n = in.read(buffer, 0, buffer.length);
+        } while (n == 0);
+        if (n < 0) {
+            return false;
+        }
+        limit = n;
+        return true;
+    }
+}
@@ -0,0 +1,71 @@
+package br.com.datastreambrasil.kafka.connector.ftp.reader;
+
+import br.com.datastreambrasil.kafka.connector.ftp.hash.FileFingerprint;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+
+/**
+ * Line reader for charsets that cannot be scanned at byte level. Line positions are not available.
+ */
+public class CharLineReader implements LineReader {
+    private final BufferedReader reader;
+    private final Charset charset;
+    private String lastLine;
+    private byte[] lastLineBytes = new byte[0];
+
+    public CharLineReader(InputStream in, Charset charset, int bufferSize) {
+        this.reader = new BufferedReader(new InputStreamReader(in, charset), bufferSize);
+        this.charset = charset;
+    }
+
+    @Override
+    public String readLine() throws IOException {
+        return skipLine() ? lastLine : null;
+    }
+
+    @Override
+    public boolean skipLine() throws IOException {
+        String line = reader.readLine();
+        if (line == null) {
+            return false;
+        }
+        lastLine = line;
+        lastLineBytes = line.getBytes(charset);
+        return true;
+    }
+
+    @Override
+    public String decodeLastLine() {
+        return lastLine;
+    }
+
+    @Override
+    public byte[] copyLastLine() {
+        // encoded afresh for every line
+        return lastLineBytes;
+    }
+
+    @Override
+    public void digestLastLine(FileFingerprint fingerprint) {
+        fingerprint.update(lastLineBytes, 0, lastLineBytes.length);
+    }
+
+    @Override
+    public int getLastLineByteCount() {
+        return lastLineBytes.length;
+    }
+
+    @Override
+    public long getLastLineStart() {
+        return -1;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
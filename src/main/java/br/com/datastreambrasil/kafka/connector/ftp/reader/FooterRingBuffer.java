@@ -0,0 +1,85 @@
+package br.com.datastreambrasil.kafka.connector.ftp.reader;
+
+/**
+ * Fixed-size look-behind buffer used to drop the last N lines of a file without materializing it.
+ * A line is released only once N newer lines have been seen, so whatever is still held at EOF
+ * is the footer. Memory is O(N) regardless of file size.
+ * @param <T> decoded line or raw line bytes
+ */
+public class FooterRingBuffer<T> {
+    private final Object[] lines;
+    private final int[] byteCounts;
+    private final long[] startPositions;
+    private int head = 0;
+    private int size = 0;
+    private int releasedByteCount = 0;
+    private long releasedStartPosition = -1;
+
+    public FooterRingBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Footer buffer capacity must be positive: " + capacity);
+        }
+        this.lines = new Object[capacity];
+        this.byteCounts = new int[capacity];
+        this.startPositions = new long[capacity];
+    }
+
+    /**
+     * Add a line to the buffer
+     * @param line the line just read
+     * @param byteCount encoded size of the line, reported back when it is released
+     * @param startPosition byte offset of the line in the file, reported back when it is released
+     * @return the oldest line if the buffer was full, or null while it is still filling up
+     */
+    @SuppressWarnings("unchecked")
+    public T offer(T line, int byteCount, long startPosition) {
+        if (size < lines.length) {
+            int tail = (head + size) % lines.length;
+            lines[tail] = line;
+            byteCounts[tail] = byteCount;
+            startPositions[tail] = startPosition;
+            size++;
+            return null;
+        }
+
+        T released = (T) lines[head];
+        releasedByteCount = byteCounts[head];
+        releasedStartPosition = startPositions[head];
+        lines[head] = line;
+        byteCounts[head] = byteCount;
+        startPositions[head] = startPosition;
+        head = (head + 1) % lines.length;
+        return released;
+    }
+
+    /**
+     * Encoded size of the line returned by the last successful {@link #offer(Object, int, long)}
+     */
+    public int getReleasedByteCount() {
+        return releasedByteCount;
+    }
+
+    /**
+     * Byte offset of the line returned by the last successful {@link #offer(Object, int, long)}
+     */
+    public long getReleasedStartPosition() {
+        return releasedStartPosition;
+    }
+
+    /**
+     * Number of lines currently held, i.e. the footer lines once the file reached EOF
+     */
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        for (int i = 0; i < lines.length; i++) {
+            lines[i] = null;
+        }
+        head = 0;
+        size = 0;
+        releasedByteCount = 0;
+        releasedStartPosition = -1;
+    }
+}
@@ -0,0 +1,72 @@
+package br.com.datastreambrasil.kafka.connector.ftp.reader;
+
+import br.com.datastreambrasil.kafka.connector.ftp.hash.FileFingerprint;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * Reads lines terminated by \n, \r\n or \r from a file stream, keeping track of where each line starts
+ */
+public interface LineReader extends Closeable {
+
+    /**
+     * @return the next line without its terminator, or null at end of stream
+     */
+    String readLine() throws IOException;
+
+    /**
+     * Moves past the next line without decoding it; its size, start and bytes stay available
+     * @return false at end of stream
+     */
+    boolean skipLine() throws IOException;
+
+    /**
+     * @return the last line read or skipped, decoded with the reader's charset
+     */
+    String decodeLastLine();
+
+    /**
+     * @return a copy of the encoded bytes of the last line read or skipped, without its terminator
+     */
+    byte[] copyLastLine();
+
+    /**
+     * Feeds the encoded bytes of the last line, without its terminator, to the fingerprint
+     */
+    void digestLastLine(FileFingerprint fingerprint);
+
+    /**
+     * Encoded size in bytes of the last line returned, without its terminator
+     */
+    int getLastLineByteCount();
+
+    /**
+     * Byte offset in the file where the last line returned starts, or -1 if the reader cannot tell
+     */
+    long getLastLineStart();
+
+    /**
+     * Open a reader for the given charset. ASCII-compatible charsets are scanned at byte level,
+     * which gives exact line positions; others (UTF-16, UTF-32) go through a character reader.
+     * @param startPosition byte offset in the file of the first byte of {@code in}
+     */
+    static LineReader open(InputStream in, Charset charset, int bufferSize, long startPosition) {
+        return isAsciiCompatible(charset)
+                ? new ByteLineReader(in, charset, bufferSize, startPosition)
+                : new CharLineReader(in, charset, bufferSize);
+    }
+
+    /**
+     * Whether line terminators are encoded as the single bytes 0x0A/0x0D and never appear inside other characters
+     */
+    static boolean isAsciiCompatible(Charset charset) {
+        if (!charset.canEncode()) {
+            return false;
+        }
+        return Arrays.equals(new byte[]{'\n', '\r'}, "\n\r".getBytes(charset));
+    }
+}
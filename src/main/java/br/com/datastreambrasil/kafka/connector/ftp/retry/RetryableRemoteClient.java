@@ -1,10 +1,12 @@
 package br.com.datastreambrasil.kafka.connector.ftp.retry;
 
 import br.com.datastreambrasil.kafka.connector.ftp.RemoteClient;
+import br.com.datastreambrasil.kafka.connector.ftp.model.RemoteFileInfo;
 import org.apache.kafka.connect.errors.ConnectException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.Charset;
 import java.util.List;
@@ -37,11 +39,32 @@ public class RetryableRemoteClient implements RemoteClient {
         return executeWithRetry(() -> delegate.listFiles(directory, pattern), "listFiles");
     }
 
+    @Override
+    public List<RemoteFileInfo> listFileInfos(String directory, String pattern) throws Exception {
+        return executeWithRetry(() -> delegate.listFileInfos(directory, pattern), "listFileInfos");
+    }
+
+    @Override
+    public RemoteFileInfo getFileInfo(String filePath) throws Exception {
+        return executeWithRetry(() -> delegate.getFileInfo(filePath), "getFileInfo");
+    }
+
     @Override
     public InputStream retrieveFileStream(String filePath) throws Exception {
         return executeWithRetry(() -> delegate.retrieveFileStream(filePath), "retrieveFileStream");
     }
 
+    @Override
+    public InputStream retrieveFileStream(String filePath, long offset) throws Exception {
+        return executeWithRetry(() -> delegate.retrieveFileStream(filePath, offset), "retrieveFileStream");
+    }
+
+    @Override
+    public void completePending() throws IOException {
+        // Not retried: the transfer it completes cannot be replayed
+        delegate.completePending();
+    }
+
     @Override
     public void moveFile(String sourcePath, String destinationPath) throws Exception {
         executeWithRetry(() -> {
@@ -0,0 +1,80 @@
+package br.com.datastreambrasil.kafka.connector.ftp.shard;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Decides which listed files a task may claim. Each file name hashes to exactly one shard, so tasks
+ * listing the same directory never race for the same file. Optionally, a task whose shard has had no
+ * files for {@code stealAfterIdleMs} claims files of other shards, taking them from the end of the
+ * listing to stay away from the file their owner claims next.
+ */
+public class FileSharding {
+    private static final Logger log = LoggerFactory.getLogger(FileSharding.class);
+
+    public static final FileSharding NONE = new FileSharding(0, 1, 0);
+
+    private final int shardId;
+    private final int shardCount;
+    private final long stealAfterIdleMs;
+    private long idleSince = -1;
+
+    public FileSharding(int shardId, int shardCount, long stealAfterIdleMs) {
+        if (shardCount < 1 || shardId < 0 || shardId >= shardCount) {
+            throw new IllegalArgumentException("Invalid shard " + shardId + " of " + shardCount);
+        }
+        this.shardId = shardId;
+        this.shardCount = shardCount;
+        this.stealAfterIdleMs = stealAfterIdleMs;
+    }
+
+    public int getShardId() {
+        return shardId;
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    /**
+     * Shard of a file, computed from its name only so it does not change when the file is staged
+     */
+    public static int shardOf(String path, int shardCount) {
+        CRC32 crc = new CRC32();
+        crc.update(path.substring(path.lastIndexOf('/') + 1).getBytes(StandardCharsets.UTF_8));
+        return (int) (crc.getValue() % shardCount);
+    }
+
+    public boolean owns(String path) {
+        return shardCount == 1 || shardOf(path, shardCount) == shardId;
+    }
+
+    /**
+     * Picks the file to claim from a listing: the first file of this shard, or a file of another shard
+     * once this shard has been idle long enough. Returns null if there is nothing to claim.
+     */
+    public synchronized String select(List<String> files) {
+        for (String file : files) {
+            if (owns(file)) {
+                idleSince = -1;
+                return file;
+            }
+        }
+
+        long now = System.currentTimeMillis();
+        if (idleSince < 0) {
+            idleSince = now;
+        }
+        if (stealAfterIdleMs > 0 && !files.isEmpty() && now - idleSince >= stealAfterIdleMs) {
+            String file = files.get(files.size() - 1);
+            log.info("Shard {}/{} idle for {} ms, stealing {} from shard {}",
+                    shardId, shardCount, now - idleSince, file, shardOf(file, shardCount));
+            return file;
+        }
+        return null;
+    }
+}
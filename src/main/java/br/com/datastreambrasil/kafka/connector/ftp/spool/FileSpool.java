@@ -0,0 +1,172 @@
+package br.com.datastreambrasil.kafka.connector.ftp.spool;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Local disk copies of staged remote files. A copy is written to {@code <name>.part} and renamed
+ * once complete, so only complete copies are ever found again, e.g. after a task restart. A complete
+ * copy takes the modification time of the remote file, so that a copy left by an earlier run is only
+ * reused for the same version of the file.
+ * The total size of the spool directory is kept under {@code maxBytes} by evicting the oldest copies.
+ */
+public class FileSpool {
+    private static final Logger log = LoggerFactory.getLogger(FileSpool.class);
+
+    static final String PART_SUFFIX = ".part";
+    private static final long TRANSFER_CHUNK = 8L * 1024 * 1024;
+
+    private final Path directory;
+    private final long maxBytes;
+
+    public FileSpool(Path directory, long maxBytes) throws IOException {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        Files.createDirectories(directory);
+    }
+
+    /**
+     * Removes partial copies left behind by an interrupted transfer
+     */
+    public void cleanup() throws IOException {
+        for (Path file : listFiles()) {
+            if (file.getFileName().toString().endsWith(PART_SUFFIX)) {
+                log.info("Removing partial spool file {}", file);
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    /**
+     * Returns the complete local copy of the given file, or null if there is none
+     */
+    public Path find(String filename) {
+        Path file = resolve(filename);
+        return Files.isRegularFile(file) ? file : null;
+    }
+
+    /**
+     * True if the copy has the given size and modification time. A file re-sent under the same name
+     * often keeps its size, so an unknown modification time never matches.
+     */
+    public boolean isCopyOf(Path copy, long size, long lastModified) throws IOException {
+        return lastModified > 0 && Files.size(copy) == size && Files.getLastModifiedTime(copy).toMillis() == lastModified;
+    }
+
+    /**
+     * Copies the stream to the spool with channel transfers. Returns null, leaving nothing behind,
+     * if the copy does not fit in the quota even after evicting the other copies.
+     *
+     * @param expectedSize size announced by the server, or a negative value if unknown
+     * @param lastModified modification time of the remote file in epoch milliseconds, 0 if unknown
+     */
+    public Path spool(String filename, InputStream input, long expectedSize, long lastModified) throws IOException {
+        Path target = resolve(filename);
+        Path part = directory.resolve(target.getFileName() + PART_SUFFIX);
+        Files.deleteIfExists(target);
+
+        long budget = reserve(Math.max(expectedSize, 0), target);
+        if (budget < expectedSize) {
+            log.warn("File {} ({} bytes) does not fit in the spool quota of {} bytes", filename, expectedSize, maxBytes);
+            return null;
+        }
+
+        long startTime = System.currentTimeMillis();
+        long position = 0;
+        try (FileChannel out = FileChannel.open(part, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ReadableByteChannel in = Channels.newChannel(input);
+            long transferred;
+            while ((transferred = out.transferFrom(in, position, TRANSFER_CHUNK)) > 0) {
+                position += transferred;
+                if (position > budget) {
+                    budget = reserve(position, target);
+                    if (position > budget) {
+                        log.warn("Spool quota of {} bytes exceeded while copying {}", maxBytes, filename);
+                        out.close();
+                        Files.deleteIfExists(part);
+                        return null;
+                    }
+                }
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(part);
+            throw e;
+        }
+
+        if (lastModified > 0) {
+            Files.setLastModifiedTime(part, FileTime.fromMillis(lastModified));
+        }
+        Files.move(part, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        log.info("Spooled {} ({} bytes) to {} in {} ms", filename, position, target, System.currentTimeMillis() - startTime);
+        return target;
+    }
+
+    public void delete(String filename) throws IOException {
+        Files.deleteIfExists(resolve(filename));
+    }
+
+    /**
+     * Evicts the oldest copies until {@code bytes} fit next to the remaining ones, and returns
+     * how many bytes the new copy may use
+     */
+    private long reserve(long bytes, Path keep) throws IOException {
+        List<Path> files = listFiles();
+        files.removeIf(file -> file.getFileName().toString().endsWith(PART_SUFFIX) || file.equals(keep));
+        files.sort(Comparator.comparingLong(FileSpool::lastModified));
+
+        long used = 0;
+        for (Path file : files) {
+            used += Files.size(file);
+        }
+        for (Path file : files) {
+            if (used + bytes <= maxBytes) {
+                break;
+            }
+            log.info("Evicting spool file {} to stay under the {} bytes quota", file, maxBytes);
+            used -= Files.size(file);
+            Files.deleteIfExists(file);
+        }
+        return maxBytes - used;
+    }
+
+    private Path resolve(String filename) {
+        // staged names never contain separators, but a spool must never write outside its directory
+        return directory.resolve(filename.replaceAll("[/\\\\]", "_"));
+    }
+
+    private List<Path> listFiles() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path file : stream) {
+                if (Files.isRegularFile(file)) {
+                    files.add(file);
+                }
+            }
+        }
+        return files;
+    }
+
+    private static long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package br.com.datastreambrasil.kafka.connector.ftp.spool;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a local file through read-only memory-mapped windows. Reads are served from the page cache
+ * without a system call per read; the line reader still copies the bytes into its own buffer.
+ * Windows are remapped as the position advances, which keeps files larger than 2 GB readable.
+ */
+public class MappedFileInputStream extends InputStream {
+    public static final int DEFAULT_WINDOW_SIZE = 64 * 1024 * 1024;
+
+    private final FileChannel channel;
+    private final long size;
+    private final int windowSize;
+    private MappedByteBuffer window;
+    private long windowStart;
+    private long position;
+
+    public MappedFileInputStream(Path file, long position) throws IOException {
+        this(file, position, DEFAULT_WINDOW_SIZE);
+    }
+
+    public MappedFileInputStream(Path file, long position, int windowSize) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.size = channel.size();
+        this.windowSize = windowSize;
+        this.position = Math.min(Math.max(position, 0), size);
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!ensureWindow()) {
+            return -1;
+        }
+        position++;
+        return window.get() & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!ensureWindow()) {
+            return -1;
+        }
+        int n = Math.min(len, window.remaining());
+        window.get(b, off, n);
+        position += n;
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = Math.max(0, Math.min(n, size - position));
+        position += skipped;
+        if (window != null && position < windowStart + window.limit()) {
+            window.position((int) (position - windowStart));
+        } else {
+            window = null;
+        }
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        return window != null ? window.remaining() : 0;
+    }
+
+    /**
+     * Current position in the file
+     */
+    public long getPosition() {
+        return position;
+    }
+
+    @Override
+    public void close() throws IOException {
+        // the mapping itself is released when the buffer is collected
+        window = null;
+        channel.close();
+    }
+
+    private boolean ensureWindow() throws IOException {
+        if (position >= size) {
+            return false;
+        }
+        if (window == null || !window.hasRemaining()) {
+            windowStart = position;
+            window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(windowSize, size - position));
+        }
+        return true;
+    }
+}
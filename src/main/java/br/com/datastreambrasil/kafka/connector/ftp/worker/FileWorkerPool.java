@@ -0,0 +1,118 @@
+package br.com.datastreambrasil.kafka.connector.ftp.worker;
+
+import br.com.datastreambrasil.kafka.connector.ftp.FtpSourceTaskEnhanced;
+import br.com.datastreambrasil.kafka.connector.ftp.poll.PollScheduler;
+import org.apache.kafka.connect.errors.ConnectException;
+import org.apache.kafka.connect.source.SourceRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs several single-file tasks on their own threads and connections. Each worker processes its
+ * claimed file sequentially and appends the records to a shared bounded queue in order, so the
+ * records of one file keep their order and offsets; records of different files interleave.
+ */
+public class FileWorkerPool {
+    private static final Logger log = LoggerFactory.getLogger(FileWorkerPool.class);
+
+    private final List<FtpSourceTaskEnhanced> workers;
+    private final BlockingQueue<SourceRecord> queue;
+    private final long idleWaitMs;
+    private final long maxIdleWaitMs;
+    private final List<Thread> threads = new ArrayList<>();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private volatile boolean running = false;
+
+    // queued by stop() so a poll waiting for records returns right away
+    private static final SourceRecord WAKEUP = new SourceRecord(null, null, null, null, null);
+
+    public FileWorkerPool(List<FtpSourceTaskEnhanced> workers, int queueCapacity, long idleWaitMs, long maxIdleWaitMs) {
+        this.workers = workers;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.idleWaitMs = idleWaitMs;
+        this.maxIdleWaitMs = maxIdleWaitMs;
+    }
+
+    public void start() {
+        running = true;
+        for (int i = 0; i < workers.size(); i++) {
+            FtpSourceTaskEnhanced worker = workers.get(i);
+            Thread thread = new Thread(() -> run(worker), "ftp-worker-" + i);
+            thread.setDaemon(true);
+            threads.add(thread);
+            thread.start();
+        }
+        log.info("Started {} file workers", workers.size());
+    }
+
+    private void run(FtpSourceTaskEnhanced worker) {
+        // stop() interrupts the thread, which also ends an idle wait
+        PollScheduler idle = new PollScheduler(idleWaitMs, maxIdleWaitMs);
+        worker.setIdleScheduler(idle);
+        try {
+            while (running) {
+                List<SourceRecord> batch = worker.poll();
+                for (SourceRecord record : batch) {
+                    queue.put(record);
+                }
+                if (batch.isEmpty() && !worker.isProcessingFile()) {
+                    idle.awaitIdle();
+                } else {
+                    idle.onWork();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Throwable e) {
+            if (running) {
+                log.error("File worker {} failed", Thread.currentThread().getName(), e);
+                failure.compareAndSet(null, e);
+            }
+        }
+    }
+
+    /**
+     * Returns up to {@code maxRecords} queued records, waiting up to {@code timeoutMs} for the first one
+     */
+    public List<SourceRecord> poll(int maxRecords, long timeoutMs) throws InterruptedException {
+        Throwable error = failure.get();
+        if (error != null) {
+            throw error instanceof ConnectException
+                    ? (ConnectException) error
+                    : new ConnectException("File worker failed", error);
+        }
+
+        List<SourceRecord> records = new ArrayList<>(Math.min(maxRecords, queue.size() + 1));
+        SourceRecord first = queue.poll(timeoutMs, TimeUnit.MILLISECONDS);
+        if (first != null && first != WAKEUP) {
+            records.add(first);
+            queue.drainTo(records, maxRecords - 1);
+            if (!running) {
+                records.removeIf(record -> record == WAKEUP);
+            }
+        }
+        return records;
+    }
+
+    public void stop() {
+        running = false;
+        threads.forEach(Thread::interrupt);
+        for (Thread thread : threads) {
+            try {
+                thread.join(30000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        workers.forEach(FtpSourceTaskEnhanced::stop);
+        queue.clear();
+        queue.offer(WAKEUP);
+    }
+}
@@ -1,5 +1,6 @@
 package br.com.datastreambrasil.kafka.connector.ftp;
 
+import br.com.datastreambrasil.kafka.connector.ftp.model.RemoteFileInfo;
 import org.apache.commons.net.ftp.FTPClient;
 import org.apache.commons.net.ftp.FTPFile;
 import org.junit.jupiter.api.BeforeEach;
@@ -10,6 +11,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.Calendar;
 import java.util.List;
 import java.util.Map;
 
@@ -52,12 +54,30 @@ class FtpRemoteClientTest {
                 return super.listFiles(directory, pattern);
             }
 
+            @Override
+            public List<RemoteFileInfo> listFileInfos(String directory, String pattern) throws Exception {
+                injectMock();
+                return super.listFileInfos(directory, pattern);
+            }
+
+            @Override
+            public RemoteFileInfo getFileInfo(String filePath) throws Exception {
+                injectMock();
+                return super.getFileInfo(filePath);
+            }
+
             @Override
             public InputStream retrieveFileStream(String filePath) throws Exception {
                 injectMock();
                 return super.retrieveFileStream(filePath);
             }
 
+            @Override
+            public InputStream retrieveFileStream(String filePath, long offset) throws Exception {
+                injectMock();
+                return super.retrieveFileStream(filePath, offset);
+            }
+
             @Override
             public void moveFile(String sourcePath, String destinationPath) throws Exception {
                 injectMock();
@@ -126,6 +146,51 @@ class FtpRemoteClientTest {
         assertEquals("/data/valid.csv", result.get(0));
     }
 
+    @Test
+    void testListFileInfosCarriesSizeAndTimestamp() throws Exception {
+        FTPFile file1 = new FTPFile();
+        file1.setName("valid.csv");
+        file1.setType(FTPFile.FILE_TYPE);
+        file1.setSize(2048);
+        Calendar timestamp = Calendar.getInstance();
+        timestamp.setTimeInMillis(1700000000000L);
+        file1.setTimestamp(timestamp);
+
+        FTPFile dir = new FTPFile();
+        dir.setName("nested.csv");
+        dir.setType(FTPFile.DIRECTORY_TYPE);
+
+        when(mockFtpClient.listFiles("/data")).thenReturn(new FTPFile[] { file1, dir });
+
+        assertEquals(List.of(new RemoteFileInfo("/data/valid.csv", 2048, 1700000000000L)),
+                client.listFileInfos("/data", ".*\\.csv"));
+    }
+
+    @Test
+    void testGetFileInfoWithMlst() throws Exception {
+        FTPFile file = new FTPFile();
+        file.setSize(5000);
+        Calendar timestamp = Calendar.getInstance();
+        timestamp.setTimeInMillis(1700000000000L);
+        file.setTimestamp(timestamp);
+        when(mockFtpClient.mlistFile("/stage/file.csv")).thenReturn(file);
+
+        assertEquals(new RemoteFileInfo("/stage/file.csv", 5000, 1700000000000L), client.getFileInfo("/stage/file.csv"));
+        verify(mockFtpClient, never()).listFiles(anyString());
+    }
+
+    @Test
+    void testGetFileInfoFallsBackToList() throws Exception {
+        FTPFile file = new FTPFile();
+        file.setType(FTPFile.FILE_TYPE);
+        file.setSize(5000);
+        when(mockFtpClient.listFiles("/stage/file.csv")).thenReturn(new FTPFile[] { file });
+
+        assertEquals(5000, client.getFileInfo("/stage/file.csv").getSize());
+        when(mockFtpClient.listFiles("/stage/file.csv")).thenReturn(new FTPFile[0]);
+        assertThrows(Exception.class, () -> client.getFileInfo("/stage/file.csv"));
+    }
+
     @Test
     void testRetrieveFileStream() throws Exception {
         String content = "line1,line2";
@@ -139,6 +204,17 @@ class FtpRemoteClientTest {
         assertEquals(content, new String(result.readAllBytes(), StandardCharsets.UTF_8));
     }
 
+    @Test
+    void testRetrieveFileStreamFromOffset() throws Exception {
+        InputStream mockStream = new ByteArrayInputStream("line2".getBytes(StandardCharsets.UTF_8));
+        when(mockFtpClient.retrieveFileStream("/file.csv")).thenReturn(mockStream);
+
+        InputStream result = client.retrieveFileStream("/file.csv", 6);
+
+        assertEquals("line2", new String(result.readAllBytes(), StandardCharsets.UTF_8));
+        verify(mockFtpClient).setRestartOffset(6);
+    }
+
     @Test
     void testRetrieveFileStreamNull() {
         assertThrows(Exception.class, () -> client.retrieveFileStream("/missing.txt"));
@@ -1,12 +1,16 @@
 package br.com.datastreambrasil.kafka.connector.ftp;
 
+import br.com.datastreambrasil.kafka.connector.ftp.model.RemoteFileInfo;
 import org.apache.kafka.common.config.ConfigDef;
+import org.apache.kafka.connect.connector.ConnectorContext;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
 
 class FtpSourceConnectorTest {
 
@@ -42,7 +46,65 @@ class FtpSourceConnectorTest {
         List<Map<String, String>> taskConfigs = connector.taskConfigs(2);
 
         assertEquals(2, taskConfigs.size());
-        assertEquals(config, taskConfigs.get(0));
+        for (int i = 0; i < 2; i++) {
+            Map<String, String> taskConfig = new HashMap<>(taskConfigs.get(i));
+            assertEquals(String.valueOf(i), taskConfig.remove(FtpSourceConnector.FTP_TASK_ID));
+            assertEquals(String.valueOf(i), taskConfig.remove(FtpSourceConnector.FTP_TASK_SHARD_ID));
+            assertEquals("2", taskConfig.remove(FtpSourceConnector.FTP_TASK_SHARD_COUNT));
+            assertEquals(config, taskConfig);
+        }
+    }
+
+    @Test
+    void testMonitorAssignsFilesBySize() throws Exception {
+        RemoteClient client = mock(RemoteClient.class);
+        when(client.listFileInfos("/stage", ".*\\.txt")).thenReturn(List.of());
+        when(client.listFileInfos("/input", ".*\\.txt")).thenReturn(List.of(
+                new RemoteFileInfo("/input/small.txt", 10, 0),
+                new RemoteFileInfo("/input/large.txt", 1000, 0),
+                new RemoteFileInfo("/input/medium.txt", 500, 0)));
+        FtpSourceConnector monitored = new FtpSourceConnector() {
+            @Override
+            protected RemoteClient createClient(Map<String, String> props) {
+                return client;
+            }
+        };
+        config.put(FtpSourceConnector.FTP_MONITOR_ENABLED, "true");
+        config.put(FtpSourceConnector.FTP_MONITOR_INTERVAL_MS, "60000");
+        monitored.initialize(mock(ConnectorContext.class));
+        monitored.start(config);
+
+        try {
+            List<Map<String, String>> taskConfigs = monitored.taskConfigs(2);
+
+            assertEquals(2, taskConfigs.size());
+            assertEquals("/input/large.txt", taskConfigs.get(0).get(FtpSourceConnector.FTP_TASK_ASSIGNED_FILES));
+            assertEquals("/input/medium.txt\n/input/small.txt",
+                    taskConfigs.get(1).get(FtpSourceConnector.FTP_TASK_ASSIGNED_FILES));
+            assertNull(taskConfigs.get(0).get(FtpSourceConnector.FTP_TASK_SHARD_COUNT));
+            verify(client).connect();
+        } finally {
+            monitored.stop();
+        }
+        verify(client).disconnect();
+    }
+
+    @Test
+    void testMonitorRunsNoTasksWithoutBacklog() throws Exception {
+        RemoteClient client = mock(RemoteClient.class);
+        when(client.listFileInfos(anyString(), anyString())).thenReturn(List.of());
+        FtpSourceConnector monitored = new FtpSourceConnector() {
+            @Override
+            protected RemoteClient createClient(Map<String, String> props) {
+                return client;
+            }
+        };
+        config.put(FtpSourceConnector.FTP_MONITOR_ENABLED, "true");
+        monitored.initialize(mock(ConnectorContext.class));
+        monitored.start(config);
+
+        assertTrue(monitored.taskConfigs(4).isEmpty());
+        monitored.stop();
     }
 
     @Test
@@ -0,0 +1,1268 @@
+package br.com.datastreambrasil.kafka.connector.ftp;
+
+import br.com.datastreambrasil.kafka.connector.ftp.hash.Murmur3;
+import br.com.datastreambrasil.kafka.connector.ftp.metrics.ProcessingMetrics;
+import br.com.datastreambrasil.kafka.connector.ftp.model.FileRange;
+import br.com.datastreambrasil.kafka.connector.ftp.model.RemoteFileInfo;
+import br.com.datastreambrasil.kafka.connector.ftp.shard.FileSharding;
+import com.sun.management.ThreadMXBean;
+import org.apache.kafka.connect.data.Field;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.errors.ConnectException;
+import org.apache.kafka.connect.source.SourceRecord;
+import org.apache.kafka.connect.source.SourceTaskContext;
+import org.apache.kafka.connect.storage.OffsetStorageReader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class FtpSourceTaskEnhancedTest {
+
+    /**
+     * Generates "id;payload" lines on the fly so that arbitrarily large files never exist in memory.
+     */
+    static class GeneratedLinesInputStream extends InputStream {
+        private final long totalLines;
+        private final String payload;
+        private long currentLine = 0;
+        private byte[] lineBytes = new byte[0];
+        private int linePos = 0;
+
+        GeneratedLinesInputStream(long totalLines) {
+            this(totalLines, "payload-payload-payload-payload");
+        }
+
+        GeneratedLinesInputStream(long totalLines, String payload) {
+            this.totalLines = totalLines;
+            this.payload = payload;
+        }
+
+        private boolean fill() {
+            if (linePos < lineBytes.length) return true;
+            if (currentLine >= totalLines) return false;
+            currentLine++;
+            lineBytes = (currentLine + ";" + payload + "\n").getBytes(StandardCharsets.US_ASCII);
+            linePos = 0;
+            return true;
+        }
+
+        @Override
+        public int read() {
+            return fill() ? lineBytes[linePos++] & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) return 0;
+            int n = 0;
+            while (n < len && fill()) {
+                int chunk = Math.min(len - n, lineBytes.length - linePos);
+                System.arraycopy(lineBytes, linePos, b, off + n, chunk);
+                linePos += chunk;
+                n += chunk;
+            }
+            return n == 0 ? -1 : n;
+        }
+    }
+
+    private Map<String, String> createBaseConfig(String format) {
+        Map<String, String> props = new HashMap<>();
+        props.put(FtpSourceConnectorEnhanced.FTP_PROTOCOL, "sftp");
+        props.put(FtpSourceConnectorEnhanced.FTP_HOST, "localhost");
+        props.put(FtpSourceConnectorEnhanced.FTP_PORT, "22");
+        props.put(FtpSourceConnectorEnhanced.FTP_USERNAME, "user");
+        props.put(FtpSourceConnectorEnhanced.FTP_PASSWORD, "pass");
+        props.put(FtpSourceConnectorEnhanced.FTP_DIRECTORY, "/mock");
+        props.put(FtpSourceConnectorEnhanced.FTP_DIRECTORY_STAGE, "/mock-stage");
+        props.put(FtpSourceConnectorEnhanced.FTP_DIRECTORY_ARCHIVE, "/mock-archive");
+        props.put(FtpSourceConnectorEnhanced.FTP_FILE_PATTERN, ".*\\.txt");
+        props.put(FtpSourceConnectorEnhanced.FTP_FILE_ENCODING, "UTF-8");
+        props.put(FtpSourceConnectorEnhanced.FTP_FILE_OUTPUT_FORMAT, format);
+        props.put(FtpSourceConnectorEnhanced.FTP_FILE_TOKENIZER, ";");
+        props.put(FtpSourceConnectorEnhanced.FTP_FILE_HEADERS, "tipo,data,hora,code,value");
+        props.put(FtpSourceConnectorEnhanced.FTP_POLL_INTERVAL, "0");
+        props.put(FtpSourceConnectorEnhanced.FTP_MAX_RECORDS_PER_POLL, "1000");
+        props.put(FtpSourceConnectorEnhanced.TOPIC, "test-topic");
+        return props;
+    }
+
+    private RemoteClient createMockClient(InputStream inputStream) throws Exception {
+        RemoteClient mockClient = mock(RemoteClient.class);
+        when(mockClient.listFiles(anyString(), any())).thenReturn(List.of("/mock/test.txt"), List.of());
+        when(mockClient.retrieveFileStream(anyString())).thenReturn(inputStream);
+        doNothing().when(mockClient).moveFile(anyString(), anyString());
+        doNothing().when(mockClient).deleteFile(anyString());
+        doNothing().when(mockClient).writeTextFile(anyString(), anyString(), any(Charset.class));
+        return mockClient;
+    }
+
+    private FtpSourceTaskEnhanced createTask(RemoteClient client, Map<String, String> config) {
+        return createTask(client, config, null);
+    }
+
+    private FtpSourceTaskEnhanced createTask(RemoteClient client, Map<String, String> config,
+                                             Map<String, Object> storedOffset) {
+        OffsetStorageReader offsetReader = mock(OffsetStorageReader.class);
+        when(offsetReader.offset(any())).thenReturn(storedOffset);
+        SourceTaskContext context = mock(SourceTaskContext.class);
+        when(context.offsetStorageReader()).thenReturn(offsetReader);
+
+        FtpSourceTaskEnhanced task = new FtpSourceTaskEnhanced();
+        task.initialize(context);
+        task.setClient(client);
+        task.start(config);
+        return task;
+    }
+
+    private InputStream resource(String name) {
+        InputStream input = getClass().getClassLoader().getResourceAsStream(name);
+        assertNotNull(input, "Arquivo " + name + " não encontrado em src/test/resources!");
+        return input;
+    }
+
+    /**
+     * Polls and commits what was returned, as the worker does once the producer acknowledges the records
+     */
+    private List<SourceRecord> pollAndCommit(FtpSourceTaskEnhanced task) throws Exception {
+        List<SourceRecord> records = task.poll();
+        for (SourceRecord record : records) {
+            task.commitRecord(record, null);
+        }
+        return records;
+    }
+
+    private List<SourceRecord> pollUntilArchived(FtpSourceTaskEnhanced task, RemoteClient client) throws Exception {
+        List<SourceRecord> total = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            total.addAll(pollAndCommit(task));
+            if (mockingDetails(client).getInvocations().stream()
+                    .anyMatch(inv -> inv.getMethod().getName().equals("deleteFile"))) {
+                return total;
+            }
+        }
+        fail("File was never archived");
+        return total;
+    }
+
+    @Test
+    void testBufferedModeReturnsEveryLineAcrossPolls() throws Exception {
+        Map<String, String> cfg = createBaseConfig("json");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_MAX_RECORDS_PER_POLL, "10");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_FILE_STREAMING_ENABLED, "false");
+
+        RemoteClient client = createMockClient(resource("WB1.txt"));
+        FtpSourceTaskEnhanced task = createTask(client, cfg);
+
+        List<SourceRecord> records = pollUntilArchived(task, client);
+
+        assertEquals(32, records.size());
+        assertEquals("WB", ((Struct) records.get(0).value()).getString("tipo"));
+        verify(client).deleteFile("/mock-stage/test.txt");
+    }
+
+    @Test
+    void testStreamingModeReturnsEveryLineAcrossPolls() throws Exception {
+        Map<String, String> cfg = createBaseConfig("json");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_MAX_RECORDS_PER_POLL, "10");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_FILE_STREAMING_ENABLED, "true");
+
+        RemoteClient client = createMockClient(resource("WB1.txt"));
+        FtpSourceTaskEnhanced task = createTask(client, cfg);
+
+        List<SourceRecord> first = pollAndCommit(task);
+        assertEquals(10, first.size());
+        verify(client, never()).deleteFile(anyString());
+
+        List<SourceRecord> records = new ArrayList<>(first);
+        records.addAll(pollUntilArchived(task, client));
+
+        assertEquals(32, records.size());
+        assertEquals(0L, records.get(0).sourceOffset().get("line_number"));
+        assertEquals(31L, records.get(31).sourceOffset().get("line_number"));
+        verify(client).writeTextFile(startsWith("/mock-archive/test_"), contains("Lines processed: 32"), any(Charset.class));
+    }
+
+    @Test
+    void testStreamingModeIngestsFileLargerThanHeap() throws Exception {
+        // Each generated line is ~40 bytes; produce more bytes than the JVM is allowed to hold
+        long maxHeap = Runtime.getRuntime().maxMemory();
+        long totalLines = (maxHeap + 64L * 1024 * 1024) / 40;
+
+        Map<String, String> cfg = createBaseConfig("string");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_MAX_RECORDS_PER_POLL, "10000");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_FILE_STREAMING_ENABLED, "true");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_METRICS_INTERVAL_LINES, "1000000");
+
+        RemoteClient client = createMockClient(new GeneratedLinesInputStream(totalLines));
+        FtpSourceTaskEnhanced task = createTask(client, cfg);
+
+        long received = 0;
+        String lastValue = null;
+        List<SourceRecord> batch;
+        do {
+            batch = pollAndCommit(task);
+            assertTrue(batch.size() <= 10000);
+            received += batch.size();
+            if (!batch.isEmpty()) {
+                lastValue = (String) batch.get(batch.size() - 1).value();
+            }
+        } while (!batch.isEmpty());
+
+        assertEquals(totalLines, received);
+        assertEquals(totalLines + ";payload-payload-payload-payload", lastValue);
+        verify(client).deleteFile("/mock-stage/test.txt");
+    }
+
+    private Map<String, Object> offsetOfLine(long lineNumber) throws Exception {
+        Map<String, String> cfg = createBaseConfig("string");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_FILE_HASH_CHECKPOINT_LINES, "1000");
+
+        RemoteClient client = createMockClient(new GeneratedLinesInputStream(2500));
+        List<SourceRecord> records = pollUntilArchived(createTask(client, cfg), client);
+        assertEquals(2500, records.size());
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> offset = (Map<String, Object>) records.get((int) lineNumber).sourceOffset();
+        assertEquals(lineNumber, offset.get("line_number"));
+        return offset;
+    }
+
+    @Test
+    void testStreamingModeStoresPrefixCheckpoints() throws Exception {
+        Map<String, Object> offset = offsetOfLine(2200);
+
+        assertEquals("crc32c", offset.get("hash_algorithm"));
+        assertEquals(2000L, offset.get("hash_checkpoint_line"));
+        assertNotNull(offset.get("hash_checkpoint"));
+        assertNull(offsetOfLine(999).get("hash_checkpoint"));
+        assertEquals(1000L, offsetOfLine(1000).get("hash_checkpoint_line"));
+    }
+
+    private Map<String, Object> offsetOfLineWithoutPosition(long lineNumber) throws Exception {
+        Map<String, Object> offset = new HashMap<>(offsetOfLine(lineNumber));
+        offset.remove("byte_position");
+        offset.remove("line_hash");
+        return offset;
+    }
+
+    @Test
+    void testStreamingResumeWhenCheckpointMatches() throws Exception {
+        Map<String, Object> storedOffset = offsetOfLineWithoutPosition(2200);
+
+        RemoteClient client = createMockClient(new GeneratedLinesInputStream(2500));
+        List<SourceRecord> records = pollUntilArchived(createTask(client, createBaseConfig("string"), storedOffset), client);
+
+        assertEquals(300, records.size());
+        assertEquals(2200L, records.get(0).sourceOffset().get("line_number"));
+        assertEquals("2201;payload-payload-payload-payload", records.get(0).value());
+        verify(client, times(1)).retrieveFileStream(anyString());
+    }
+
+    @Test
+    void testStreamingRestartsWhenCheckpointDoesNotMatch() throws Exception {
+        Map<String, Object> storedOffset = offsetOfLineWithoutPosition(2200);
+
+        RemoteClient client = createMockClient(null);
+        when(client.retrieveFileStream(anyString()))
+                .thenAnswer(inv -> new GeneratedLinesInputStream(2500, "resent-with-different-content"));
+        List<SourceRecord> records = pollUntilArchived(createTask(client, createBaseConfig("string"), storedOffset), client);
+
+        assertEquals(2500, records.size());
+        assertEquals(0L, records.get(0).sourceOffset().get("line_number"));
+        assertEquals("1;resent-with-different-content", records.get(0).value());
+        verify(client, times(2)).retrieveFileStream(anyString());
+    }
+
+    @Test
+    void testStreamingResumeAtBytePosition() throws Exception {
+        Map<String, Object> storedOffset = offsetOfLine(2200);
+        long position = (Long) storedOffset.get("byte_position");
+
+        RemoteClient client = createMockClient(null);
+        when(client.retrieveFileStream(anyString(), anyLong())).thenAnswer(inv -> {
+            InputStream input = new GeneratedLinesInputStream(2500);
+            input.skipNBytes(inv.getArgument(1));
+            return input;
+        });
+        List<SourceRecord> records = pollUntilArchived(createTask(client, createBaseConfig("string"), storedOffset), client);
+
+        assertEquals(300, records.size());
+        assertEquals(2200L, records.get(0).sourceOffset().get("line_number"));
+        assertEquals(position, records.get(0).sourceOffset().get("byte_position"));
+        assertEquals("2201;payload-payload-payload-payload", records.get(0).value());
+        assertEquals(2000L, records.get(299).sourceOffset().get("hash_checkpoint_line"));
+        verify(client).retrieveFileStream("/mock-stage/test.txt", position);
+        verify(client, never()).retrieveFileStream(anyString());
+    }
+
+    @Test
+    void testStreamingRestartsWhenLineAtBytePositionDoesNotMatch() throws Exception {
+        Map<String, Object> storedOffset = offsetOfLine(2200);
+
+        RemoteClient client = createMockClient(null);
+        when(client.retrieveFileStream(anyString(), anyLong())).thenAnswer(inv -> {
+            InputStream input = new GeneratedLinesInputStream(2500, "resent-with-different-content");
+            input.skipNBytes(inv.getArgument(1));
+            return input;
+        });
+        when(client.retrieveFileStream(anyString()))
+                .thenAnswer(inv -> new GeneratedLinesInputStream(2500, "resent-with-different-content"));
+        List<SourceRecord> records = pollUntilArchived(createTask(client, createBaseConfig("string"), storedOffset), client);
+
+        assertEquals(2500, records.size());
+        assertEquals("1;resent-with-different-content", records.get(0).value());
+        verify(client, times(2)).retrieveFileStream(anyString());
+        verify(client, atLeastOnce()).completePending();
+    }
+
+    @Test
+    void testMetadataIdentityResumesWithoutReplayVerification() throws Exception {
+        Map<String, String> cfg = createBaseConfig("string");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_FILE_IDENTITY_STRATEGY, "metadata");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_FILE_IDENTITY_SAMPLE_BYTES, "0");
+        Map<String, Object> storedOffset = new HashMap<>();
+        storedOffset.put("filename", "test.txt");
+        storedOffset.put("line_number", 2200L);
+        storedOffset.put("file_identity", "81000:1700000000000");
+
+        RemoteClient client = createMockClient(new GeneratedLinesInputStream(2500));
+        when(client.getFileInfo("/mock-stage/test.txt")).thenReturn(new RemoteFileInfo("/mock-stage/test.txt", 81000, 1700000000000L));
+        List<SourceRecord> records = pollUntilArchived(createTask(client, cfg, storedOffset), client);
+
+        assertEquals(300, records.size());
+        assertEquals("2201;payload-payload-payload-payload", records.get(0).value());
+        assertEquals("81000:1700000000000", records.get(0).sourceOffset().get("file_identity"));
+    }
+
+    @Test
+    void testMetadataIdentityMismatchStartsOver() throws Exception {
+        Map<String, String> cfg = createBaseConfig("string");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_FILE_IDENTITY_STRATEGY, "metadata");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_FILE_IDENTITY_SAMPLE_BYTES, "0");
+        Map<String, Object> storedOffset = new HashMap<>(offsetOfLineWithoutPosition(2200));
+        storedOffset.put("file_identity", "81000:1600000000000");
+
+        RemoteClient client = createMockClient(new GeneratedLinesInputStream(2500));
+        when(client.getFileInfo("/mock-stage/test.txt")).thenReturn(new RemoteFileInfo("/mock-stage/test.txt", 81000, 1700000000000L));
+        List<SourceRecord> records = pollUntilArchived(createTask(client, cfg, storedOffset), client);
+
+        // the checkpoint would have matched, but the identity already tells the file was replaced
+        assertEquals(2500, records.size());
+        verify(client, times(1)).retrieveFileStream(anyString());
+    }
+
+    @Test
+    void testSpooledFileIsParsedLocally(@TempDir Path spoolDir) throws Exception {
+        Map<String, String> cfg = createBaseConfig("string");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_FILE_SPOOL_ENABLED, "true");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_FILE_SPOOL_DIR, spoolDir.toString());
+
+        RemoteClient client = createMockClient(new GeneratedLinesInputStream(2500));
+        FtpSourceTaskEnhanced task = createTask(client, cfg);
+        List<SourceRecord> records = new ArrayList<>(pollAndCommit(task));
+
+        // the transfer is completed before the first records are parsed
+        verify(client, times(1)).completePending();
+        assertTrue(Files.exists(spoolDir.resolve("task-0/test.txt")));
+
+        records.addAll(pollUntilArchived(task, client));
+        assertEquals(2500, records.size());
+        assertEquals("2500;payload-payload-payload-payload", records.get(2499).value());
+        verify(client, times(1)).completePending();
+        assertFalse(Files.exists(spoolDir.resolve("task-0/test.txt")));
+    }
+
+    @Test
+    void testSpooledCopyIsKeptUntilRecordsAreCommitted(@TempDir Path spoolDir) throws Exception {
+        Map<String, String> cfg = createBaseConfig("string");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_FILE_SPOOL_ENABLED, "true");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_FILE_SPOOL_DIR, spoolDir.toString());
+
+        RemoteClient client = createMockClient(new GeneratedLinesInputStream(10));
+        FtpSourceTaskEnhanced task = createTask(client, cfg);
+        List<SourceRecord> records = task.poll();
+        assertEquals(10, records.size());
+        assertFalse(task.isProcessingFile());
+        task.poll();
+
+        // a restart now would resume from the local copy
+        assertTrue(Files.exists(spoolDir.resolve("task-0/test.txt")));
+
+        for (SourceRecord record : records) {
+            task.commitRecord(record, null);
+        }
+        task.poll();
+        verify(client).deleteFile("/mock-stage/test.txt");
+        assertFalse(Files.exists(spoolDir.resolve("task-0/test.txt")));
+    }
+
+    @Test
+    void testSpooledCopyIsReusedAfterRestart(@TempDir Path spoolDir) throws Exception {
+        Map<String, Object> storedOffset = offsetOfLine(2200);
+        byte[] content = new GeneratedLinesInputStream(2500).readAllBytes();
+        Files.createDirectories(spoolDir.resolve("task-0"));
+        Files.write(spoolDir.resolve("task-0/test.txt"), content);
+        Files.setLastModifiedTime(spoolDir.resolve("task-0/test.txt"), FileTime.fromMillis(1700000000000L));
+        Map<String, String> cfg = createBaseConfig("string");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_FILE_SPOOL_ENABLED, "true");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_FILE_SPOOL_DIR, spoolDir.toString());
+
+        RemoteClient client = createMockClient(null);
+        when(client.getFileInfo("/mock-stage/test.txt"))
+                .thenReturn(new RemoteFileInfo("/mock-stage/test.txt", content.length, 1700000000000L));
+        List<SourceRecord> records = pollUntilArchived(createTask(client, cfg, storedOffset), client);
+
+        assertEquals(300, records.size());
+        assertEquals("2201;payload-payload-payload-payload", records.get(0).value());
+        verify(client, never()).retrieveFileStream(anyString());
+        verify(client, never()).retrieveFileStream(anyString(), anyLong());
+        verify(client, never()).completePending();
+    }
+
+    @Test
+    void testSpooledCopyOfAnotherVersionIsNotReused(@TempDir Path spoolDir) throws Exception {
+        byte[] content = new GeneratedLinesInputStream(2500).readAllBytes();
+        Files.createDirectories(spoolDir.resolve("task-0"));
+        Files.write(spoolDir.resolve("task-0/test.txt"), content);
+        Files.setLastModifiedTime(spoolDir.resolve("task-0/test.txt"), FileTime.fromMillis(1700000000000L));
+        Map<String, String> cfg = createBaseConfig("string");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_FILE_SPOOL_ENABLED, "true");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_FILE_SPOOL_DIR, spoolDir.toString());
+
+        // re-sent with the same size but new content
+        RemoteClient client = createMockClient(new GeneratedLinesInputStream(2500, "changed-changed-changed-changed"));
+        when(client.getFileInfo("/mock-stage/test.txt"))
+                .thenReturn(new RemoteFileInfo("/mock-stage/test.txt", content.length, 1700086400000L));
+        List<SourceRecord> records = pollUntilArchived(createTask(client, cfg), client);
+
+        assertEquals(2500, records.size());
+        assertEquals("1;changed-changed-changed-changed", records.get(0).value());
+        verify(client, times(1)).retrieveFileStream(anyString());
+    }
+
+    @Test
+    void testStartingTaskLeavesOtherTasksSpoolsAlone(@TempDir Path spoolDir) throws Exception {
+        Files.createDirectories(spoolDir.resolve("task-0"));
+        Files.createDirectories(spoolDir.resolve("task-1"));
+        Files.write(spoolDir.resolve("task-0/left.txt.part"), new byte[10]);
+        Files.write(spoolDir.resolve("task-1/copying.txt.part"), new byte[10]);
+        Map<String, String> cfg = createBaseConfig("string");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_FILE_SPOOL_ENABLED, "true");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_FILE_SPOOL_DIR, spoolDir.toString());
+        cfg.put(FtpSourceConnectorEnhanced.FTP_TASK_ID, "0");
+
+        createTask(createMockClient(null), cfg);
+
+        assertFalse(Files.exists(spoolDir.resolve("task-0/left.txt.part")));
+        // task 1 may still be writing it
+        assertTrue(Files.exists(spoolDir.resolve("task-1/copying.txt.part")));
+    }
+
+    @Test
+    void testPrefetchClaimsNextFileWhileEmitting() throws Exception {
+        Map<String, String> cfg = createBaseConfig("string");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_FILE_PREFETCH_DEPTH, "1");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_FILE_PREFETCH_BYTES, "1000");
+
+        RemoteClient prefetchClient = mock(RemoteClient.class);
+        when(prefetchClient.listFiles(anyString(), any())).thenReturn(List.of("/mock/a.txt", "/mock/b.txt"), List.of());
+        when(prefetchClient.retrieveFileStream("/mock-stage/a.txt")).thenReturn(new GeneratedLinesInputStream(1500));
+        when(prefetchClient.retrieveFileStream("/mock-stage/b.txt")).thenReturn(new GeneratedLinesInputStream(10));
+        RemoteClient client = createMockClient(null);
+        when(client.retrieveFileStream(anyString(), anyLong())).thenAnswer(inv -> {
+            InputStream input = new GeneratedLinesInputStream(1500);
+            input.skipNBytes(inv.getArgument(1));
+            return input;
+        });
+
+        OffsetStorageReader offsetReader = mock(OffsetStorageReader.class);
+        SourceTaskContext context = mock(SourceTaskContext.class);
+        when(context.offsetStorageReader()).thenReturn(offsetReader);
+        FtpSourceTaskEnhanced task = new FtpSourceTaskEnhanced();
+        task.initialize(context);
+        task.setClient(client);
+        task.setPrefetchClient(prefetchClient);
+        task.start(cfg);
+
+        List<SourceRecord> records = new ArrayList<>(pollAndCommit(task));
+        // b.txt is claimed in the background while a.txt is still being emitted
+        verify(prefetchClient, timeout(5000)).moveFile("/mock/b.txt", "/mock-stage/b.txt");
+        for (int i = 0; i < 10; i++) {
+            records.addAll(pollAndCommit(task));
+        }
+        task.stop();
+
+        assertEquals(1510, records.size());
+        assertEquals("1500;payload-payload-payload-payload", records.get(1499).value());
+        assertEquals("b.txt", records.get(1500).sourcePartition().get("file"));
+        // the head of a.txt came from the prefetch, the rest was resumed after it; b.txt fit in its head
+        verify(client).retrieveFileStream("/mock-stage/a.txt", 1000L);
+        verify(client, never()).retrieveFileStream(anyString());
+        verify(client, never()).listFiles(anyString(), any());
+        verify(client).deleteFile("/mock-stage/a.txt");
+        verify(client).deleteFile("/mock-stage/b.txt");
+    }
+
+    /**
+     * A task with workers whose connections serve files of {@code lines} generated lines from any position
+     */
+    private FtpSourceTaskEnhanced createWorkerTask(Map<String, String> cfg, RemoteClient prefetchClient,
+                                                   List<RemoteClient> workerClients, long lines) {
+        OffsetStorageReader offsetReader = mock(OffsetStorageReader.class);
+        SourceTaskContext context = mock(SourceTaskContext.class);
+        when(context.offsetStorageReader()).thenReturn(offsetReader);
+        FtpSourceTaskEnhanced task = new FtpSourceTaskEnhanced() {
+            @Override
+            protected RemoteClient createClient(Map<String, String> props) {
+                RemoteClient client = mock(RemoteClient.class);
+                try {
+                    when(client.retrieveFileStream(anyString(), anyLong())).thenAnswer(inv -> {
+                        InputStream input = new GeneratedLinesInputStream(lines);
+                        input.skipNBytes(inv.getArgument(1));
+                        return input;
+                    });
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+                workerClients.add(client);
+                return client;
+            }
+        };
+        task.initialize(context);
+        task.setPrefetchClient(prefetchClient);
+        task.start(cfg);
+        return task;
+    }
+
+    @Test
+    void testWorkersProcessFilesInParallelKeepingPerFileOrder() throws Exception {
+        Map<String, String> cfg = createBaseConfig("string");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_WORKERS, "3");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_WORKER_QUEUE_CAPACITY, "100");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_MAX_RECORDS_PER_POLL, "50");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_FILE_PREFETCH_BYTES, "1000");
+
+        RemoteClient prefetchClient = mock(RemoteClient.class);
+        when(prefetchClient.listFiles(anyString(), any()))
+                .thenReturn(List.of("/mock/a.txt", "/mock/b.txt", "/mock/c.txt", "/mock/d.txt"), List.of());
+        when(prefetchClient.retrieveFileStream(anyString())).thenAnswer(inv -> new GeneratedLinesInputStream(400));
+        List<RemoteClient> workerClients = new ArrayList<>();
+        FtpSourceTaskEnhanced task = createWorkerTask(cfg, prefetchClient, workerClients, 400);
+
+        Map<Object, List<Long>> linesByFile = new HashMap<>();
+        long deadline = System.currentTimeMillis() + 10000;
+        while (System.currentTimeMillis() < deadline && linesByFile.values().stream().mapToInt(List::size).sum() < 1600) {
+            for (SourceRecord record : pollAndCommit(task)) {
+                assertTrue(record.value().toString().startsWith((Long) record.sourceOffset().get("line_number") + 1 + ";"));
+                linesByFile.computeIfAbsent(record.sourcePartition().get("file"), k -> new ArrayList<>())
+                        .add((Long) record.sourceOffset().get("line_number"));
+            }
+        }
+        task.stop();
+
+        assertEquals(Set.of("a.txt", "b.txt", "c.txt", "d.txt"), linesByFile.keySet());
+        for (List<Long> lines : linesByFile.values()) {
+            assertEquals(400, lines.size());
+            for (int i = 0; i < lines.size(); i++) {
+                assertEquals(i, lines.get(i));
+            }
+        }
+        assertEquals(3, workerClients.size());
+        for (String name : List.of("a.txt", "b.txt", "c.txt", "d.txt")) {
+            long deletes = workerClients.stream()
+                    .filter(c -> mockingDetails(c).getInvocations().stream().anyMatch(inv ->
+                            inv.getMethod().getName().equals("deleteFile") && inv.getArgument(0).equals("/mock-stage/" + name)))
+                    .count();
+            assertEquals(1, deletes, name);
+        }
+    }
+
+    @Test
+    void testWorkersTuneBatchesFromTheirOwnAcks() throws Exception {
+        Map<String, String> cfg = createBaseConfig("string");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_WORKERS, "2");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_POLL_AUTOTUNE_ENABLED, "true");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_FILE_PREFETCH_BYTES, "1000");
+
+        RemoteClient prefetchClient = mock(RemoteClient.class);
+        when(prefetchClient.listFiles(anyString(), any())).thenReturn(List.of("/mock/a.txt", "/mock/b.txt"), List.of());
+        when(prefetchClient.retrieveFileStream(anyString())).thenAnswer(inv -> new GeneratedLinesInputStream(100));
+        FtpSourceTaskEnhanced task = createWorkerTask(cfg, prefetchClient, new ArrayList<>(), 100);
+
+        List<SourceRecord> records = new ArrayList<>();
+        long deadline = System.currentTimeMillis() + 10000;
+        while (System.currentTimeMillis() < deadline && records.size() < 200) {
+            records.addAll(task.poll());
+        }
+        Thread.sleep(50);
+        for (SourceRecord record : records) {
+            task.commitRecord(record, null);
+        }
+        task.stop();
+
+        assertEquals(200, records.size());
+        // the workers emitted the batches, so their tuners measure the acks; the task itself has none
+        assertNull(task.getBatchTuner());
+        assertEquals(2, task.getWorkers().size());
+        List<Double> latencies = task.getWorkers().stream()
+                .map(worker -> worker.getBatchTuner().getAckLatencyMs())
+                .filter(latency -> latency >= 0)
+                .collect(Collectors.toList());
+        // a worker that claimed both files leaves the other without samples
+        assertFalse(latencies.isEmpty());
+        latencies.forEach(latency -> assertTrue(latency >= 50, "ack latency: " + latency));
+    }
+
+    @Test
+    void testWorkerDedupCountsAddUpInTaskMetrics() throws Exception {
+        Map<String, String> cfg = createBaseConfig("string");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_WORKERS, "2");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_FILE_PREFETCH_BYTES, "1000");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_DEDUP_ENABLED, "true");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_DEDUP_MEMORY_BYTES, "65536");
+
+        RemoteClient prefetchClient = mock(RemoteClient.class);
+        when(prefetchClient.listFiles(anyString(), any())).thenReturn(List.of("/mock/a.txt", "/mock/b.txt"), List.of());
+        when(prefetchClient.retrieveFileStream(anyString())).thenAnswer(inv -> new GeneratedLinesInputStream(100));
+        FtpSourceTaskEnhanced task = createWorkerTask(cfg, prefetchClient, new ArrayList<>(), 100);
+
+        long deadline = System.currentTimeMillis() + 10000;
+        while (System.currentTimeMillis() < deadline && task.getMetrics().getTotalFilesProcessed() < 2) {
+            pollAndCommit(task);
+        }
+        ProcessingMetrics metrics = task.getMetrics();
+        task.stop();
+
+        // the workers read the rows; both files hold the same ones, dropped unless read at the same time
+        assertEquals(2, metrics.getTotalFilesProcessed());
+        assertEquals(200, metrics.getTotalDedupHits() + metrics.getTotalDedupMisses());
+        assertTrue(metrics.getTotalDedupMisses() >= 100);
+    }
+
+    @Test
+    void testShardedTaskClaimsOnlyItsOwnFiles() throws Exception {
+        List<String> files = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            files.add("/mock/file_" + i + ".txt");
+        }
+        String owned = files.stream().filter(f -> FileSharding.shardOf(f, 2) == 1).findFirst().orElseThrow();
+        Map<String, String> cfg = createBaseConfig("string");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_TASK_SHARD_ID, "1");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_TASK_SHARD_COUNT, "2");
+
+        RemoteClient client = createMockClient(new GeneratedLinesInputStream(5));
+        when(client.listFiles(anyString(), any())).thenReturn(files);
+        createTask(client, cfg).poll();
+
+        String name = owned.substring(owned.lastIndexOf('/') + 1);
+        verify(client).moveFile(owned, "/mock-stage/" + name);
+        verify(client, times(1)).moveFile(anyString(), anyString());
+    }
+
+    @Test
+    void testAssignedTaskClaimsWithoutListing() throws Exception {
+        Map<String, String> cfg = createBaseConfig("string");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_TASK_ASSIGNED_FILES, "/mock-stage/left.txt\n/mock/next.txt");
+
+        RemoteClient client = createMockClient(new GeneratedLinesInputStream(5));
+        FtpSourceTaskEnhanced task = createTask(client, cfg);
+        pollAndCommit(task);
+        pollUntilArchived(task, client);
+        pollAndCommit(task);
+
+        // the staged file is resumed in place, the other one is staged as usual
+        verify(client).retrieveFileStream("/mock-stage/left.txt");
+        verify(client, never()).moveFile(eq("/mock-stage/left.txt"), anyString());
+        verify(client).moveFile("/mock/next.txt", "/mock-stage/next.txt");
+        verify(client, never()).listFiles(anyString(), any());
+    }
+
+    @Test
+    void testPollDoesNotWaitWhileAFileIsOpen() throws Exception {
+        Map<String, String> cfg = createBaseConfig("string");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_POLL_INTERVAL, "60000");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_MAX_RECORDS_PER_POLL, "10");
+
+        RemoteClient client = createMockClient(new GeneratedLinesInputStream(100));
+        FtpSourceTaskEnhanced task = createTask(client, cfg);
+
+        long start = System.currentTimeMillis();
+        assertEquals(100, pollUntilArchived(task, client).size());
+        assertTrue(System.currentTimeMillis() - start < 10000);
+    }
+
+    @Test
+    void testPollStopsAtByteBudget() throws Exception {
+        Map<String, String> cfg = createBaseConfig("string");
+        // each generated line takes about 33 bytes, so the budget is spent after the third
+        cfg.put(FtpSourceConnectorEnhanced.FTP_MAX_POLL_BYTES, "90");
+
+        RemoteClient client = createMockClient(new GeneratedLinesInputStream(10));
+        FtpSourceTaskEnhanced task = createTask(client, cfg);
+
+        List<SourceRecord> records = new ArrayList<>(pollAndCommit(task));
+        assertEquals(3, records.size());
+        records.addAll(pollUntilArchived(task, client));
+        assertEquals(10, records.size());
+    }
+
+    @Test
+    void testPollReturnsWhenTimeBudgetIsSpent() throws Exception {
+        Map<String, String> cfg = createBaseConfig("string");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_MAX_RECORDS_PER_POLL, "100000000");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_MAX_POLL_DURATION_MS, "50");
+
+        RemoteClient client = createMockClient(new GeneratedLinesInputStream(100_000_000));
+        FtpSourceTaskEnhanced task = createTask(client, cfg);
+
+        long start = System.currentTimeMillis();
+        List<SourceRecord> records = task.poll();
+
+        assertTrue(System.currentTimeMillis() - start < 5000);
+        assertFalse(records.isEmpty());
+        assertTrue(records.size() < 100_000_000);
+        assertTrue(task.isProcessingFile());
+    }
+
+    @Test
+    void testStopEndsIdleWait() throws Exception {
+        Map<String, String> cfg = createBaseConfig("string");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_POLL_INTERVAL, "60000");
+        RemoteClient client = mock(RemoteClient.class);
+        when(client.listFiles(anyString(), any())).thenReturn(List.of());
+        FtpSourceTaskEnhanced task = createTask(client, cfg);
+
+        Thread poller = new Thread(() -> {
+            try {
+                task.poll();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        poller.start();
+        verify(client, timeout(5000)).listFiles(anyString(), any());
+        task.stop();
+        poller.join(5000);
+
+        assertFalse(poller.isAlive());
+    }
+
+    @Test
+    void testRangesEmitEveryLineOnceAndAreMarkedDoneAfterCommit() throws Exception {
+        StringBuilder content = new StringBuilder();
+        List<String> expected = new ArrayList<>();
+        for (int i = 1; i <= 40; i++) {
+            String line = i + ";line-" + "x".repeat(i % 7);
+            expected.add(line);
+            content.append(line).append(i % 3 == 0 ? "\r\n" : "\n");
+        }
+        byte[] bytes = content.toString().getBytes(StandardCharsets.UTF_8);
+
+        for (long rangeBytes : new long[] { 5, 37, 64, bytes.length / 2 }) {
+            List<String> emitted = new ArrayList<>();
+            for (FileRange range : FileRange.split("/mock-stage/big.txt", bytes.length, rangeBytes)) {
+                emitted.addAll(processRange(range, bytes));
+            }
+            assertEquals(expected, emitted, "ranges of " + rangeBytes + " bytes");
+        }
+    }
+
+    private List<String> processRange(FileRange range, byte[] bytes) throws Exception {
+        Map<String, String> cfg = createBaseConfig("string");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_TASK_ASSIGNED_FILES, range.format());
+        RemoteClient client = mock(RemoteClient.class);
+        when(client.retrieveFileStream(anyString())).thenAnswer(inv -> new ByteArrayInputStream(bytes));
+        when(client.retrieveFileStream(anyString(), anyLong())).thenAnswer(inv -> {
+            int offset = (int) (long) inv.getArgument(1);
+            return new ByteArrayInputStream(bytes, offset, bytes.length - offset);
+        });
+
+        FtpSourceTaskEnhanced task = createTask(client, cfg);
+        List<SourceRecord> records = task.poll();
+        task.poll();
+
+        // neither the staged file nor the range is done before its records are committed
+        verify(client, never()).moveFile(anyString(), anyString());
+        verify(client, never()).deleteFile(anyString());
+        if (!records.isEmpty()) {
+            verify(client, never()).writeTextFile(eq(range.getMarkerPath()), anyString(), any(Charset.class));
+        }
+
+        List<String> lines = new ArrayList<>();
+        for (SourceRecord record : records) {
+            assertEquals(range.getPartitionKey(), record.sourcePartition().get("range"));
+            lines.add((String) record.value());
+            task.commitRecord(record, null);
+        }
+        task.poll();
+        verify(client).writeTextFile(eq(range.getMarkerPath()), eq(""), any(Charset.class));
+        return lines;
+    }
+
+    private static byte[] gzip(InputStream input) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            input.transferTo(gz);
+        }
+        return out.toByteArray();
+    }
+
+    private List<SourceRecord> createTaskAndPoll(RemoteClient client, Map<String, String> cfg) throws Exception {
+        FtpSourceTaskEnhanced task = createTask(client, cfg);
+        List<SourceRecord> records = new ArrayList<>(pollAndCommit(task));
+        records.addAll(pollUntilArchived(task, client));
+        return records;
+    }
+
+    @Test
+    void testStreamingFooterSkippingKeepsOffsetsConsistent() throws Exception {
+        Map<String, String> cfg = createBaseConfig("string");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_MAX_RECORDS_PER_POLL, "7");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_SKIP_HEADER_LINES, "1");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_SKIP_FOOTER_LINES, "3");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_FILE_HASH_CHECKPOINT_LINES, "10");
+
+        RemoteClient client = createMockClient(new GeneratedLinesInputStream(50));
+        List<SourceRecord> records = createTaskAndPoll(client, cfg);
+
+        assertEquals(46, records.size());
+        assertEquals("47;payload-payload-payload-payload", records.get(45).value());
+        for (SourceRecord record : records) {
+            long line = (Long) record.sourceOffset().get("line_number");
+            Object checkpointLine = record.sourceOffset().get("hash_checkpoint_line");
+            if (checkpointLine != null) {
+                // a checkpoint never covers lines whose records were not emitted yet
+                assertTrue((Long) checkpointLine <= line, "checkpoint " + checkpointLine + " at line " + line);
+            }
+        }
+        assertEquals(40L, records.get(45).sourceOffset().get("hash_checkpoint_line"));
+    }
+
+    @Test
+    void testBytesFormatEmitsUndecodedLines() throws Exception {
+        Map<String, String> cfg = createBaseConfig("bytes");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_FILE_ENCODING, "ISO-8859-1");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_SKIP_HEADER_LINES, "1");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_SKIP_FOOTER_LINES, "1");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_COMMENT_PREFIX, "#");
+
+        String content = "header\n  # comment\n1;S\u00e3o Paulo\n \t\n2;Bel\u00e9m\r\ntrailer;2\n";
+        RemoteClient client = createMockClient(new ByteArrayInputStream(content.getBytes(StandardCharsets.ISO_8859_1)));
+        List<SourceRecord> records = createTaskAndPoll(client, cfg);
+
+        assertEquals(2, records.size());
+        for (SourceRecord record : records) {
+            assertEquals(Schema.BYTES_SCHEMA, record.valueSchema());
+        }
+        assertArrayEquals(new byte[]{'1', ';', 'S', (byte) 0xE3, 'o', ' ', 'P', 'a', 'u', 'l', 'o'}, (byte[]) records.get(0).value());
+        assertArrayEquals("2;Bel\u00e9m".getBytes(StandardCharsets.ISO_8859_1), (byte[]) records.get(1).value());
+        assertEquals(Arrays.hashCode((byte[]) records.get(1).value()), records.get(1).sourceOffset().get("line_hash"));
+    }
+
+    @Test
+    void testInferredTypesAndMisfitRowsGoToDlq() throws Exception {
+        Map<String, String> cfg = createBaseConfig("json");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_FILE_HEADERS, "id,amount,day");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_SCHEMA_INFERENCE_ENABLED, "true");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_SCHEMA_INFERENCE_SAMPLE_ROWS, "2");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_SKIP_FOOTER_LINES, "1");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_DLQ_ENABLED, "true");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_DLQ_TOPIC, "test-dlq");
+
+        byte[] content = "1;10.50;2024-01-31\n2;7.25;2024-02-01\nthree;1.00;2024-02-02\n4;;2024-02-03\nTOTAL;18.75;\n"
+                .getBytes(StandardCharsets.UTF_8);
+        RemoteClient client = createMockClient(new ByteArrayInputStream(content));
+        when(client.retrieveFileStream(anyString())).thenAnswer(invocation -> new ByteArrayInputStream(content));
+        List<SourceRecord> records = createTaskAndPoll(client, cfg);
+
+        List<SourceRecord> dlq = records.stream().filter(r -> r.topic().equals("test-dlq")).collect(Collectors.toList());
+        assertEquals(1, dlq.size());
+        assertEquals("three;1.00;2024-02-02", ((Struct) dlq.get(0).value()).get("original_line"));
+
+        List<SourceRecord> rows = records.stream().filter(r -> r.topic().equals("test-topic")).collect(Collectors.toList());
+        assertEquals(3, rows.size());
+        Struct first = (Struct) rows.get(0).value();
+        assertEquals(1L, first.get("id"));
+        assertEquals(new BigDecimal("10.50"), first.get("amount"));
+        assertEquals(new Date(LocalDate.of(2024, 1, 31).toEpochDay() * 86_400_000L), first.get("day"));
+        assertNull(((Struct) rows.get(2).value()).get("amount"));
+        assertSame(rows.get(0).valueSchema(), rows.get(2).valueSchema());
+    }
+
+    @Test
+    void testProjectedColumnsByNameAndPosition() throws Exception {
+        Map<String, String> cfg = createBaseConfig("json");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_FILE_COLUMNS_INCLUDE, "value, 3");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_KAFKA_KEY_FIELD, "tipo");
+
+        RemoteClient client = createMockClient(new ByteArrayInputStream(
+                "A;20240131;1015;C1;9.5\nB;20240201;0930\n".getBytes(StandardCharsets.UTF_8)));
+        List<SourceRecord> records = createTaskAndPoll(client, cfg);
+
+        assertEquals(2, records.size());
+        Struct first = (Struct) records.get(0).value();
+        assertEquals(List.of("tipo", "hora", "value"),
+                first.schema().fields().stream().map(Field::name).collect(Collectors.toList()));
+        assertEquals("A", first.get("tipo"));
+        assertEquals("1015", first.get("hora"));
+        assertEquals("9.5", first.get("value"));
+        assertEquals("A", records.get(0).key());
+        assertEquals(2, ((Struct) records.get(1).value()).schema().fields().size());
+    }
+
+    @Test
+    void testUnknownProjectedColumnFailsStart() {
+        Map<String, String> cfg = createBaseConfig("json");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_FILE_COLUMNS_INCLUDE, "missing");
+
+        assertThrows(ConnectException.class, () -> createTask(mock(RemoteClient.class), cfg));
+    }
+
+    @Test
+    void testFixedWidthRecords() throws Exception {
+        Map<String, String> cfg = createBaseConfig("json");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_FILE_FIXED_WIDTH_COLUMNS, "id:1:5:int64,name:6:10,amount:16:7:decimal(2)");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_KAFKA_KEY_FIELD, "id");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_DLQ_ENABLED, "true");
+
+        RemoteClient client = createMockClient(new ByteArrayInputStream(
+                "00042Maria     0001250\n0004XJose      0000100\n00044Ana\n".getBytes(StandardCharsets.UTF_8)));
+        List<SourceRecord> records = createTaskAndPoll(client, cfg);
+
+        List<SourceRecord> rows = records.stream().filter(r -> r.topic().equals("test-topic")).collect(Collectors.toList());
+        assertEquals(2, rows.size());
+        Struct first = (Struct) rows.get(0).value();
+        assertEquals(42L, first.get("id"));
+        assertEquals("Maria", first.get("name"));
+        assertEquals(new BigDecimal("12.50"), first.get("amount"));
+        assertEquals("00042", rows.get(0).key());
+        assertNull(((Struct) rows.get(1).value()).get("amount"));
+        assertSame(rows.get(0).valueSchema(), rows.get(1).valueSchema());
+        assertEquals(1, records.size() - rows.size());
+    }
+
+    @Test
+    void testMultiLineRecordsKeepLineNumbers() throws Exception {
+        Map<String, String> cfg = createBaseConfig("json");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_FILE_MULTILINE_RECORDS_ENABLED, "true");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_DLQ_ENABLED, "true");
+
+        byte[] content = "Z;2024-01-01;09:59;0;head\nA;2024-01-01;10:00;1;\"first\nsecond;\n\"\nB;2024-01-01;10:01;2;plain\n"
+                .getBytes(StandardCharsets.UTF_8);
+        RemoteClient client = createMockClient(new ByteArrayInputStream(content));
+        List<SourceRecord> records = createTaskAndPoll(client, cfg);
+
+        assertEquals(3, records.size());
+        assertEquals("first\nsecond;\n", ((Struct) records.get(1).value()).get("value"));
+        assertEquals(1L, records.get(1).sourceOffset().get("line_number"));
+        assertEquals(26L, records.get(1).sourceOffset().get("byte_position"));
+        assertEquals("plain", ((Struct) records.get(2).value()).get("value"));
+        assertEquals(4L, records.get(2).sourceOffset().get("line_number"));
+        assertEquals(64L, records.get(2).sourceOffset().get("byte_position"));
+
+        // a position resume lands on the first line of the joined record
+        @SuppressWarnings("unchecked")
+        Map<String, Object> storedOffset = (Map<String, Object>) records.get(1).sourceOffset();
+        RemoteClient resumed = createMockClient(null);
+        when(resumed.retrieveFileStream(anyString(), anyLong())).thenAnswer(inv -> {
+            InputStream input = new ByteArrayInputStream(content);
+            input.skipNBytes(inv.getArgument(1));
+            return input;
+        });
+        List<SourceRecord> replayed = pollUntilArchived(createTask(resumed, cfg, storedOffset), resumed);
+
+        assertEquals(2, replayed.size());
+        assertEquals(records.get(1).value(), replayed.get(0).value());
+        assertEquals(4L, replayed.get(1).sourceOffset().get("line_number"));
+        verify(resumed, never()).retrieveFileStream(anyString());
+    }
+
+    @Test
+    void testOversizedMultiLineRecordGoesToDlq() throws Exception {
+        Map<String, String> cfg = createBaseConfig("json");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_FILE_MULTILINE_RECORDS_ENABLED, "true");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_FILE_MAX_RECORD_BYTES, "40");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_DLQ_ENABLED, "true");
+
+        RemoteClient client = createMockClient(new ByteArrayInputStream(
+                ("C;2024-01-01;10:02;3;\"never closed\nmore text\nD;2024-01-01;10:03;4;ok\n").getBytes(StandardCharsets.UTF_8)));
+        List<SourceRecord> records = createTaskAndPoll(client, cfg);
+
+        List<SourceRecord> rows = records.stream().filter(r -> r.topic().equals("test-topic")).collect(Collectors.toList());
+        assertEquals(1, rows.size());
+        assertEquals("ok", ((Struct) rows.get(0).value()).get("value"));
+        assertEquals(2L, rows.get(0).sourceOffset().get("line_number"));
+
+        Struct error = (Struct) records.get(records.size() - 1).value();
+        assertEquals("C;2024-01-01;10:02;3;\"never closed\nmore text", error.get("original_line"));
+        assertEquals(0L, error.get("line_number"));
+    }
+
+    @Test
+    void testHeaderRowNamesFieldsAndSchemasAreReused() throws Exception {
+        Map<String, String> cfg = createBaseConfig("json");
+        cfg.remove(FtpSourceConnectorEnhanced.FTP_FILE_HEADERS);
+        cfg.put(FtpSourceConnectorEnhanced.FTP_FILE_HEADER_ROW_ENABLED, "true");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_FILE_COLUMNS_INCLUDE, "id,amount");
+
+        RemoteClient client = createMockClient(new ByteArrayInputStream(
+                "id;name;amount\n1;Ana;10\n2\n3;Caio;30\n4\n".getBytes(StandardCharsets.UTF_8)));
+        List<SourceRecord> records = createTaskAndPoll(client, cfg);
+
+        assertEquals(4, records.size());
+        assertEquals(1L, records.get(0).sourceOffset().get("line_number"));
+        Struct first = (Struct) records.get(0).value();
+        assertEquals(List.of("id", "amount"), first.schema().fields().stream().map(Field::name).collect(Collectors.toList()));
+        assertEquals("10", first.get("amount"));
+        assertEquals(List.of("id"), records.get(1).valueSchema().fields().stream().map(Field::name).collect(Collectors.toList()));
+        assertSame(records.get(0).valueSchema(), records.get(2).valueSchema());
+        assertSame(records.get(1).valueSchema(), records.get(3).valueSchema());
+    }
+
+    @Test
+    void testStringFormatRecordsGetKeys() throws Exception {
+        Map<String, String> cfg = createBaseConfig("string");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_KAFKA_KEY_FIELD, "code+tipo");
+
+        RemoteClient client = createMockClient(new ByteArrayInputStream(
+                "A;2024-01-01;10:00;7;x\nB;2024-01-01;10:01;;y\n".getBytes(StandardCharsets.UTF_8)));
+        List<SourceRecord> records = createTaskAndPoll(client, cfg);
+
+        assertEquals(2, records.size());
+        assertEquals("A;2024-01-01;10:00;7;x", records.get(0).value());
+        assertEquals("7_A", records.get(0).key());
+        assertEquals("B", records.get(1).key());
+    }
+
+    @Test
+    void testHashedKeysAndUnknownKeyField() throws Exception {
+        Map<String, String> cfg = createBaseConfig("json");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_KAFKA_KEY_FIELD, "tipo + 4");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_KAFKA_KEY_HASH, "murmur3");
+
+        RemoteClient client = createMockClient(new ByteArrayInputStream(
+                "A;2024-01-01;10:00;7;x\n".getBytes(StandardCharsets.UTF_8)));
+        List<SourceRecord> records = createTaskAndPoll(client, cfg);
+        assertEquals(Murmur3.hash128Hex("A_7"), records.get(0).key());
+
+        cfg.put(FtpSourceConnectorEnhanced.FTP_KAFKA_KEY_FIELD, "missing");
+        assertThrows(ConnectException.class, () -> createTask(createMockClient(null), cfg));
+        cfg.put(FtpSourceConnectorEnhanced.FTP_KAFKA_KEY_FIELD, "tipo");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_KAFKA_KEY_HASH, "md5");
+        assertThrows(ConnectException.class, () -> createTask(createMockClient(null), cfg));
+    }
+
+    private List<SourceRecord> pollFiles(Map<String, String> cfg, String... files) throws Exception {
+        RemoteClient client = mock(RemoteClient.class);
+        List<String> listing = new ArrayList<>();
+        InputStream[] streams = new InputStream[files.length];
+        for (int i = 0; i < files.length; i++) {
+            listing.add("/mock/file" + i + ".txt");
+            streams[i] = new ByteArrayInputStream(files[i].getBytes(StandardCharsets.UTF_8));
+        }
+        List<List<String>> remaining = new ArrayList<>();
+        for (int i = 1; i < files.length; i++) {
+            remaining.add(List.of(listing.get(i)));
+        }
+        remaining.add(List.of());
+        when(client.listFiles(anyString(), any())).thenReturn(List.of(listing.get(0)), remaining.toArray(new List[0]));
+        when(client.retrieveFileStream(anyString())).thenReturn(streams[0], Arrays.copyOfRange(streams, 1, streams.length));
+
+        FtpSourceTaskEnhanced task = createTask(client, cfg);
+        List<SourceRecord> records = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            records.addAll(pollAndCommit(task));
+        }
+        verify(client, times(files.length)).deleteFile(anyString());
+        return records;
+    }
+
+    @Test
+    void testDuplicateRowsAreDroppedAcrossFilesAndRestarts(@TempDir Path dedupDir) throws Exception {
+        Map<String, String> cfg = createBaseConfig("string");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_DEDUP_ENABLED, "true");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_DEDUP_MEMORY_BYTES, "65536");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_DEDUP_PATH, dedupDir.toString());
+
+        List<SourceRecord> records = pollFiles(cfg,
+                "A;d;h;1;x\nB;d;h;2;y\nA;d;h;1;x\nC;d;h;3;z\n",
+                "B;d;h;2;y\nD;d;h;4;w\n");
+        assertEquals(List.of("A;d;h;1;x", "B;d;h;2;y", "C;d;h;3;z", "D;d;h;4;w"),
+                records.stream().map(SourceRecord::value).collect(Collectors.toList()));
+        // dropped rows still count as lines of the file
+        assertEquals(3L, records.get(2).sourceOffset().get("line_number"));
+        assertEquals(1L, records.get(3).sourceOffset().get("line_number"));
+        assertTrue(Files.exists(dedupDir.resolve("dedup-task-0.bloom")));
+
+        records = pollFiles(cfg, "D;d;h;4;w\nE;d;h;5;v\n");
+        assertEquals(List.of("E;d;h;5;v"), records.stream().map(SourceRecord::value).collect(Collectors.toList()));
+    }
+
+    @Test
+    void testDuplicateKeysAreDroppedAndCounted() throws Exception {
+        Map<String, String> cfg = createBaseConfig("json");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_DEDUP_ENABLED, "true");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_DEDUP_KEY, "key");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_DEDUP_MEMORY_BYTES, "65536");
+        assertThrows(ConnectException.class, () -> createTask(createMockClient(null), cfg));
+
+        cfg.put(FtpSourceConnectorEnhanced.FTP_KAFKA_KEY_FIELD, "tipo+code");
+        RemoteClient client = createMockClient(new ByteArrayInputStream(
+                "A;2024-01-01;10:00;1;x\nA;2024-01-02;10:00;1;y\nA;2024-01-01;10:00;2;x\nB;2024-01-01;10:00;;z\n"
+                        .getBytes(StandardCharsets.UTF_8)));
+        FtpSourceTaskEnhanced task = createTask(client, cfg);
+        List<SourceRecord> records = pollUntilArchived(task, client);
+
+        assertEquals(List.of("A_1", "A_2", "B"), records.stream().map(SourceRecord::key).collect(Collectors.toList()));
+        assertEquals("x", ((Struct) records.get(0).value()).get("value"));
+        assertEquals(1L, task.getMetrics().getTotalDedupHits());
+        assertEquals(3L, task.getMetrics().getTotalDedupMisses());
+    }
+
+    @Test
+    void testEmissionAllocatesLittlePerRecord() throws Exception {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof ThreadMXBean);
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        // read from memory so that only the task allocates
+        byte[] file = new GeneratedLinesInputStream(200_000).readAllBytes();
+        RemoteClient client = createMockClient(new ByteArrayInputStream(file));
+        FtpSourceTaskEnhanced task = createTask(client, createBaseConfig("string"));
+        for (int i = 0; i < 50; i++) {
+            assertEquals(1000, task.poll().size());
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long records = 0;
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 100; i++) {
+            records += task.poll().size();
+        }
+        long bytesPerRecord = (threads.getThreadAllocatedBytes(threadId) - before) / records;
+
+        // the decoded line, its SourceRecord and its offset; a HashMap offset alone takes more than this
+        assertTrue(bytesPerRecord < 320, "bytes allocated per record: " + bytesPerRecord);
+    }
+
+    @Test
+    void testFileIsArchivedOnlyOnceItsRecordsAreCommitted() throws Exception {
+        RemoteClient client = createMockClient(new GeneratedLinesInputStream(10));
+        FtpSourceTaskEnhanced task = createTask(client, createBaseConfig("string"));
+
+        List<SourceRecord> records = task.poll();
+        assertEquals(10, records.size());
+        assertFalse(task.isProcessingFile());
+        task.poll();
+
+        // the file was read to the end, but a restart could still need to replay it
+        verify(client, never()).deleteFile(anyString());
+        verify(client, never()).writeTextFile(anyString(), anyString(), any(Charset.class));
+
+        for (SourceRecord record : records.subList(0, 9)) {
+            task.commitRecord(record, null);
+        }
+        task.poll();
+        verify(client, never()).deleteFile(anyString());
+
+        task.commitRecord(records.get(9), null);
+        task.poll();
+        verify(client).deleteFile("/mock-stage/test.txt");
+        verify(client).writeTextFile(startsWith("/mock-archive/test_"), contains("Lines processed: 10"), any(Charset.class));
+    }
+
+    @Test
+    void testFileStagedAgainWaitsForTheEarlierCopyToBeCommitted() throws Exception {
+        RemoteClient client = mock(RemoteClient.class);
+        when(client.listFiles(anyString(), any())).thenReturn(List.of("/mock/test.txt"));
+        when(client.retrieveFileStream(anyString()))
+                .thenReturn(new GeneratedLinesInputStream(5), new GeneratedLinesInputStream(5, "second"));
+        FtpSourceTaskEnhanced task = createTask(client, createBaseConfig("string"));
+
+        List<SourceRecord> first = task.poll();
+        assertEquals(5, first.size());
+        // the new test.txt would be moved onto the staged copy that is deleted once the first one is committed
+        assertTrue(task.poll().isEmpty());
+        verify(client, times(1)).moveFile(anyString(), anyString());
+
+        for (SourceRecord record : first) {
+            task.commitRecord(record, null);
+        }
+        List<SourceRecord> second = new ArrayList<>();
+        for (int i = 0; i < 3 && second.isEmpty(); i++) {
+            second.addAll(task.poll());
+        }
+        verify(client, times(1)).deleteFile("/mock-stage/test.txt");
+        verify(client, times(2)).moveFile("/mock/test.txt", "/mock-stage/test.txt");
+        assertEquals(5, second.size());
+        assertEquals("1;second", second.get(0).value());
+        // same partition, but the records of each copy count only for their own
+        assertEquals(first.get(0).sourcePartition(), second.get(0).sourcePartition());
+        assertNotSame(first.get(0).sourcePartition(), second.get(0).sourcePartition());
+
+        // acks of the first copy arriving again do not release the second one
+        for (SourceRecord record : first) {
+            task.commitRecord(record, null);
+        }
+        task.poll();
+        verify(client, times(1)).deleteFile("/mock-stage/test.txt");
+
+        for (SourceRecord record : second) {
+            task.commitRecord(record, null);
+        }
+        task.poll();
+        verify(client, times(2)).deleteFile("/mock-stage/test.txt");
+    }
+
+    @Test
+    void testStreamingFooterSkippingOnGzipFile() throws Exception {
+        Map<String, String> cfg = createBaseConfig("string");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_SKIP_FOOTER_LINES, "2");
+
+        RemoteClient client = createMockClient(new ByteArrayInputStream(gzip(new GeneratedLinesInputStream(20))));
+        when(client.listFiles(anyString(), any())).thenReturn(List.of("/mock/test.txt.gz"), List.of());
+        List<SourceRecord> records = createTaskAndPoll(client, cfg);
+
+        assertEquals(18, records.size());
+        assertEquals("1;payload-payload-payload-payload", records.get(0).value());
+        assertEquals("18;payload-payload-payload-payload", records.get(17).value());
+        verify(client).deleteFile("/mock-stage/test.txt.gz");
+    }
+
+    @Test
+    void testBufferedFooterSkipping() throws Exception {
+        Map<String, String> cfg = createBaseConfig("string");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_FILE_STREAMING_ENABLED, "false");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_MAX_RECORDS_PER_POLL, "4");
+        cfg.put(FtpSourceConnectorEnhanced.FTP_SKIP_FOOTER_LINES, "5");
+
+        RemoteClient client = createMockClient(new GeneratedLinesInputStream(12));
+        List<SourceRecord> records = createTaskAndPoll(client, cfg);
+
+        assertEquals(7, records.size());
+        assertEquals("7;payload-payload-payload-payload", records.get(6).value());
+    }
+}
@@ -1,5 +1,6 @@
 package br.com.datastreambrasil.kafka.connector.ftp;
 
+import br.com.datastreambrasil.kafka.connector.ftp.model.RemoteFileInfo;
 import org.apache.sshd.client.SshClient;
 import org.apache.sshd.client.session.ClientSession;
 import org.apache.sshd.sftp.client.SftpClient;
@@ -13,6 +14,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.attribute.FileTime;
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -60,12 +62,24 @@ class SftpRemoteClientTest {
                 return super.listFiles(directory, pattern);
             }
 
+            @Override
+            public RemoteFileInfo getFileInfo(String filePath) throws Exception {
+                injectMocks();
+                return super.getFileInfo(filePath);
+            }
+
             @Override
             public InputStream retrieveFileStream(String filePath) throws Exception {
                 injectMocks();
                 return super.retrieveFileStream(filePath);
             }
 
+            @Override
+            public InputStream retrieveFileStream(String filePath, long offset) throws Exception {
+                injectMocks();
+                return super.retrieveFileStream(filePath, offset);
+            }
+
             @Override
             public void moveFile(String sourcePath, String destinationPath) throws Exception {
                 injectMocks();
@@ -125,6 +139,16 @@ class SftpRemoteClientTest {
         assertTrue(result.isEmpty());
     }
 
+    @Test
+    void testGetFileInfo() throws Exception {
+        Attributes attrs = mock(Attributes.class);
+        when(attrs.getSize()).thenReturn(5000L);
+        when(attrs.getModifyTime()).thenReturn(FileTime.fromMillis(1700000000000L));
+        when(mockSftp.stat("/files/test.csv")).thenReturn(attrs);
+
+        assertEquals(new RemoteFileInfo("/files/test.csv", 5000, 1700000000000L), client.getFileInfo("/files/test.csv"));
+    }
+
     @Test
     void testRetrieveFileStream() throws Exception {
         String content = "id,name\n1,Alice";
@@ -138,6 +162,25 @@ class SftpRemoteClientTest {
         assertEquals(content, new String(result.readAllBytes(), StandardCharsets.UTF_8));
     }
 
+    @Test
+    void testRetrieveFileStreamFromOffset() throws Exception {
+        byte[] content = "id,name\n1,Alice".getBytes(StandardCharsets.UTF_8);
+        SftpClient.CloseableHandle handle = mock(SftpClient.CloseableHandle.class);
+        when(mockSftp.open("/files/test.csv", SftpClient.OpenMode.Read)).thenReturn(handle);
+        when(mockSftp.read(eq(handle), anyLong(), any(byte[].class), anyInt(), anyInt())).thenAnswer(inv -> {
+            long position = inv.getArgument(1);
+            if (position >= content.length) return -1;
+            int len = Math.min(inv.<Integer>getArgument(4), content.length - (int) position);
+            System.arraycopy(content, (int) position, inv.<byte[]>getArgument(2), inv.<Integer>getArgument(3), len);
+            return len;
+        });
+
+        try (InputStream result = client.retrieveFileStream("/files/test.csv", 8)) {
+            assertEquals("1,Alice", new String(result.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        verify(handle).close();
+    }
+
     @Test
     void testMoveFile() throws Exception {
         doNothing().when(mockSftp).rename("/stage/file.csv", "/archive/file.csv");
@@ -0,0 +1,120 @@
+package br.com.datastreambrasil.kafka.connector.ftp.dedup;
+
+import br.com.datastreambrasil.kafka.connector.ftp.hash.Murmur3;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecordDeduplicatorTest {
+
+    private static long[] hash(String row) {
+        long[] hash = new long[2];
+        Murmur3.hash128(row, 0, hash);
+        return hash;
+    }
+
+    private static void add(BloomFilter filter, String row) {
+        long[] hash = hash(row);
+        filter.put(hash[0], hash[1]);
+    }
+
+    private static boolean seen(RecordDeduplicator deduplicator, String row) {
+        long[] hash = hash(row);
+        return deduplicator.mightContain(hash[0], hash[1]);
+    }
+
+    @Test
+    void testFalsePositiveRateStaysNearTargetAtCapacity() {
+        BloomFilter filter = new BloomFilter(BloomFilter.optimalBitCount(10_000, 0.01), BloomFilter.optimalHashCount(0.01), false);
+        for (int i = 0; i < 10_000; i++) {
+            add(filter, "row-" + i);
+        }
+        for (int i = 0; i < 10_000; i++) {
+            long[] hash = hash("row-" + i);
+            assertTrue(filter.mightContain(hash[0], hash[1]));
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            long[] hash = hash("other-" + i);
+            if (filter.mightContain(hash[0], hash[1])) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 2_000, "false positives: " + falsePositives);
+    }
+
+    @Test
+    void testRowsAreSeenOnlyOnceTheirFileIsMerged() {
+        RecordDeduplicator deduplicator = new RecordDeduplicator(64 * 1024, 1, 0.001, true, null);
+        BloomFilter fileFilter = deduplicator.newFileFilter();
+        add(fileFilter, "a;1");
+
+        assertFalse(seen(deduplicator, "a;1"));
+        deduplicator.merge(fileFilter);
+        assertTrue(seen(deduplicator, "a;1"));
+        assertFalse(seen(deduplicator, "b;2"));
+    }
+
+    @Test
+    void testOldestGenerationIsDroppedOnRotation() {
+        RecordDeduplicator deduplicator = new RecordDeduplicator(3 * 1024, 1, 0.01, false, null);
+        long capacity = deduplicator.getCapacity();
+        BloomFilter fileFilter = deduplicator.newFileFilter();
+
+        add(fileFilter, "first");
+        deduplicator.merge(fileFilter);
+        fileFilter.clear();
+
+        // fills the current generation, then forces two rotations
+        for (int generation = 0; generation < 2; generation++) {
+            for (long i = 0; i < capacity; i++) {
+                add(fileFilter, "gen" + generation + "-" + i);
+            }
+            deduplicator.merge(fileFilter);
+            fileFilter.clear();
+            if (generation == 0) {
+                assertTrue(seen(deduplicator, "first"));
+            }
+        }
+
+        assertFalse(seen(deduplicator, "first"));
+        assertTrue(seen(deduplicator, "gen1-0"));
+    }
+
+    @Test
+    void testFileFiltersAreCountedAgainstTheBudget() {
+        long memoryBytes = 64 * 1024;
+        for (int fileFilters : new int[] { 1, 4 }) {
+            RecordDeduplicator deduplicator = new RecordDeduplicator(memoryBytes, fileFilters, 0.01, false, null);
+            long bits = deduplicator.newFileFilter().getBitCount() * (2 + fileFilters);
+            assertTrue(bits <= memoryBytes * 8, fileFilters + " file filters take " + bits / 8 + " bytes");
+            assertTrue(bits > memoryBytes * 8 * 9 / 10, fileFilters + " file filters take " + bits / 8 + " bytes");
+        }
+    }
+
+    @Test
+    void testStateSurvivesRestart(@TempDir Path dir) throws Exception {
+        Path path = dir.resolve("dedup-task-0.bloom");
+        RecordDeduplicator deduplicator = new RecordDeduplicator(64 * 1024, 1, 0.001, false, path);
+        BloomFilter fileFilter = deduplicator.newFileFilter();
+        add(fileFilter, "a;1");
+        deduplicator.merge(fileFilter);
+        deduplicator.save();
+
+        assertTrue(Files.exists(path));
+        assertFalse(Files.exists(dir.resolve("dedup-task-0.bloom.tmp")));
+
+        RecordDeduplicator restarted = new RecordDeduplicator(64 * 1024, 1, 0.001, true, path);
+        assertTrue(seen(restarted, "a;1"));
+        assertFalse(seen(restarted, "b;2"));
+
+        // another size cannot reuse the bits
+        RecordDeduplicator resized = new RecordDeduplicator(128 * 1024, 1, 0.001, false, path);
+        assertFalse(seen(resized, "a;1"));
+    }
+}
@@ -0,0 +1,78 @@
+package br.com.datastreambrasil.kafka.connector.ftp.hash;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileFingerprintsTest {
+
+    private static String fingerprint(String algorithm, String data) {
+        FileFingerprint fp = FileFingerprints.forAlgorithm(algorithm);
+        byte[] bytes = data.getBytes(StandardCharsets.UTF_8);
+        fp.update(bytes, 0, bytes.length);
+        return fp.getValue();
+    }
+
+    @Test
+    void testKnownValues() {
+        assertEquals("900150983cd24fb0d6963f7d28e17f72", fingerprint("md5", "abc"));
+        assertEquals("e3069283", fingerprint("crc32c", "123456789"));
+        assertEquals("ef46db3751d8e999", fingerprint("xxhash64", ""));
+        assertEquals("44bc2cf5ad770999", fingerprint("xxhash64", "abc"));
+        assertEquals("fbcea83c8a378bf1", fingerprint("xxhash64", "Nobody inspects the spammish repetition"));
+    }
+
+    @Test
+    void testIncrementalUpdatesMatchSingleUpdate() {
+        byte[] data = new byte[1000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i * 31);
+        }
+
+        for (String algorithm : new String[]{"md5", "crc32c", "xxhash64"}) {
+            FileFingerprint whole = FileFingerprints.forAlgorithm(algorithm);
+            whole.update(data, 0, data.length);
+
+            FileFingerprint chunked = FileFingerprints.forAlgorithm(algorithm);
+            int offset = 0;
+            int chunk = 1;
+            while (offset < data.length) {
+                int len = Math.min(chunk, data.length - offset);
+                chunked.update(data, offset, len);
+                offset += len;
+                chunk = chunk * 2 + 1;
+            }
+
+            assertEquals(whole.getValue(), chunked.getValue(), algorithm);
+        }
+    }
+
+    @Test
+    void testGetValueIsANonDestructiveCheckpoint() {
+        byte[] first = "first-part;".getBytes(StandardCharsets.UTF_8);
+        byte[] second = "second-part-which-is-longer-than-a-stripe".getBytes(StandardCharsets.UTF_8);
+
+        for (String algorithm : new String[]{"md5", "crc32c", "xxhash64"}) {
+            FileFingerprint fp = FileFingerprints.forAlgorithm(algorithm);
+            fp.update(first, 0, first.length);
+            String checkpoint = fp.getValue();
+            assertEquals(checkpoint, fp.getValue(), algorithm);
+
+            fp.update(second, 0, second.length);
+
+            FileFingerprint reference = FileFingerprints.forAlgorithm(algorithm);
+            reference.update(first, 0, first.length);
+            reference.update(second, 0, second.length);
+            assertEquals(reference.getValue(), fp.getValue(), algorithm);
+            assertNotEquals(checkpoint, fp.getValue(), algorithm);
+        }
+    }
+
+    @Test
+    void testUnknownAlgorithm() {
+        assertThrows(IllegalArgumentException.class, () -> FileFingerprints.forAlgorithm("sha3"));
+        assertEquals("crc32c", FileFingerprints.forAlgorithm(" CRC32C ").getAlgorithm());
+    }
+}
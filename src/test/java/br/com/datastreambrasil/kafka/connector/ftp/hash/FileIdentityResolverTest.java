@@ -0,0 +1,88 @@
+package br.com.datastreambrasil.kafka.connector.ftp.hash;
+
+import br.com.datastreambrasil.kafka.connector.ftp.RemoteClient;
+import br.com.datastreambrasil.kafka.connector.ftp.model.RemoteFileInfo;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class FileIdentityResolverTest {
+
+    private static byte[] content(int size) {
+        byte[] data = new byte[size];
+        for (int i = 0; i < size; i++) {
+            data[i] = (byte) ('a' + i % 26);
+        }
+        return data;
+    }
+
+    private static String crc32c(byte[] data, int from, int to) {
+        FileFingerprint fp = FileFingerprints.crc32c();
+        fp.update(data, from, to - from);
+        return fp.getValue();
+    }
+
+    private static RemoteClient clientFor(byte[] data) throws Exception {
+        RemoteClient client = mock(RemoteClient.class);
+        when(client.getFileInfo("/stage/a.csv")).thenReturn(new RemoteFileInfo("/stage/a.csv", data.length, 1700000000000L));
+        when(client.retrieveFileStream("/stage/a.csv")).thenAnswer(inv -> new ByteArrayInputStream(data));
+        when(client.retrieveFileStream(eq("/stage/a.csv"), anyLong())).thenAnswer(inv -> {
+            int offset = (int) (long) inv.getArgument(1);
+            return new ByteArrayInputStream(Arrays.copyOfRange(data, offset, data.length));
+        });
+        return client;
+    }
+
+    @Test
+    void testIdentityWithHeadAndTailSamples() throws Exception {
+        byte[] data = content(10000);
+        RemoteClient client = clientFor(data);
+
+        String identity = new FileIdentityResolver(client, 1024, "crc32c").resolve("/stage/a.csv");
+
+        assertEquals("10000:1700000000000:" + crc32c(data, 0, 1024) + ":" + crc32c(data, 8976, 10000), identity);
+        verify(client).retrieveFileStream("/stage/a.csv", 8976L);
+        verify(client, times(2)).completePending();
+    }
+
+    @Test
+    void testSmallFileIsSampledOnce() throws Exception {
+        byte[] data = content(1500);
+        RemoteClient client = clientFor(data);
+
+        String identity = new FileIdentityResolver(client, 1024, "crc32c").resolve("/stage/a.csv");
+
+        // the tail starts where the head ends
+        assertEquals("1500:1700000000000:" + crc32c(data, 0, 1024) + ":" + crc32c(data, 1024, 1500), identity);
+        assertEquals("500:1700000000000:" + crc32c(content(500), 0, 500),
+                new FileIdentityResolver(clientFor(content(500)), 1024, "crc32c").resolve("/stage/a.csv"));
+    }
+
+    @Test
+    void testSamplingDisabled() throws Exception {
+        RemoteClient client = clientFor(content(10000));
+
+        assertEquals("10000:1700000000000", new FileIdentityResolver(client, 0, "crc32c").resolve("/stage/a.csv"));
+        verify(client, never()).retrieveFileStream(anyString());
+    }
+
+    @Test
+    void testAbortedTransferIsTolerated() throws Exception {
+        RemoteClient client = clientFor(content(10000));
+        doThrow(new IOException("426 Transfer aborted")).when(client).completePending();
+
+        assertNotNull(new FileIdentityResolver(client, 1024, "crc32c").resolve("/stage/a.csv"));
+    }
+
+    @Test
+    void testUnknownMetadata() throws Exception {
+        RemoteClient client = mock(RemoteClient.class);
+
+        assertNull(new FileIdentityResolver(client, 1024, "crc32c").resolve("/stage/a.csv"));
+    }
+}
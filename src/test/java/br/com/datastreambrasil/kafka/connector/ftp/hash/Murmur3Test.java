@@ -0,0 +1,38 @@
+package br.com.datastreambrasil.kafka.connector.ftp.hash;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class Murmur3Test {
+
+    @Test
+    void testKnownVectors() {
+        assertEquals("00000000000000000000000000000000", Murmur3.hash128Hex(""));
+        assertEquals("6c1b07bc7bbc4be347939ac4a93c437a", Murmur3.hash128Hex("The quick brown fox jumps over the lazy dog"));
+    }
+
+    @Test
+    void testEveryTailLengthIsHashed() {
+        String text = "0123456789abcdefghijklmnopqrstuv";
+        for (int length = 1; length < text.length(); length++) {
+            String hash = Murmur3.hash128Hex(text.substring(0, length));
+            assertEquals(32, hash.length());
+            assertNotEquals(hash, Murmur3.hash128Hex(text.substring(0, length + 1)), "length " + length);
+        }
+    }
+
+    @Test
+    void testCharsHashLikeTheirUtf16Bytes() {
+        long[] hash = new long[2];
+        String text = "caf\u00e9;coração;0123456789";
+        for (int length = 0; length <= text.length(); length++) {
+            String prefix = text.substring(0, length);
+            byte[] bytes = prefix.getBytes(StandardCharsets.UTF_16LE);
+            Murmur3.hash128(prefix, 7, hash);
+            assertArrayEquals(Murmur3.hash128(bytes, 0, bytes.length, 7), hash, "length " + length);
+        }
+    }
+}
@@ -88,6 +88,60 @@ class FileOffsetTest {
         assertFalse(offset1.isSameFile(null));
     }
 
+    @Test
+    void testCheckpointRoundTrip() {
+        FileOffset offset = new FileOffset("test.txt", null, 2500L, 1234567890L, 0L, "crc32c", 2000L, "1a2b3c4d");
+
+        Map<String, Object> map = offset.toMap();
+        assertEquals("crc32c", map.get("hash_algorithm"));
+        assertEquals(2000L, map.get("hash_checkpoint_line"));
+        assertEquals("1a2b3c4d", map.get("hash_checkpoint"));
+
+        FileOffset restored = FileOffset.fromMap(map);
+        assertEquals(offset, restored);
+        assertTrue(restored.hasCheckpoint("crc32c"));
+        assertFalse(restored.hasCheckpoint("md5"));
+    }
+
+    @Test
+    void testNoCheckpoint() {
+        FileOffset offset = new FileOffset("test.txt", "abc123", 100L, 1234567890L, 5000L);
+
+        assertFalse(offset.toMap().containsKey("hash_checkpoint"));
+        assertFalse(offset.hasCheckpoint("crc32c"));
+        assertFalse(FileOffset.fromMap(offset.toMap()).hasCheckpoint("crc32c"));
+    }
+
+    @Test
+    void testBytePositionRoundTrip() {
+        FileOffset offset = new FileOffset("test.txt", null, 2200L, 1234567890L, 0L, "crc32c", 2000L, "1a2b3c4d",
+                81400L, 12345, null);
+
+        Map<String, Object> map = offset.toMap();
+        assertEquals(81400L, map.get("byte_position"));
+        assertEquals(12345, map.get("line_hash"));
+        assertEquals(offset, FileOffset.fromMap(map));
+    }
+
+    @Test
+    void testNoBytePosition() {
+        FileOffset offset = FileOffset.fromMap(new FileOffset("test.txt", "abc123", 100L, 1234567890L, 5000L).toMap());
+
+        assertEquals(-1L, offset.getBytePosition());
+        assertNull(offset.getLineHash());
+        assertFalse(offset.toMap().containsKey("byte_position"));
+    }
+
+    @Test
+    void testFileIdentity() {
+        FileOffset offset = new FileOffset("test.txt", null, 100L, 1234567890L, 5000L, "5000:1700000000000:aa:bb");
+        FileOffset restored = FileOffset.fromMap(offset.toMap());
+
+        assertEquals("5000:1700000000000:aa:bb", restored.getFileIdentity());
+        assertTrue(restored.isSameFile(new FileOffset("test.txt", null, 0L, 0L, 0L, "5000:1700000000000:aa:bb")));
+        assertFalse(restored.isSameFile(new FileOffset("test.txt", null, 0L, 0L, 0L, "5000:1700000000001:aa:bb")));
+    }
+
     @Test
     void testEquals() {
         FileOffset offset1 = new FileOffset("test.txt", "abc123", 100L, 1234567890L, 5000L);
@@ -0,0 +1,43 @@
+package br.com.datastreambrasil.kafka.connector.ftp.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileRangeTest {
+
+    @Test
+    void testSplitCoversTheFileWithoutGaps() {
+        List<FileRange> ranges = FileRange.split("/stage/big.csv", 250, 100);
+
+        assertEquals(3, ranges.size());
+        assertEquals(0, ranges.get(0).getStart());
+        assertEquals(100, ranges.get(0).getEnd());
+        assertEquals(200, ranges.get(2).getStart());
+        assertEquals(250, ranges.get(2).getEnd());
+        assertTrue(ranges.get(0).isFirst());
+        assertFalse(ranges.get(1).isFirst());
+        assertFalse(ranges.get(1).isLast());
+        assertTrue(ranges.get(2).isLast());
+    }
+
+    @Test
+    void testFormatAndParse() {
+        FileRange range = new FileRange("/stage/big file.csv", 100, 200, 250);
+
+        assertEquals(range, FileRange.parse(range.format()));
+        assertNull(FileRange.parse("/stage/big file.csv"));
+        assertEquals("big file.csv", range.getFilename());
+    }
+
+    @Test
+    void testMarkerMatchesMarkerPattern() {
+        FileRange range = new FileRange("/stage/big.csv", 100, 200, 250);
+
+        assertEquals("/stage/big.csv.100-200.done", range.getMarkerPath());
+        assertTrue(range.getMarkerPath().matches(FileRange.MARKER_PATTERN));
+        assertFalse("/stage/big.csv".matches(FileRange.MARKER_PATTERN));
+    }
+}
@@ -0,0 +1,74 @@
+package br.com.datastreambrasil.kafka.connector.ftp.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecordOffsetTest {
+
+    @Test
+    void testEqualsTheMapItStandsFor() {
+        FileOffset file = new FileOffset("test.txt", null, 0, 1234567890L, 5000L, "identity");
+        Map<String, Object> offset = new RecordOffset(RecordOffset.fileFields(file),
+                RecordOffset.checkpointFields("crc32c", 1000L, "abcd"), 1500L, 64000L, 42);
+
+        Map<String, Object> expected = new HashMap<>();
+        expected.put("filename", "test.txt");
+        expected.put("last_modified", 1234567890L);
+        expected.put("file_size", 5000L);
+        expected.put("file_identity", "identity");
+        expected.put("hash_algorithm", "crc32c");
+        expected.put("hash_checkpoint_line", 1000L);
+        expected.put("hash_checkpoint", "abcd");
+        expected.put("line_number", 1500L);
+        expected.put("byte_position", 64000L);
+        expected.put("line_hash", 42);
+
+        assertEquals(expected, offset);
+        assertEquals(offset, expected);
+        assertEquals(expected.hashCode(), offset.hashCode());
+        assertEquals(1500L, FileOffset.fromMap(offset).getLineNumber());
+    }
+
+    @Test
+    void testLeavesOutPositionAndCheckpointWithoutThem() {
+        FileOffset file = new FileOffset("test.txt", "abc123", 0, 1234567890L, 5000L);
+        Map<String, Object> offset = new RecordOffset(RecordOffset.fileFields(file), Collections.emptyMap(), 7L, -1, 0);
+
+        assertEquals(5, offset.size());
+        assertEquals(7L, offset.get("line_number"));
+        assertEquals("abc123", offset.get("file_hash"));
+        assertFalse(offset.containsKey("byte_position"));
+        assertFalse(offset.containsKey("line_hash"));
+        assertFalse(offset.containsKey("hash_checkpoint"));
+        assertNull(FileOffset.fromMap(offset).getLineHash());
+        assertEquals(Set.of("filename", "file_hash", "last_modified", "file_size", "line_number"), offset.keySet());
+    }
+
+    @Test
+    void testEntriesAreReadWithoutCopying() {
+        FileOffset file = new FileOffset("test.txt", null, 0, 1234567890L, 5000L);
+        Map<String, Object> fileFields = RecordOffset.fileFields(file);
+        Map<String, Object> offset = new RecordOffset(fileFields, Collections.emptyMap(), 3L, 120L, 7);
+
+        Map<String, Object> copy = new HashMap<>();
+        Iterator<Map.Entry<String, Object>> entries = offset.entrySet().iterator();
+        while (entries.hasNext()) {
+            Map.Entry<String, Object> entry = entries.next();
+            assertNull(copy.put(entry.getKey(), entry.getValue()), entry.getKey());
+        }
+        assertThrows(NoSuchElementException.class, entries::next);
+        assertEquals(offset.size(), copy.size());
+        assertEquals(copy, offset);
+        assertEquals(120L, copy.get("byte_position"));
+        assertEquals(7, copy.get("line_hash"));
+        assertThrows(UnsupportedOperationException.class, () -> offset.entrySet().iterator().remove());
+    }
+}
@@ -0,0 +1,125 @@
+package br.com.datastreambrasil.kafka.connector.ftp.monitor;
+
+import br.com.datastreambrasil.kafka.connector.ftp.RemoteClient;
+import br.com.datastreambrasil.kafka.connector.ftp.model.FileRange;
+import br.com.datastreambrasil.kafka.connector.ftp.model.RemoteFileInfo;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class DirectoryMonitorTest {
+
+    private static RemoteFileInfo file(String path, long size) {
+        return new RemoteFileInfo(path, size, 0);
+    }
+
+    @Test
+    void testBalanceSplitsBytesNotFileCounts() {
+        List<RemoteFileInfo> files = List.of(
+                file("/in/big.csv", 900), file("/in/a.csv", 100), file("/in/b.csv", 100),
+                file("/in/c.csv", 300), file("/in/d.csv", 400), file("/in/e.csv", 100));
+
+        List<List<String>> assignment = DirectoryMonitor.balance(files, 2);
+
+        assertEquals(List.of("/in/big.csv", "/in/e.csv"), assignment.get(0));
+        assertEquals(List.of("/in/d.csv", "/in/c.csv", "/in/a.csv", "/in/b.csv"), assignment.get(1));
+    }
+
+    @Test
+    void testBalanceUsesNoMoreTasksThanFiles() {
+        assertEquals(2, DirectoryMonitor.balance(List.of(file("/in/a.csv", 1), file("/in/b.csv", 1)), 8).size());
+        assertTrue(DirectoryMonitor.balance(List.of(), 8).isEmpty());
+    }
+
+    @Test
+    void testScanReportsNewFilesAndDrainedBacklog() throws Exception {
+        RemoteClient client = mock(RemoteClient.class);
+        when(client.listFileInfos("/stage", ".*")).thenReturn(List.of(file("/stage/left.csv", 50)));
+        when(client.listFileInfos("/in", ".*")).thenReturn(List.of(file("/in/a.csv", 10)));
+        DirectoryMonitor monitor = new DirectoryMonitor(client, "/in", "/stage", ".*", 1000, 0, () -> { });
+
+        assertTrue(monitor.scan());
+        assertEquals(List.of(List.of("/stage/left.csv"), List.of("/in/a.csv")), monitor.assign(4));
+
+        // claimed files move to the stage directory without a new assignment
+        when(client.listFileInfos("/stage", ".*")).thenReturn(List.of(file("/stage/left.csv", 50), file("/stage/a.csv", 10)));
+        when(client.listFileInfos("/in", ".*")).thenReturn(List.of());
+        assertFalse(monitor.scan());
+        when(client.listFileInfos("/stage", ".*")).thenReturn(List.of(file("/stage/left.csv", 50)));
+        assertFalse(monitor.scan());
+
+        when(client.listFileInfos("/in", ".*")).thenReturn(List.of(file("/in/b.csv", 10)));
+        assertTrue(monitor.scan());
+        assertEquals(2, monitor.assign(4).size());
+
+        // nothing left anywhere while tasks are assigned: shrink to no tasks
+        when(client.listFileInfos("/stage", ".*")).thenReturn(List.of());
+        when(client.listFileInfos("/in", ".*")).thenReturn(List.of());
+        assertTrue(monitor.scan());
+        assertTrue(monitor.assign(4).isEmpty());
+        assertFalse(monitor.scan());
+    }
+
+    @Test
+    void testListingFailureKeepsAssignment() throws Exception {
+        RemoteClient client = mock(RemoteClient.class);
+        when(client.listFileInfos("/in", ".*")).thenThrow(new RuntimeException("timeout"));
+        DirectoryMonitor monitor = new DirectoryMonitor(client, "/in", null, ".*", 1000, 0, () -> { });
+
+        assertFalse(monitor.scan());
+        assertTrue(monitor.assign(2).isEmpty());
+    }
+
+    @Test
+    void testLargeFilesAreStagedAndAssignedAsRanges() throws Exception {
+        RemoteClient client = mock(RemoteClient.class);
+        when(client.listFileInfos("/stage", FileRange.MARKER_PATTERN)).thenReturn(List.of());
+        when(client.listFileInfos("/stage", ".*\\.csv")).thenReturn(List.of());
+        when(client.listFileInfos("/in", ".*\\.csv")).thenReturn(
+                List.of(file("/in/huge.csv", 250), file("/in/small.csv", 40), file("/in/huge.csv.gz", 250)));
+        DirectoryMonitor monitor = new DirectoryMonitor(client, "/in", "/stage", ".*\\.csv", 1000, 100, () -> { });
+
+        assertTrue(monitor.scan());
+        verify(client).moveFile("/in/huge.csv", "/stage/huge.csv");
+        verify(client, never()).moveFile(eq("/in/huge.csv.gz"), anyString());
+
+        List<String> assigned = monitor.assign(8).stream().flatMap(List::stream).collect(Collectors.toList());
+        assertEquals(5, assigned.size());
+        for (FileRange range : FileRange.split("/stage/huge.csv", 250, 100)) {
+            assertTrue(assigned.contains(range.format()), range.toString());
+        }
+        assertTrue(assigned.contains("/in/small.csv"));
+    }
+
+    @Test
+    void testSplitFileIsDeletedOnceEveryRangeIsDone() throws Exception {
+        List<FileRange> ranges = FileRange.split("/stage/huge.csv", 250, 100);
+        RemoteClient client = mock(RemoteClient.class);
+        when(client.listFileInfos("/in", ".*")).thenReturn(List.of());
+        when(client.listFileInfos("/stage", ".*")).thenReturn(List.of(file("/stage/huge.csv", 250),
+                file(ranges.get(0).getMarkerPath(), 0), file(ranges.get(1).getMarkerPath(), 0)));
+        when(client.listFileInfos("/stage", FileRange.MARKER_PATTERN)).thenReturn(
+                List.of(file(ranges.get(0).getMarkerPath(), 0), file(ranges.get(1).getMarkerPath(), 0)));
+        DirectoryMonitor monitor = new DirectoryMonitor(client, "/in", "/stage", ".*", 1000, 100, () -> { });
+
+        monitor.scan();
+        assertEquals(List.of(List.of(ranges.get(2).format())), monitor.assign(4));
+        verify(client, never()).deleteFile(anyString());
+
+        when(client.listFileInfos("/stage", FileRange.MARKER_PATTERN)).thenReturn(List.of(
+                file(ranges.get(0).getMarkerPath(), 0), file(ranges.get(1).getMarkerPath(), 0),
+                file(ranges.get(2).getMarkerPath(), 0)));
+        assertTrue(monitor.scan());
+        verify(client).deleteFile("/stage/huge.csv");
+        for (FileRange range : ranges) {
+            verify(client).deleteFile(range.getMarkerPath());
+        }
+        assertTrue(monitor.assign(4).isEmpty());
+    }
+}
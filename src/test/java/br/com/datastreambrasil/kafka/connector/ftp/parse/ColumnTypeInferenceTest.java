@@ -0,0 +1,76 @@
+package br.com.datastreambrasil.kafka.connector.ftp.parse;
+
+import org.apache.kafka.connect.data.Date;
+import org.apache.kafka.connect.data.Decimal;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.Timestamp;
+import org.apache.kafka.connect.errors.DataException;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColumnTypeInferenceTest {
+
+    private static List<Schema> infer(String... rows) {
+        DelimitedTokenizer tokenizer = new DelimitedTokenizer(";", '"', DelimitedTokenizer.NO_CHAR, true);
+        ColumnTypeInference inference = new ColumnTypeInference();
+        for (String row : rows) {
+            tokenizer.split(row);
+            inference.add(tokenizer);
+        }
+        return inference.getSchemas();
+    }
+
+    @Test
+    void testInfersEachColumnType() {
+        List<Schema> schemas = infer(
+                "1;10.5;1.5E3;2024-01-31;2024-01-31 10:15:00;abc;00123;",
+                "-2;3;2e-1;2024-02-29;2024-02-29T23:59:59.250;def;00456;",
+                "3;0.125;7;2023-12-01;2023-12-01 00:00;ghi;00789;");
+
+        assertEquals(Schema.OPTIONAL_INT64_SCHEMA, schemas.get(0));
+        assertEquals(Decimal.builder(3).optional().build(), schemas.get(1));
+        assertEquals(Schema.OPTIONAL_FLOAT64_SCHEMA, schemas.get(2));
+        assertEquals(Date.builder().optional().build(), schemas.get(3));
+        assertEquals(Timestamp.builder().optional().build(), schemas.get(4));
+        assertEquals(Schema.OPTIONAL_STRING_SCHEMA, schemas.get(5));
+        // leading zeros are codes, not numbers
+        assertEquals(Schema.OPTIONAL_STRING_SCHEMA, schemas.get(6));
+        // never filled
+        assertEquals(Schema.OPTIONAL_STRING_SCHEMA, schemas.get(7));
+    }
+
+    @Test
+    void testOneMismatchFallsBackToString() {
+        List<Schema> schemas = infer("1;2024-01-31", "x;2024-02-30", ";2024-03-01");
+
+        assertEquals(Schema.OPTIONAL_STRING_SCHEMA, schemas.get(0));
+        assertEquals(Schema.OPTIONAL_STRING_SCHEMA, schemas.get(1));
+        assertEquals(Schema.OPTIONAL_INT64_SCHEMA, infer("1", "", "99999999999").get(0));
+        // too large for a long
+        assertEquals(Decimal.builder(0).optional().build(), infer("99999999999999999999").get(0));
+    }
+
+    @Test
+    void testConvertsValues() {
+        assertEquals(42L, ColumnTypeInference.convert("42", Schema.OPTIONAL_INT64_SCHEMA));
+        assertNull(ColumnTypeInference.convert("", Schema.OPTIONAL_INT64_SCHEMA));
+        assertEquals(new BigDecimal("3.100"), ColumnTypeInference.convert("3.1", Decimal.builder(3).optional().build()));
+        assertEquals(1500.0, ColumnTypeInference.convert("1.5E3", Schema.OPTIONAL_FLOAT64_SCHEMA));
+        assertEquals(new java.util.Date(86_400_000L), ColumnTypeInference.convert("1970-01-02", Date.builder().optional().build()));
+        assertEquals(new java.util.Date(90_061_000L),
+                ColumnTypeInference.convert("1970-01-02 01:01:01", Timestamp.builder().optional().build()));
+        assertEquals("", ColumnTypeInference.convert("", Schema.OPTIONAL_STRING_SCHEMA));
+    }
+
+    @Test
+    void testValuesThatDoNotFitAreRejected() {
+        assertThrows(DataException.class, () -> ColumnTypeInference.convert("4x", Schema.OPTIONAL_INT64_SCHEMA));
+        assertThrows(DataException.class, () -> ColumnTypeInference.convert("007", Schema.OPTIONAL_INT64_SCHEMA));
+        assertThrows(DataException.class, () -> ColumnTypeInference.convert("1.2345", Decimal.builder(2).optional().build()));
+        assertThrows(DataException.class, () -> ColumnTypeInference.convert("2024-02-30", Date.builder().optional().build()));
+    }
+}
@@ -0,0 +1,73 @@
+package br.com.datastreambrasil.kafka.connector.ftp.parse;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Compares {@link DelimitedTokenizer} with the split-and-trim code it replaced. Not run by the build:
+ * mvn test-compile exec:java -Dexec.classpathScope=test
+ *     -Dexec.mainClass=br.com.datastreambrasil.kafka.connector.ftp.parse.DelimitedTokenizerBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DelimitedTokenizerBenchmark {
+
+    @Param({";", "||"})
+    public String delimiter;
+
+    private String line;
+    private DelimitedTokenizer tokenizer;
+
+    @Setup
+    public void setup() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 20; i++) {
+            if (i > 0) {
+                builder.append(delimiter);
+            }
+            builder.append(i % 4 == 0 ? " padded value " : "field-" + i);
+        }
+        line = builder.toString();
+        tokenizer = new DelimitedTokenizer(delimiter, '"', DelimitedTokenizer.NO_CHAR, true);
+    }
+
+    @Benchmark
+    public void splitAndTrim(Blackhole blackhole) {
+        String[] parts = line.split(Pattern.quote(delimiter), -1);
+        for (String part : parts) {
+            blackhole.consume(part.trim());
+        }
+    }
+
+    @Benchmark
+    public void tokenizer(Blackhole blackhole) {
+        int count = tokenizer.split(line);
+        for (int i = 0; i < count; i++) {
+            blackhole.consume(tokenizer.getField(i));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(DelimitedTokenizerBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,101 @@
+package br.com.datastreambrasil.kafka.connector.ftp.parse;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DelimitedTokenizerTest {
+
+    private static String[] split(DelimitedTokenizer tokenizer, String line) {
+        tokenizer.split(line);
+        return tokenizer.getFields();
+    }
+
+    @Test
+    void testMatchesSplitAndTrimOnUnquotedLines() {
+        DelimitedTokenizer tokenizer = new DelimitedTokenizer(";", '"', DelimitedTokenizer.NO_CHAR, true);
+        String[] lines = {"a;b;c", " a ; b ;c ", ";;", "", "single", "a;;b;", "\t x\t;\ty "};
+
+        for (String line : lines) {
+            String[] expected = line.split(Pattern.quote(";"), -1);
+            for (int i = 0; i < expected.length; i++) {
+                expected[i] = expected[i].trim();
+            }
+            assertArrayEquals(expected, split(tokenizer, line), line);
+        }
+    }
+
+    @Test
+    void testQuotedFieldsFollowRfc4180() {
+        DelimitedTokenizer tokenizer = new DelimitedTokenizer(",", '"', DelimitedTokenizer.NO_CHAR, true);
+
+        assertArrayEquals(new String[]{"1", "Sao Paulo, SP", "say \"hi\"", ""},
+                split(tokenizer, "1,\"Sao Paulo, SP\",\"say \"\"hi\"\"\",\"\""));
+        // blanks inside quotes are data, blanks around them are not
+        assertArrayEquals(new String[]{" padded ", "x"}, split(tokenizer, "  \" padded \"  ,x"));
+        // a quote inside an unquoted field is literal, an unterminated quote runs to the end of the line
+        assertArrayEquals(new String[]{"5\" disk", "open, still open"}, split(tokenizer, "5\" disk,\"open, still open"));
+        // text after the closing quote is kept
+        assertArrayEquals(new String[]{"ab c", "d"}, split(tokenizer, "\"ab\" c,d"));
+    }
+
+    @Test
+    void testEscapeCharacterAndDisabledQuoting() {
+        DelimitedTokenizer escaped = new DelimitedTokenizer(";", '"', '\\', false);
+        assertArrayEquals(new String[]{"a\"b;c\\", " d"}, split(escaped, "\"a\\\"b;c\\\\\"; d"));
+
+        DelimitedTokenizer unquoted = new DelimitedTokenizer(";", DelimitedTokenizer.NO_CHAR, DelimitedTokenizer.NO_CHAR, true);
+        assertArrayEquals(new String[]{"\"a", "b\""}, split(unquoted, "\"a;b\""));
+    }
+
+    @Test
+    void testMultiCharacterAndWhitespaceDelimiters() {
+        DelimitedTokenizer multi = new DelimitedTokenizer("||", '"', DelimitedTokenizer.NO_CHAR, true);
+        assertArrayEquals(new String[]{"a", "b|c", "d||e", ""}, split(multi, "a || b|c ||\"d||e\"||"));
+
+        DelimitedTokenizer tab = new DelimitedTokenizer("\t", '"', DelimitedTokenizer.NO_CHAR, true);
+        assertArrayEquals(new String[]{"a", "", "b"}, split(tab, " a \t\t b"));
+    }
+
+    @Test
+    void testFieldArrayIsReusedAndGrows() {
+        DelimitedTokenizer tokenizer = new DelimitedTokenizer(",", '"', DelimitedTokenizer.NO_CHAR, true);
+        StringBuilder line = new StringBuilder("0");
+        for (int i = 1; i < 40; i++) {
+            line.append(',').append(i);
+        }
+        assertEquals(40, tokenizer.split(line.toString()));
+        assertEquals("39", tokenizer.getField(39));
+
+        assertEquals(2, tokenizer.split("x,y"));
+        assertEquals(2, tokenizer.getFieldCount());
+        assertThrows(IndexOutOfBoundsException.class, () -> tokenizer.getField(2));
+    }
+
+    @Test
+    void testProjectionKeepsOnlyIncludedColumns() {
+        BitSet columns = new BitSet();
+        columns.set(1);
+        columns.set(3);
+        DelimitedTokenizer tokenizer = new DelimitedTokenizer(",", '"', DelimitedTokenizer.NO_CHAR, true, columns);
+
+        assertEquals(2, tokenizer.split("\"a,\"\"x\"\"\", b ,c, d ,e,f"));
+        assertArrayEquals(new String[]{"b", "d"}, tokenizer.getFields());
+        assertEquals(1, tokenizer.getColumn(0));
+        assertEquals(3, tokenizer.getColumn(1));
+
+        // a short line keeps the included columns it has
+        assertArrayEquals(new String[]{"b"}, split(tokenizer, "a,b,c"));
+        assertArrayEquals(new String[]{}, split(tokenizer, "\"a,b,c"));
+        assertArrayEquals(new String[]{"q,1", ""}, split(tokenizer, " \"s\" ,\"q,1\",x,"));
+    }
+
+    @Test
+    void testRejectsInvalidConfiguration() {
+        assertThrows(IllegalArgumentException.class, () -> new DelimitedTokenizer("", '"', DelimitedTokenizer.NO_CHAR, true));
+        assertThrows(IllegalArgumentException.class, () -> new DelimitedTokenizer("\"", '"', DelimitedTokenizer.NO_CHAR, true));
+    }
+}
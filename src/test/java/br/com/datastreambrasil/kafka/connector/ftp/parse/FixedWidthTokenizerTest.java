@@ -0,0 +1,86 @@
+package br.com.datastreambrasil.kafka.connector.ftp.parse;
+
+import org.apache.kafka.connect.data.Date;
+import org.apache.kafka.connect.data.Decimal;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.Timestamp;
+import org.apache.kafka.connect.errors.DataException;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.BitSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FixedWidthTokenizerTest {
+
+    private static final String LAYOUT = "id:1:5:int64, name:6:10, amount:16:7:decimal(2):none, day:23:8:date, "
+            + "at:31:14:timestamp(yyyyMMddHHmmss), code:45:3:string:right";
+
+    @Test
+    void testParsesLayout() {
+        List<FixedWidthColumn> columns = FixedWidthColumn.parseAll(LAYOUT, FixedWidthColumn.Trim.BOTH);
+
+        assertEquals(6, columns.size());
+        assertEquals("name", columns.get(1).getName());
+        assertEquals(5, columns.get(1).getStart());
+        assertEquals(15, columns.get(1).getEnd());
+        assertEquals(FixedWidthColumn.Trim.BOTH, columns.get(1).getTrim());
+        assertEquals(FixedWidthColumn.Trim.NONE, columns.get(2).getTrim());
+        assertEquals(Schema.OPTIONAL_INT64_SCHEMA, columns.get(0).getSchema());
+        assertEquals(Decimal.builder(2).optional().build(), columns.get(2).getSchema());
+        assertEquals(Date.builder().optional().build(), columns.get(3).getSchema());
+        assertEquals(Timestamp.builder().optional().build(), columns.get(4).getSchema());
+
+        assertThrows(IllegalArgumentException.class, () -> FixedWidthColumn.parseAll("id:1", FixedWidthColumn.Trim.BOTH));
+        assertThrows(IllegalArgumentException.class, () -> FixedWidthColumn.parseAll("id:1:2:blob", FixedWidthColumn.Trim.BOTH));
+        assertThrows(IllegalArgumentException.class, () -> FixedWidthColumn.parseAll("id:0:2", FixedWidthColumn.Trim.BOTH));
+    }
+
+    @Test
+    void testSlicesAndTrimsEachColumn() {
+        List<FixedWidthColumn> columns = FixedWidthColumn.parseAll(LAYOUT, FixedWidthColumn.Trim.BOTH);
+        FixedWidthTokenizer tokenizer = new FixedWidthTokenizer(columns, null);
+
+        assertEquals(6, tokenizer.split("00042  Maria   00012502024013120240131101500 AB"));
+        assertEquals("00042", tokenizer.getField(0));
+        assertEquals("Maria", tokenizer.getField(1));
+        assertEquals("0001250", tokenizer.getField(2));
+        assertEquals(" AB", tokenizer.getField(5));
+
+        // trailing blanks stripped in transit: missing columns are empty
+        assertEquals(6, tokenizer.split("00043  Jo"));
+        assertEquals("Jo", tokenizer.getField(1));
+        assertEquals("", tokenizer.getField(2));
+        assertEquals("", tokenizer.getField(5));
+    }
+
+    @Test
+    void testProjectionKeepsLayoutColumns() {
+        BitSet include = new BitSet();
+        include.set(0);
+        include.set(2);
+        FixedWidthTokenizer tokenizer = new FixedWidthTokenizer(FixedWidthColumn.parseAll(LAYOUT, FixedWidthColumn.Trim.BOTH), include);
+
+        assertEquals(2, tokenizer.split("00042  Maria   0001250"));
+        assertEquals("0001250", tokenizer.getField(1));
+        assertEquals(2, tokenizer.getColumn(1));
+    }
+
+    @Test
+    void testConvertsTypedColumns() {
+        List<FixedWidthColumn> columns = FixedWidthColumn.parseAll(LAYOUT, FixedWidthColumn.Trim.BOTH);
+
+        assertEquals(42L, columns.get(0).convert("00042"));
+        assertNull(columns.get(0).convert("     "));
+        assertEquals(new BigDecimal("12.50"), columns.get(2).convert("0001250"));
+        assertEquals(new BigDecimal("12.50"), columns.get(2).convert("  12.5 "));
+        assertEquals(new java.util.Date(86_400_000L), columns.get(3).convert("19700102"));
+        assertEquals(new java.util.Date(90_061_000L), columns.get(4).convert("19700102010101"));
+        assertEquals(" AB", columns.get(5).convert(" AB"));
+
+        assertThrows(DataException.class, () -> columns.get(0).convert("4x"));
+        assertThrows(DataException.class, () -> columns.get(3).convert("20241301"));
+    }
+}
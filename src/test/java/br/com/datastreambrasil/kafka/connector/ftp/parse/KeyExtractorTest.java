@@ -0,0 +1,50 @@
+package br.com.datastreambrasil.kafka.connector.ftp.parse;
+
+import br.com.datastreambrasil.kafka.connector.ftp.hash.Murmur3;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeyExtractorTest {
+
+    private final DelimitedTokenizer tokenizer = new DelimitedTokenizer(";", '"', DelimitedTokenizer.NO_CHAR, true);
+
+    @Test
+    void testSingleFieldKeyIsTheField() {
+        KeyExtractor extractor = new KeyExtractor(new int[]{1}, false);
+
+        tokenizer.split("a;b;c");
+        assertEquals("b", extractor.extract(tokenizer));
+        tokenizer.split("a;;c");
+        assertNull(extractor.extract(tokenizer));
+        tokenizer.split("a");
+        assertNull(extractor.extract(tokenizer));
+    }
+
+    @Test
+    void testCompositeKeyInSpecOrder() {
+        KeyExtractor extractor = new KeyExtractor(new int[]{2, 0}, false);
+
+        tokenizer.split("a;b;c");
+        assertEquals("c_a", extractor.extract(tokenizer));
+        // missing and empty parts are left out
+        tokenizer.split(";b;c");
+        assertEquals("c", extractor.extract(tokenizer));
+        tokenizer.split("a;b");
+        assertEquals("a", extractor.extract(tokenizer));
+    }
+
+    @Test
+    void testHashedKeyHasFixedLength() {
+        KeyExtractor extractor = new KeyExtractor(new int[]{0, 1}, true);
+
+        tokenizer.split("a-very-long-customer-identifier;another-long-contract-identifier");
+        String key = extractor.extract(tokenizer);
+        assertEquals(32, key.length());
+        assertEquals(Murmur3.hash128Hex("a-very-long-customer-identifier_another-long-contract-identifier"), key);
+
+        tokenizer.split(";");
+        assertNull(extractor.extract(tokenizer));
+        assertThrows(IllegalArgumentException.class, () -> new KeyExtractor(new int[0], false));
+    }
+}
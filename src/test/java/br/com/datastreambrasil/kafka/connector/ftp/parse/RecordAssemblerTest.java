@@ -0,0 +1,65 @@
+package br.com.datastreambrasil.kafka.connector.ftp.parse;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecordAssemblerTest {
+
+    private final RecordAssembler assembler = new RecordAssembler(";", '"', DelimitedTokenizer.NO_CHAR, true, 1000);
+
+    @Test
+    void testClosedLinesAreNotJoined() {
+        assertFalse(assembler.begin("a;b;c", 5));
+        assertFalse(assembler.begin("a;\"b;c\";d", 9));
+        assertFalse(assembler.begin("a;\"say \"\"hi\"\"\";d", 16));
+        // a quote inside an unquoted field does not open one
+        assertFalse(assembler.begin("a;5\" disk;d", 11));
+        assertEquals(1, assembler.getLineCount());
+    }
+
+    @Test
+    void testJoinsLinesUpToTheClosingQuote() {
+        assertTrue(assembler.begin("1; \"first", 9));
+        assertTrue(assembler.append("", 0));
+        // the doubled quote stays inside the field
+        assertTrue(assembler.append("say \"\"hi\"\";x", 12));
+        assertFalse(assembler.append("last\";2", 7));
+
+        assertEquals("1; \"first\n\nsay \"\"hi\"\";x\nlast\";2", assembler.getRecord());
+        assertEquals(4, assembler.getLineCount());
+        assertEquals(28, assembler.getByteCount());
+        assertFalse(assembler.isOverflowed());
+
+        DelimitedTokenizer tokenizer = new DelimitedTokenizer(";", '"', DelimitedTokenizer.NO_CHAR, true);
+        assertEquals(3, tokenizer.split(assembler.getRecord()));
+        assertEquals("first\n\nsay \"hi\";x\nlast", tokenizer.getField(1));
+    }
+
+    @Test
+    void testFollowsEscapeAndMultiCharacterDelimiter() {
+        RecordAssembler escaped = new RecordAssembler("||", '"', '\\', false, 1000);
+
+        assertTrue(escaped.begin("a||\"x\\\"", 7));
+        assertFalse(escaped.append("y\"||z", 5));
+        assertEquals("a||\"x\\\"\ny\"||z", escaped.getRecord());
+
+        // without trimming a blank starts an unquoted field
+        assertFalse(escaped.begin("a|| \"x", 6));
+    }
+
+    @Test
+    void testCutsRecordAtSizeLimit() {
+        RecordAssembler bounded = new RecordAssembler(";", '"', DelimitedTokenizer.NO_CHAR, true, 10);
+
+        assertTrue(bounded.begin("1;\"abc", 6));
+        assertFalse(bounded.append("defgh", 5));
+        assertTrue(bounded.isOverflowed());
+        assertEquals("1;\"abc\ndefgh", bounded.getRecord());
+
+        assertFalse(bounded.begin("2;\"01234567890", 14));
+        assertTrue(bounded.isOverflowed());
+        assertFalse(bounded.begin("3;ok", 4));
+        assertFalse(bounded.isOverflowed());
+    }
+}
@@ -0,0 +1,46 @@
+package br.com.datastreambrasil.kafka.connector.ftp.parse;
+
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SchemaCacheTest {
+
+    private static Schema schemaOf(int fieldCount) {
+        SchemaBuilder builder = SchemaBuilder.struct().optional();
+        for (int i = 0; i < fieldCount; i++) {
+            builder.field("field" + (i + 1), Schema.OPTIONAL_STRING_SCHEMA);
+        }
+        return builder.build();
+    }
+
+    @Test
+    void testKeepsOneSchemaPerFieldCount() {
+        SchemaCache cache = new SchemaCache(4);
+        Schema three = schemaOf(3);
+        Schema two = schemaOf(2);
+        cache.put(3, three);
+        cache.put(2, two);
+
+        assertSame(three, cache.get(3));
+        assertSame(two, cache.get(2));
+        assertNull(cache.get(1));
+
+        cache.clear();
+        assertNull(cache.get(3));
+    }
+
+    @Test
+    void testFieldCountsBeyondCapacityShareOneSlot() {
+        SchemaCache cache = new SchemaCache(4);
+        Schema five = schemaOf(5);
+        cache.put(5, five);
+        assertSame(five, cache.get(5));
+
+        cache.put(9, schemaOf(9));
+        assertNull(cache.get(5));
+        assertEquals(9, cache.get(9).fields().size());
+    }
+}
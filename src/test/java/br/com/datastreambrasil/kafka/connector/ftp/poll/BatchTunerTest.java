@@ -0,0 +1,54 @@
+package br.com.datastreambrasil.kafka.connector.ftp.poll;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchTunerTest {
+
+    @Test
+    void testLimitFollowsParseRate() {
+        BatchTuner tuner = new BatchTuner(50000, 1000, 2000);
+
+        // 1000 records in 100 ms: 10 records per ms, 10000 per target poll
+        tuner.onPoll(1000, 100);
+        assertEquals(10000, tuner.getRecordLimit());
+
+        // slow file: 1000 records in 2 s
+        for (int i = 0; i < 20; i++) {
+            tuner.onPoll(1000, 2000);
+        }
+        assertTrue(tuner.getRecordLimit() < 600, "limit " + tuner.getRecordLimit());
+    }
+
+    @Test
+    void testSlowAcknowledgementsShrinkTheLimit() {
+        BatchTuner tuner = new BatchTuner(50000, 1000, 2000);
+        tuner.onPoll(1000, 100);
+        int limit = tuner.getRecordLimit();
+
+        tuner.onAck(10000);
+        tuner.onPoll(1000, 100);
+
+        assertEquals(limit / 2, tuner.getRecordLimit());
+        assertEquals(10000, tuner.getAckLatencyMs());
+    }
+
+    @Test
+    void testLimitStaysWithinBounds() {
+        BatchTuner tuner = new BatchTuner(1000, 1000, 2000);
+        assertEquals(1000, tuner.getRecordLimit());
+
+        // a fast parse rate never raises the limit above the configured records per poll
+        tuner.onPoll(1_000_000, 1);
+        assertEquals(1000, tuner.getRecordLimit());
+
+        tuner.onPoll(0, 5000);
+        assertEquals(1000, tuner.getRecordLimit());
+
+        BatchTuner slow = new BatchTuner(1000, 1000, 2000);
+        slow.onPoll(1, 100_000);
+        assertEquals(1, slow.getRecordLimit());
+        assertEquals(1, new BatchTuner(0, 1000, 2000).getRecordLimit());
+    }
+}
@@ -0,0 +1,84 @@
+package br.com.datastreambrasil.kafka.connector.ftp.poll;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PollSchedulerTest {
+
+    @Test
+    void testIdleWaitDoublesUpToCeilingAndResetsOnWork() throws Exception {
+        PollScheduler scheduler = new PollScheduler(1, 5);
+
+        assertEquals(1, scheduler.getNextWaitMs());
+        scheduler.awaitIdle();
+        assertEquals(2, scheduler.getNextWaitMs());
+        scheduler.awaitIdle();
+        assertEquals(4, scheduler.getNextWaitMs());
+        scheduler.awaitIdle();
+        assertEquals(5, scheduler.getNextWaitMs());
+        scheduler.awaitIdle();
+        assertEquals(5, scheduler.getNextWaitMs());
+
+        scheduler.onWork();
+        assertEquals(1, scheduler.getNextWaitMs());
+    }
+
+    @Test
+    void testZeroIntervalNeverWaits() throws Exception {
+        PollScheduler scheduler = new PollScheduler(0, 60000);
+
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < 10; i++) {
+            scheduler.awaitIdle();
+        }
+        assertTrue(System.currentTimeMillis() - start < 1000);
+        assertEquals(0, scheduler.getNextWaitMs());
+    }
+
+    @Test
+    void testStopEndsWaitRightAway() throws Exception {
+        PollScheduler scheduler = new PollScheduler(60000, 60000);
+        Thread poller = new Thread(() -> {
+            try {
+                scheduler.awaitIdle();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        poller.start();
+        Thread.sleep(100);
+
+        long start = System.currentTimeMillis();
+        scheduler.stop();
+        poller.join(5000);
+
+        assertFalse(poller.isAlive());
+        assertTrue(System.currentTimeMillis() - start < 5000);
+    }
+
+    @Test
+    void testWakeUpEndsOneWait() throws Exception {
+        PollScheduler scheduler = new PollScheduler(60000, 60000);
+
+        long start = System.currentTimeMillis();
+        scheduler.wakeUp();
+        scheduler.awaitIdle();
+        assertTrue(System.currentTimeMillis() - start < 5000);
+
+        Thread poller = new Thread(() -> {
+            try {
+                scheduler.awaitIdle();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        poller.start();
+        Thread.sleep(100);
+        assertTrue(poller.isAlive());
+
+        scheduler.wakeUp();
+        poller.join(5000);
+        assertFalse(poller.isAlive());
+    }
+}
@@ -0,0 +1,93 @@
+package br.com.datastreambrasil.kafka.connector.ftp.prefetch;
+
+import br.com.datastreambrasil.kafka.connector.ftp.RemoteClient;
+import br.com.datastreambrasil.kafka.connector.ftp.shard.FileSharding;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class FilePrefetcherTest {
+
+    private static RemoteClient client() throws Exception {
+        RemoteClient client = mock(RemoteClient.class);
+        when(client.listFiles("/in", ".*")).thenReturn(List.of("/in/a.csv", "/in/b.csv"), List.of());
+        when(client.retrieveFileStream("/stage/a.csv"))
+                .thenReturn(new ByteArrayInputStream("0123456789".getBytes(StandardCharsets.UTF_8)));
+        when(client.retrieveFileStream("/stage/b.csv"))
+                .thenReturn(new ByteArrayInputStream("0123".getBytes(StandardCharsets.UTF_8)));
+        return client;
+    }
+
+    @Test
+    void testClaimsFilesInListingOrder() throws Exception {
+        RemoteClient client = client();
+        Set<String> staged = ConcurrentHashMap.newKeySet();
+        FilePrefetcher prefetcher = new FilePrefetcher(client, "/in", ".*", "/stage", FileSharding.NONE, null, 1, 6, staged);
+
+        PrefetchedFile first = prefetcher.next();
+        prefetcher.fill();
+        assertEquals("a.csv", first.getFilename());
+        assertEquals("/in/a.csv", first.getSourcePath());
+        assertEquals("012345", new String(first.openHead(0).readAllBytes(), StandardCharsets.UTF_8));
+        assertEquals("345", new String(first.openHead(3).readAllBytes(), StandardCharsets.UTF_8));
+        assertFalse(first.isComplete());
+
+        PrefetchedFile second = prefetcher.next();
+        assertEquals("/stage/b.csv", second.getStagedPath());
+        assertTrue(second.isComplete());
+        assertEquals(4, second.getHeadLength());
+
+        assertNull(prefetcher.next());
+        verify(client).moveFile("/in/a.csv", "/stage/a.csv");
+        verify(client).moveFile("/in/b.csv", "/stage/b.csv");
+        // the listing is reused until it is drained
+        verify(client, times(2)).listFiles("/in", ".*");
+        prefetcher.close();
+    }
+
+    @Test
+    void testCloseReturnsUnprocessedFiles() throws Exception {
+        RemoteClient client = client();
+        Set<String> staged = ConcurrentHashMap.newKeySet();
+        FilePrefetcher prefetcher = new FilePrefetcher(client, "/in", ".*", "/stage", FileSharding.NONE, null, 1, 6, staged);
+
+        prefetcher.next();
+        prefetcher.fill();
+        verify(client, timeout(5000)).retrieveFileStream("/stage/b.csv");
+        prefetcher.close();
+
+        verify(client).moveFile("/stage/b.csv", "/in/b.csv");
+        verify(client, never()).moveFile("/stage/a.csv", "/in/a.csv");
+        // a.csv was handed out and stays staged until the task archives it
+        assertEquals(Set.of("/stage/a.csv"), staged);
+        verify(client).disconnect();
+    }
+
+    @Test
+    void testFileIsNotStagedOntoOneAwaitingArchival() throws Exception {
+        RemoteClient client = client();
+        Set<String> staged = ConcurrentHashMap.newKeySet();
+        staged.add("/stage/a.csv");
+        FilePrefetcher prefetcher = new FilePrefetcher(client, "/in", ".*", "/stage", FileSharding.NONE, null, 0, 6, staged);
+
+        assertEquals("b.csv", prefetcher.next().getFilename());
+        verify(client, never()).moveFile(eq("/in/a.csv"), anyString());
+
+        // once the earlier a.csv is archived, the new one is claimed
+        staged.remove("/stage/a.csv");
+        when(client.listFiles("/in", ".*")).thenReturn(List.of("/in/a.csv"));
+        assertEquals("a.csv", prefetcher.next().getFilename());
+        verify(client).moveFile("/in/a.csv", "/stage/a.csv");
+        assertEquals(Set.of("/stage/a.csv", "/stage/b.csv"), staged);
+        prefetcher.close();
+    }
+}
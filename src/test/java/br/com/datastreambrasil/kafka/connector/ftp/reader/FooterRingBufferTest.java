@@ -0,0 +1,58 @@
+package br.com.datastreambrasil.kafka.connector.ftp.reader;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FooterRingBufferTest {
+
+    private static List<String> drop(int footerLines, int totalLines) {
+        FooterRingBuffer<String> buffer = new FooterRingBuffer<>(footerLines);
+        List<String> released = new ArrayList<>();
+        for (int i = 1; i <= totalLines; i++) {
+            String line = buffer.offer("line" + i, i, i * 10L);
+            if (line != null) {
+                released.add(line);
+                assertEquals(Integer.parseInt(line.substring(4)), buffer.getReleasedByteCount());
+                assertEquals(Integer.parseInt(line.substring(4)) * 10L, buffer.getReleasedStartPosition());
+            }
+        }
+        assertEquals(Math.min(footerLines, totalLines), buffer.size());
+        return released;
+    }
+
+    @Test
+    void testReleasesAllButLastLines() {
+        List<String> released = drop(2, 5);
+        assertEquals(List.of("line1", "line2", "line3"), released);
+    }
+
+    @Test
+    void testFileShorterThanFooter() {
+        assertTrue(drop(3, 2).isEmpty());
+        assertTrue(drop(3, 3).isEmpty());
+    }
+
+    @Test
+    void testWrapsAroundManyTimes() {
+        List<String> released = drop(7, 1000);
+        assertEquals(993, released.size());
+        assertEquals("line1", released.get(0));
+        assertEquals("line993", released.get(992));
+    }
+
+    @Test
+    void testClearAndInvalidCapacity() {
+        FooterRingBuffer<String> buffer = new FooterRingBuffer<>(1);
+        buffer.offer("a", 1, 0);
+        buffer.clear();
+        assertEquals(0, buffer.size());
+        assertNull(buffer.offer("b", 1, 2));
+        assertEquals("b", buffer.offer("c", 1, 4));
+
+        assertThrows(IllegalArgumentException.class, () -> new FooterRingBuffer<String>(0));
+    }
+}
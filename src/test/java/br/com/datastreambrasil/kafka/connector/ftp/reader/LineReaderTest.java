@@ -0,0 +1,131 @@
+package br.com.datastreambrasil.kafka.connector.ftp.reader;
+
+import br.com.datastreambrasil.kafka.connector.ftp.hash.FileFingerprint;
+import br.com.datastreambrasil.kafka.connector.ftp.hash.FileFingerprints;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LineReaderTest {
+
+    private static List<String> readAll(LineReader reader, List<Long> starts) throws IOException {
+        List<String> lines = new ArrayList<>();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lines.add(line);
+            starts.add(reader.getLastLineStart());
+        }
+        return lines;
+    }
+
+    private static List<String> bufferedReaderLines(String content) throws IOException {
+        BufferedReader reader = new BufferedReader(new StringReader(content));
+        List<String> lines = new ArrayList<>();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lines.add(line);
+        }
+        return lines;
+    }
+
+    @Test
+    void testMatchesBufferedReaderForEveryBufferSize() throws IOException {
+        String content = "first\nsecond\r\nthird\rfourth\n\n\r\nlast-without-terminator";
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+
+        for (int bufferSize = 1; bufferSize <= bytes.length + 1; bufferSize++) {
+            List<Long> starts = new ArrayList<>();
+            LineReader reader = new ByteLineReader(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8, bufferSize, 0);
+            assertEquals(bufferedReaderLines(content), readAll(reader, starts), "buffer size " + bufferSize);
+            assertEquals(List.of(0L, 6L, 14L, 20L, 27L, 28L, 30L), starts, "buffer size " + bufferSize);
+        }
+    }
+
+    @Test
+    void testPositionsAndByteCountsForMultiByteCharacters() throws IOException {
+        byte[] bytes = "ação;1\nmaçã;2\n".getBytes(StandardCharsets.UTF_8);
+        LineReader reader = new ByteLineReader(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8, 4, 1000);
+
+        assertEquals("ação;1", reader.readLine());
+        assertEquals(1000L, reader.getLastLineStart());
+        assertEquals(8, reader.getLastLineByteCount());
+        assertEquals("maçã;2", reader.readLine());
+        assertEquals(1009L, reader.getLastLineStart());
+        assertNull(reader.readLine());
+    }
+
+    @Test
+    void testOpenPicksReaderByCharset() {
+        byte[] empty = new byte[0];
+        assertTrue(LineReader.open(new ByteArrayInputStream(empty), StandardCharsets.UTF_8, 16, 0) instanceof ByteLineReader);
+        assertTrue(LineReader.open(new ByteArrayInputStream(empty), StandardCharsets.ISO_8859_1, 16, 0) instanceof ByteLineReader);
+        assertTrue(LineReader.open(new ByteArrayInputStream(empty), Charset.forName("windows-1252"), 16, 0) instanceof ByteLineReader);
+        assertTrue(LineReader.open(new ByteArrayInputStream(empty), StandardCharsets.UTF_16, 16, 0) instanceof CharLineReader);
+    }
+
+    @Test
+    void testCharLineReaderHasNoPositions() throws IOException {
+        byte[] bytes = "a\nbc\n".getBytes(StandardCharsets.UTF_16LE);
+        LineReader reader = LineReader.open(new ByteArrayInputStream(bytes), StandardCharsets.UTF_16LE, 16, 0);
+
+        assertEquals("a", reader.readLine());
+        assertEquals(-1L, reader.getLastLineStart());
+        assertEquals("bc", reader.readLine());
+        assertEquals(4, reader.getLastLineByteCount());
+        assertNull(reader.readLine());
+    }
+
+    @Test
+    void testDecodesLatin1AndCp1252Lines() throws IOException {
+        Charset cp1252 = Charset.forName("windows-1252");
+        for (Charset charset : List.of(StandardCharsets.ISO_8859_1, cp1252)) {
+            byte[] bytes = "plain;1\ncora\u00e7\u00e3o;2\n".getBytes(charset);
+            for (int bufferSize = 1; bufferSize <= bytes.length; bufferSize++) {
+                LineReader reader = new ByteLineReader(new ByteArrayInputStream(bytes), charset, bufferSize, 0);
+                assertEquals("plain;1", reader.readLine());
+                assertEquals("cora\u00e7\u00e3o;2", reader.readLine(), charset + " buffer size " + bufferSize);
+                assertEquals(9, reader.getLastLineByteCount());
+            }
+        }
+
+        // 0x80 is the euro sign in windows-1252 but a control character in Latin-1
+        byte[] euro = {'1', '0', (byte) 0x80};
+        assertEquals("10\u20ac", new ByteLineReader(new ByteArrayInputStream(euro), cp1252, 16, 0).readLine());
+        assertEquals("10\u0080", new ByteLineReader(new ByteArrayInputStream(euro), StandardCharsets.ISO_8859_1, 16, 0).readLine());
+    }
+
+    @Test
+    void testSkippedLinesKeepPositionsAndBytes() throws IOException {
+        String content = "header\r\nação;1\nlast";
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+
+        for (int bufferSize = 1; bufferSize <= bytes.length; bufferSize++) {
+            LineReader reader = new ByteLineReader(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8, bufferSize, 0);
+            FileFingerprint skipped = FileFingerprints.crc32c();
+            FileFingerprint expected = FileFingerprints.crc32c();
+
+            assertTrue(reader.skipLine());
+            reader.digestLastLine(skipped);
+            assertTrue(reader.skipLine());
+            assertEquals(8L, reader.getLastLineStart());
+            assertEquals(8, reader.getLastLineByteCount());
+            reader.digestLastLine(skipped);
+            assertEquals("ação;1", reader.decodeLastLine());
+            assertEquals("last", reader.readLine());
+            assertFalse(reader.skipLine());
+
+            byte[] prefix = "headeração;1".getBytes(StandardCharsets.UTF_8);
+            expected.update(prefix, 0, prefix.length);
+            assertEquals(expected.getValue(), skipped.getValue(), "buffer size " + bufferSize);
+        }
+    }
+}
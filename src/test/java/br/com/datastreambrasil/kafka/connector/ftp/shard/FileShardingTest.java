@@ -0,0 +1,70 @@
+package br.com.datastreambrasil.kafka.connector.ftp.shard;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileShardingTest {
+
+    private static List<String> files(int count) {
+        List<String> files = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            files.add("/input/partner_" + i + ".csv");
+        }
+        return files;
+    }
+
+    @Test
+    void testEveryFileHasExactlyOneOwner() {
+        List<FileSharding> shards = List.of(new FileSharding(0, 3, 0), new FileSharding(1, 3, 0), new FileSharding(2, 3, 0));
+        int[] owned = new int[3];
+
+        for (String file : files(3000)) {
+            int owners = 0;
+            for (FileSharding shard : shards) {
+                if (shard.owns(file)) {
+                    owners++;
+                    owned[shard.getShardId()]++;
+                }
+            }
+            assertEquals(1, owners, file);
+        }
+        for (int count : owned) {
+            assertTrue(count > 800, "unbalanced shards: " + count);
+        }
+    }
+
+    @Test
+    void testShardDependsOnTheNameOnly() {
+        assertEquals(FileSharding.shardOf("/input/a.csv", 7), FileSharding.shardOf("/stage/a.csv", 7));
+    }
+
+    @Test
+    void testSelectsFirstOwnedFile() {
+        FileSharding sharding = new FileSharding(1, 2, 0);
+        List<String> files = files(20);
+
+        String selected = sharding.select(files);
+
+        assertTrue(sharding.owns(selected));
+        assertEquals(files.stream().filter(sharding::owns).findFirst().orElseThrow(), selected);
+        assertTrue(FileSharding.NONE.owns(files.get(0)));
+    }
+
+    @Test
+    void testStealsOnlyAfterIdlePeriod() throws Exception {
+        List<String> others = new ArrayList<>();
+        FileSharding sharding = new FileSharding(0, 2, 50);
+        for (String file : files(20)) {
+            if (!sharding.owns(file)) others.add(file);
+        }
+
+        assertNull(sharding.select(others));
+        Thread.sleep(60);
+        assertEquals(others.get(others.size() - 1), sharding.select(others));
+        assertNull(new FileSharding(0, 2, 0).select(others));
+    }
+}
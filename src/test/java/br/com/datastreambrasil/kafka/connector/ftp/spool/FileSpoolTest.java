@@ -0,0 +1,97 @@
+package br.com.datastreambrasil.kafka.connector.ftp.spool;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileSpoolTest {
+
+    @TempDir
+    Path dir;
+
+    private static byte[] content(int size) {
+        byte[] data = new byte[size];
+        for (int i = 0; i < size; i++) {
+            data[i] = (byte) i;
+        }
+        return data;
+    }
+
+    @Test
+    void testSpoolAndFind() throws Exception {
+        FileSpool spool = new FileSpool(dir, 1_000_000);
+        byte[] data = content(300_000);
+
+        Path copy = spool.spool("data.csv", new ByteArrayInputStream(data), data.length, 0);
+
+        assertEquals(copy, spool.find("data.csv"));
+        assertArrayEquals(data, Files.readAllBytes(copy));
+        spool.delete("data.csv");
+        assertNull(spool.find("data.csv"));
+    }
+
+    @Test
+    void testCopyKeepsRemoteModificationTime() throws Exception {
+        FileSpool spool = new FileSpool(dir, 1_000);
+
+        Path copy = spool.spool("data.csv", new ByteArrayInputStream(content(10)), 10, 1700000000000L);
+
+        assertTrue(spool.isCopyOf(copy, 10, 1700000000000L));
+        // re-sent with the same size
+        assertFalse(spool.isCopyOf(copy, 10, 1700086400000L));
+        assertFalse(spool.isCopyOf(copy, 11, 1700000000000L));
+        assertFalse(spool.isCopyOf(copy, 10, 0));
+    }
+
+    @Test
+    void testCleanupRemovesPartialCopies() throws Exception {
+        Files.write(dir.resolve("data.csv" + FileSpool.PART_SUFFIX), content(10));
+        FileSpool spool = new FileSpool(dir, 1_000_000);
+
+        spool.cleanup();
+
+        assertNull(spool.find("data.csv"));
+        assertFalse(Files.exists(dir.resolve("data.csv" + FileSpool.PART_SUFFIX)));
+    }
+
+    @Test
+    void testQuotaEvictsOldestCopies() throws Exception {
+        FileSpool spool = new FileSpool(dir, 250);
+        Files.setLastModifiedTime(spool.spool("old.csv", new ByteArrayInputStream(content(100)), 100, 0),
+                FileTime.fromMillis(1000));
+        spool.spool("recent.csv", new ByteArrayInputStream(content(100)), 100, 0);
+
+        assertNotNull(spool.spool("new.csv", new ByteArrayInputStream(content(100)), 100, 0));
+
+        assertNull(spool.find("old.csv"));
+        assertNotNull(spool.find("recent.csv"));
+        assertNotNull(spool.find("new.csv"));
+    }
+
+    @Test
+    void testFileLargerThanQuotaIsRejected() throws Exception {
+        FileSpool spool = new FileSpool(dir, 100);
+
+        assertNull(spool.spool("big.csv", new ByteArrayInputStream(content(500)), 500, 0));
+        // unknown size: detected while copying
+        assertNull(spool.spool("big.csv", new ByteArrayInputStream(content(500)), -1, 0));
+        try (var files = Files.list(dir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void testNamesStayInsideTheSpool() throws Exception {
+        FileSpool spool = new FileSpool(dir, 1_000);
+
+        Path copy = spool.spool("../escape.csv", new ByteArrayInputStream(content(10)), 10, 0);
+
+        assertEquals(dir, copy.getParent());
+    }
+}
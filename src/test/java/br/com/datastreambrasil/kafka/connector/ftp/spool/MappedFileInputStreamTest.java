@@ -0,0 +1,57 @@
+package br.com.datastreambrasil.kafka.connector.ftp.spool;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedFileInputStreamTest {
+
+    @TempDir
+    Path dir;
+
+    private Path write(int size) throws Exception {
+        byte[] data = new byte[size];
+        for (int i = 0; i < size; i++) {
+            data[i] = (byte) (i * 31);
+        }
+        return Files.write(dir.resolve("data.bin"), data);
+    }
+
+    @Test
+    void testReadsAcrossWindows() throws Exception {
+        Path file = write(10_000);
+
+        try (InputStream in = new MappedFileInputStream(file, 0, 1024)) {
+            assertArrayEquals(Files.readAllBytes(file), in.readAllBytes());
+            assertEquals(-1, in.read());
+        }
+    }
+
+    @Test
+    void testStartsAtPosition() throws Exception {
+        Path file = write(10_000);
+        byte[] data = Files.readAllBytes(file);
+
+        try (MappedFileInputStream in = new MappedFileInputStream(file, 4000, 1024)) {
+            assertEquals(data[4000] & 0xff, in.read());
+            assertEquals(1000, in.skip(1000));
+            assertArrayEquals(Arrays.copyOfRange(data, 5001, 10_000), in.readAllBytes());
+            assertEquals(10_000, in.getPosition());
+        }
+    }
+
+    @Test
+    void testEmptyFile() throws Exception {
+        Path file = write(0);
+
+        try (InputStream in = new MappedFileInputStream(file, 0)) {
+            assertEquals(-1, in.read());
+        }
+    }
+}